@@ -0,0 +1,92 @@
+package org.moreunit.core.matching;
+
+import static java.util.Arrays.asList;
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.search.core.text.TextSearchRequestor;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.moreunit.core.log.Logger;
+import org.moreunit.core.resources.Resource;
+import org.moreunit.core.resources.SrcFile;
+
+public class FileBatchMatcherTest
+{
+    private static final Collection<String> NO_PATTERNS = new ArrayList<String>();
+
+    SearchEngine searchEngine = mock(SearchEngine.class);
+    FileBatchMatcher batchMatcher = new FileBatchMatcher(searchEngine, mock(Logger.class));
+
+    SourceFolderPath testFolder = mock(SourceFolderPath.class);
+
+    @Before
+    public void prepareTestFolder() throws Exception
+    {
+        when(testFolder.isResolved()).thenReturn(true);
+        when(testFolder.toString()).thenReturn("project/test");
+        when(testFolder.getResolvedPartAsResource()).thenReturn(mock(Resource.class));
+    }
+
+    @Test
+    public void should_resolve_all_files_of_a_folder_with_a_single_search() throws Exception
+    {
+        // given
+        SrcFile foo = srcFile("Foo", "\\QFooTest\\E");
+        SrcFile bar = srcFile("Bar", "\\QBarTest\\E");
+        SrcFile baz = srcFile("Baz", "\\QBazTest\\E");
+
+        searchWillFind("FooTest.js", "BazTest.js");
+
+        // when
+        Collection<String> testedFiles = batchMatcher.findFilesHavingCorrespondingFiles(asList(foo, bar, baz));
+
+        // then
+        assertThat(testedFiles).containsOnly("Foo.js", "Baz.js");
+        verify(searchEngine, times(1)).searchFiles(any(Resource.class), any(Pattern.class), any(TextSearchRequestor.class));
+    }
+
+    private SrcFile srcFile(String baseName, String correspondingFilePattern) throws Exception
+    {
+        SrcFile file = mock(SrcFile.class);
+        when(file.getName()).thenReturn(baseName + ".js");
+        when(file.getExtension()).thenReturn("js");
+        when(file.evaluateName()).thenReturn(new FileNameEvaluation(baseName, false, baseName + "Test", asList(correspondingFilePattern), NO_PATTERNS));
+        when(file.findCorrespondingSrcFolder()).thenReturn(testFolder);
+        return file;
+    }
+
+    private void searchWillFind(final String... fileNames)
+    {
+        doAnswer(new Answer<Void>()
+        {
+            public Void answer(InvocationOnMock invocation) throws Throwable
+            {
+                Pattern pattern = (Pattern) invocation.getArguments()[1];
+                TextSearchRequestor requestor = (TextSearchRequestor) invocation.getArguments()[2];
+                for (String name : fileNames)
+                {
+                    if(pattern.matcher(name).matches())
+                    {
+                        IFile file = mock(IFile.class);
+                        when(file.getName()).thenReturn(name);
+                        requestor.acceptFile(file);
+                    }
+                }
+                return null;
+            }
+        }).when(searchEngine).searchFiles(any(Resource.class), any(Pattern.class), any(TextSearchRequestor.class));
+    }
+}
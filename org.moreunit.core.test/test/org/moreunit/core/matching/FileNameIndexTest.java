@@ -0,0 +1,92 @@
+package org.moreunit.core.matching;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.regex.Pattern;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.jobs.Job;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.moreunit.core.commands.TmpProjectTestCase;
+import org.moreunit.core.log.Logger;
+
+public class FileNameIndexTest extends TmpProjectTestCase
+{
+    FileNameIndex index = new FileNameIndex(ResourcesPlugin.getWorkspace(), mock(Logger.class));
+
+    @Before
+    public void startIndex() throws Exception
+    {
+        index.start();
+    }
+
+    @After
+    public void stopIndex() throws Exception
+    {
+        index.stop();
+    }
+
+    @Test
+    public void should_find_files_matching_pattern_in_folder_and_subfolders() throws Exception
+    {
+        // given
+        IFile fooTest = createFile("test/FooTest.js");
+        IFile deepFooTest = createFile("test/some/path/FooTest.js");
+        createFile("test/BarTest.js");
+        createFile("src/FooTest.js");
+
+        // then
+        assertThat(index.findFiles(project.getFolder("test"), Pattern.compile("FooTest\\.js"))).containsOnly(fooTest, deepFooTest);
+    }
+
+    @Test
+    public void should_reflect_added_and_removed_files() throws Exception
+    {
+        // given
+        IFile fooTest = createFile("test/FooTest.js");
+        assertThat(index.findFiles(project, Pattern.compile("(Foo|Bar)Test\\.js"))).containsOnly(fooTest);
+
+        // when
+        IFile barTest = createFile("test/BarTest.js");
+        fooTest.delete(true, null);
+
+        // then
+        assertThat(index.findFiles(project, Pattern.compile("(Foo|Bar)Test\\.js"))).containsOnly(barTest);
+    }
+
+    @Test
+    public void should_ignore_derived_files() throws Exception
+    {
+        // given
+        IFile fooTest = createFile("test/FooTest.js");
+        assertThat(index.findFiles(project, Pattern.compile("FooTest\\.js"))).containsOnly(fooTest);
+
+        // when
+        fooTest.setDerived(true, null);
+
+        // then
+        assertThat(index.findFiles(project, Pattern.compile("FooTest\\.js"))).isEmpty();
+    }
+
+    @Test
+    public void should_use_index_once_built_and_keep_it_up_to_date() throws Exception
+    {
+        // given
+        IFile fooTest = createFile("test/FooTest.js");
+
+        // first query walks the resource tree and schedules the build
+        assertThat(index.findFiles(project, Pattern.compile("FooTest\\.js"))).containsOnly(fooTest);
+        Job.getJobManager().join(index, null);
+        assertThat(index.isBuilt()).isTrue();
+
+        // when
+        IFile barTest = createFile("test/BarTest.js");
+
+        // then
+        assertThat(index.findFiles(project, Pattern.compile("(Foo|Bar)Test\\.js"))).containsOnly(fooTest, barTest);
+    }
+}
@@ -90,4 +90,15 @@ public class SeparatorNameTokenizerTest
         assertEquals(asList("name", "name_with", "name_with_several"), result.getCombinationsFromStart());
         assertEquals(asList("with_several_parts", "several_parts", "parts"), result.getCombinationsFromEnd());
     }
+
+    @Test
+    public void should_join_combinations_with_single_separators() throws Exception
+    {
+        // when
+        TokenizationResult result = tokenizer.tokenize("_name__with_parts_");
+
+        // then
+        assertEquals(asList("name", "name_with"), result.getCombinationsFromStart());
+        assertEquals(asList("with_parts", "parts"), result.getCombinationsFromEnd());
+    }
 }
@@ -659,4 +659,25 @@ public class TestFileNamePatternTest
         assertThat(result.getOtherCorrespondingFilePatterns()) //
         .hasSize(2).contains("\\Qsome*file\\E", "\\Qsome\\E");
     }
+
+    @Test
+    public void should_share_evaluations_between_patterns_having_same_template_and_separator() throws Exception
+    {
+        FileNameEvaluation evaluation = new TestFileNamePattern("${srcFile}Test", "").evaluate("SomeFile");
+
+        assertThat(new TestFileNamePattern("${srcFile}Test", "").evaluate("SomeFile")).isSameAs(evaluation);
+        assertThat(new TestFileNamePattern("${srcFile}Spec", "").evaluate("SomeFile")).isNotSameAs(evaluation);
+        assertThat(TestFileNamePattern.forceEvaluationAsTestFile("${srcFile}Test", "").evaluate("SomeFile")).isNotSameAs(evaluation);
+    }
+
+    @Test
+    public void should_evaluate_again_once_cache_is_cleared() throws Exception
+    {
+        TestFileNamePattern pattern = new TestFileNamePattern("${srcFile}Test", "");
+        FileNameEvaluation evaluation = pattern.evaluate("SomeFile");
+
+        FileNameEvaluationCache.getInstance().clear();
+
+        assertThat(pattern.evaluate("SomeFile")).isNotSameAs(evaluation);
+    }
 }
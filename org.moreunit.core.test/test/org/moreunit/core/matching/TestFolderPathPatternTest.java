@@ -471,6 +471,20 @@ public class TestFolderPathPatternTest
         assertThat(p.getSrcPathFor(path("com.example/test/dir/with [rangelike-123]")).toString()).isEqualTo("com.example/src/dir/with [rangelike-123]");
     }
 
+    @Test
+    public void should_translate_paths_of_several_projects_with_the_same_instance() throws Exception
+    {
+        TestFolderPathPattern p = new TestFolderPathPattern("${srcProject}/src-(*)/code", "${srcProject}-test/test-\\1/code");
+
+        for (int i = 0; i < 2; i++)
+        {
+            assertThat(p.getTestPathFor(path("project1/src-java/code/some/path")).toString()).isEqualTo("project1-test/test-java/code/some/path");
+            assertThat(p.getTestPathFor(path("project2/src-js/code")).toString()).isEqualTo("project2-test/test-js/code");
+            assertThat(p.getSrcPathFor(path("project1-test/test-java/code/some/path")).toString()).isEqualTo("project1/src-java/code/some/path");
+            assertThat(p.getSrcPathFor(path("project2-test/test-js/code")).toString()).isEqualTo("project2/src-js/code");
+        }
+    }
+
     private Path path(String pathStr)
     {
         return new InMemoryPath(pathStr);
@@ -4,8 +4,10 @@ import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 
 import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.jface.util.PropertyChangeEvent;
 import org.junit.Test;
 import org.moreunit.core.matching.TestFileNamePattern;
+import org.moreunit.core.util.CacheStatistics;
 
 public class LanguagePreferencesTest
 {
@@ -42,6 +44,53 @@ public class LanguagePreferencesTest
             .isSameAs(prefs.getTestFileNamePattern());
     }
 
+    @Test
+    public void should_clear_cache_when_a_preference_changes_in_a_store() throws Exception
+    {
+        // given
+        LanguagePreferences prefs = preferencesWithTestFileNameTemplateAndSeparator("${srcFile}_test", "_");
+        TestFileNamePattern patternBeforeChange = prefs.getTestFileNamePattern();
+
+        // when
+        LanguagePreferences.CACHE_INVALIDATOR.propertyChange(new PropertyChangeEvent(this, Preferences.BASE + "foo", "bar", "baz"));
+
+        // then
+        assertThat(prefs.getTestFileNamePattern()).isNotSameAs(patternBeforeChange);
+    }
+
+    @Test
+    public void should_not_clear_cache_when_a_preference_of_another_plugin_changes() throws Exception
+    {
+        // given
+        LanguagePreferences prefs = preferencesWithTestFileNameTemplateAndSeparator("${srcFile}_test", "_");
+        TestFileNamePattern patternBeforeChange = prefs.getTestFileNamePattern();
+
+        // when
+        LanguagePreferences.CACHE_INVALIDATOR.propertyChange(new PropertyChangeEvent(this, "org.example.foo", "bar", "baz"));
+
+        // then
+        assertThat(prefs.getTestFileNamePattern()).isSameAs(patternBeforeChange);
+    }
+
+    @Test
+    public void should_record_cache_hits_and_misses() throws Exception
+    {
+        // given
+        LanguagePreferences prefs = preferencesWithTestFileNameTemplateAndSeparator("${srcFile}_test", "_");
+        LanguagePreferences.clearCaches();
+        CacheStatistics statistics = LanguagePreferences.getFileNamePatternCacheStatistics();
+        statistics.reset();
+
+        // when
+        prefs.getTestFileNamePattern();
+        prefs.getTestFileNamePattern();
+        prefs.getTestFileNamePattern();
+
+        // then
+        assertThat(statistics.getMissCount()).isEqualTo(1);
+        assertThat(statistics.getHitCount()).isEqualTo(2);
+    }
+
     private LanguagePreferences preferencesWithTestFileNameTemplateAndSeparator(final String template, final String separator)
     {
         return new LanguagePreferences(null, null)
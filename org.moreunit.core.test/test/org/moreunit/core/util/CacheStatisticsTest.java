@@ -0,0 +1,41 @@
+package org.moreunit.core.util;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class CacheStatisticsTest
+{
+    private final CacheStatistics statistics = new CacheStatistics();
+
+    @Test
+    public void getHitRatio_should_return_zero_when_cache_has_not_been_used() throws Exception
+    {
+        assertThat(statistics.getHitRatio()).isEqualTo(0.0);
+    }
+
+    @Test
+    public void getHitRatio_should_return_ratio_of_hits_among_lookups() throws Exception
+    {
+        statistics.recordHit();
+        statistics.recordHit();
+        statistics.recordHit();
+        statistics.recordMiss();
+
+        assertThat(statistics.getHitCount()).isEqualTo(3);
+        assertThat(statistics.getMissCount()).isEqualTo(1);
+        assertThat(statistics.getHitRatio()).isEqualTo(0.75);
+    }
+
+    @Test
+    public void reset_should_forget_hits_and_misses() throws Exception
+    {
+        statistics.recordHit();
+        statistics.recordMiss();
+
+        statistics.reset();
+
+        assertThat(statistics.getHitCount()).isEqualTo(0);
+        assertThat(statistics.getMissCount()).isEqualTo(0);
+    }
+}
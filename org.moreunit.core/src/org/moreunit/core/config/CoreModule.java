@@ -1,7 +1,7 @@
 package org.moreunit.core.config;
 
 import org.eclipse.core.commands.ExecutionEvent;
-import org.eclipse.search.core.text.TextSearchEngine;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.ui.IWorkbench;
 import org.eclipse.ui.IWorkbenchPage;
@@ -15,8 +15,10 @@ import org.moreunit.core.languages.MainLanguageRepository;
 import org.moreunit.core.log.DefaultLogger;
 import org.moreunit.core.log.Logger;
 import org.moreunit.core.matching.DefaultFileMatchSelector;
+import org.moreunit.core.matching.FileBatchMatcher;
 import org.moreunit.core.matching.FileMatchSelector;
 import org.moreunit.core.matching.FileMatcher;
+import org.moreunit.core.matching.FileNameIndex;
 import org.moreunit.core.matching.SearchEngine;
 import org.moreunit.core.preferences.LanguagePageManager;
 import org.moreunit.core.preferences.Preferences;
@@ -43,6 +45,7 @@ public class CoreModule extends Module<CoreModule>
     private LanguageExtensionManager languageExtensionManager;
     private MainLanguageRepository languageRepository;
     private Preferences preferences;
+    private FileNameIndex fileNameIndex;
     private ImageRegistry imageRegistry;
 
     protected CoreModule(boolean override)
@@ -87,11 +90,15 @@ public class CoreModule extends Module<CoreModule>
         pageManager = new LanguagePageManager(languageRepository, preferences, logger);
         registerService(pageManager);
         languageRepository.addListener(pageManager);
+
+        fileNameIndex = new FileNameIndex(ResourcesPlugin.getWorkspace(), logger);
+        registerService(fileNameIndex);
     }
 
     @Override
     protected void clean()
     {
+        fileNameIndex = null;
         pageManager = null;
         languageRepository = null;
         languageExtensionManager = null;
@@ -115,11 +122,21 @@ public class CoreModule extends Module<CoreModule>
         return new FileMatcher(srcFile, getSearchEngine(), getFileMatchSelector());
     }
 
+    public FileBatchMatcher getFileBatchMatcher()
+    {
+        return new FileBatchMatcher(getSearchEngine(), getLogger());
+    }
+
     public FileMatchSelector getFileMatchSelector()
     {
         return new DefaultFileMatchSelector(getLogger());
     }
 
+    public FileNameIndex getFileNameIndex()
+    {
+        return fileNameIndex;
+    }
+
     public ImageRegistry getImageRegistry()
     {
         return imageRegistry;
@@ -162,7 +179,7 @@ public class CoreModule extends Module<CoreModule>
 
     public SearchEngine getSearchEngine()
     {
-        return new SearchEngine(TextSearchEngine.create(), getLogger());
+        return new SearchEngine(getFileNameIndex(), getLogger());
     }
 
     public UserInterface getUserInterface(IWorkbench workbench, IWorkbenchPage activePage, Shell activeShell)
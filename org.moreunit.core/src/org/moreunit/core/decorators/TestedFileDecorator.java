@@ -2,6 +2,12 @@ package org.moreunit.core.decorators;
 
 import static org.moreunit.core.config.CoreModule.$;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import org.eclipse.core.resources.IFile;
 import org.eclipse.jface.viewers.IDecoration;
 import org.eclipse.jface.viewers.ILightweightLabelDecorator;
@@ -10,23 +16,43 @@ import org.eclipse.jface.viewers.LabelProviderChangedEvent;
 import org.moreunit.core.MoreUnitCore;
 import org.moreunit.core.log.Logger;
 import org.moreunit.core.matching.DoesNotMatchConfigurationException;
+import org.moreunit.core.matching.FileBatchMatcher;
+import org.moreunit.core.resources.File;
+import org.moreunit.core.resources.ResourceContainer;
 import org.moreunit.core.resources.SrcFile;
 import org.moreunit.core.ui.ImageRegistry;
+import org.moreunit.core.util.LRUCache;
 
 public class TestedFileDecorator extends LabelProvider implements ILightweightLabelDecorator
 {
+    /**
+     * Decoration requests for the files of a same folder usually arrive
+     * together (when the folder is expanded): the files of the folder are
+     * resolved at once, and the result is reused during this delay.
+     */
+    private static final long FOLDER_BATCH_VALIDITY_MILLIS = 2000;
+    private static final int MAX_FOLDER_BATCHES = 20;
+
     private final ImageRegistry imageRegistry;
     private final Logger logger;
+    private final FileBatchMatcher batchMatcher;
+    private final Map<String, FolderBatch> folderBatches = new LRUCache<String, FolderBatch>(MAX_FOLDER_BATCHES);
 
     public TestedFileDecorator()
     {
-        this($().getImageRegistry(), $().getLogger());
+        this($().getImageRegistry(), $().getLogger(), $().getFileBatchMatcher());
     }
 
     public TestedFileDecorator(ImageRegistry imageRegistry, Logger logger)
+    {
+        this(imageRegistry, logger, null);
+    }
+
+    public TestedFileDecorator(ImageRegistry imageRegistry, Logger logger, FileBatchMatcher batchMatcher)
     {
         this.imageRegistry = imageRegistry;
         this.logger = logger;
+        this.batchMatcher = batchMatcher;
     }
 
     @Override
@@ -39,7 +65,7 @@ public class TestedFileDecorator extends LabelProvider implements ILightweightLa
     {
         try
         {
-            if(file.hasDefaultSupport() && ! file.isTestFile() && file.hasCorrespondingFiles())
+            if(file.hasDefaultSupport() && ! file.isTestFile() && hasCorrespondingFiles(file))
                 decoration.addOverlay(imageRegistry.getTestedFileIndicator(), IDecoration.TOP_RIGHT);
         }
         catch (DoesNotMatchConfigurationException e)
@@ -55,6 +81,61 @@ public class TestedFileDecorator extends LabelProvider implements ILightweightLa
         }
     }
 
+    private boolean hasCorrespondingFiles(SrcFile file) throws DoesNotMatchConfigurationException
+    {
+        ResourceContainer folder = batchMatcher == null ? null : file.getParent();
+        if(folder == null)
+            return file.hasCorrespondingFiles();
+
+        FolderBatch batch = getFolderBatch(folder, file);
+        if(! batch.contains(file))
+            return file.hasCorrespondingFiles();
+
+        return batch.isTested(file);
+    }
+
+    private FolderBatch getFolderBatch(ResourceContainer folder, SrcFile file)
+    {
+        String key = folder.getPath().toString() + "/*." + file.getExtension();
+
+        synchronized (folderBatches)
+        {
+            FolderBatch batch = folderBatches.get(key);
+            if(batch != null && ! batch.isExpired())
+                return batch;
+        }
+
+        FolderBatch batch = resolveFolder(folder, file.getExtension());
+
+        synchronized (folderBatches)
+        {
+            folderBatches.put(key, batch);
+        }
+        return batch;
+    }
+
+    private FolderBatch resolveFolder(ResourceContainer folder, String extension)
+    {
+        List<SrcFile> filesToResolve = new ArrayList<SrcFile>();
+        for (File f : folder.listFiles())
+        {
+            if(! extension.equals(f.getExtension()))
+                continue;
+
+            SrcFile srcFile = $().getWorkspace().toSrcFile(f.getUnderlyingPlatformFile());
+            if(srcFile.hasDefaultSupport() && ! srcFile.isTestFile())
+                filesToResolve.add(srcFile);
+        }
+
+        Set<String> resolvedFiles = new HashSet<String>();
+        for (SrcFile f : filesToResolve)
+        {
+            resolvedFiles.add(f.getName());
+        }
+
+        return new FolderBatch(resolvedFiles, batchMatcher.findFilesHavingCorrespondingFiles(filesToResolve));
+    }
+
     /**
      * Returns the decorator if already instantiated by Eclipse. We can silently
      * ignore the case when it has not yet been created by Eclipse:
@@ -67,6 +148,38 @@ public class TestedFileDecorator extends LabelProvider implements ILightweightLa
 
     public void refreshIndicatorFor(Object... elements)
     {
+        synchronized (folderBatches)
+        {
+            folderBatches.clear();
+        }
         fireLabelProviderChanged(new LabelProviderChangedEvent(this, elements));
     }
+
+    private static class FolderBatch
+    {
+        private final long creationTime = System.currentTimeMillis();
+        private final Set<String> resolvedFiles;
+        private final Set<String> testedFiles;
+
+        FolderBatch(Set<String> resolvedFiles, Set<String> testedFiles)
+        {
+            this.resolvedFiles = resolvedFiles;
+            this.testedFiles = testedFiles;
+        }
+
+        boolean isExpired()
+        {
+            return System.currentTimeMillis() - creationTime > FOLDER_BATCH_VALIDITY_MILLIS;
+        }
+
+        boolean contains(SrcFile file)
+        {
+            return resolvedFiles.contains(file.getName());
+        }
+
+        boolean isTested(SrcFile file)
+        {
+            return testedFiles.contains(file.getName());
+        }
+    }
 }
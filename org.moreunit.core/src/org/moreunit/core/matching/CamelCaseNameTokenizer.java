@@ -1,43 +1,33 @@
 package org.moreunit.core.matching;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Splits a CamelCase name into tokens.
  */
 public class CamelCaseNameTokenizer extends NameTokenizer
 {
-    private String nextWord(WordScanner scanner)
+    @Override
+    protected int findWords(String name, int[] wordBounds)
     {
-        while (scanner.hasNext())
+        int count = 0;
+        int wordStart = 0;
+        for (int i = 1; i < name.length(); i++)
         {
-            scanner.forward();
-            if(scanner.hasNext() //
-               && (Character.isUpperCase(scanner.next()) //
-               || (Character.isDigit(scanner.next()) && ! Character.isDigit(scanner.current()))))
+            if(isWordStart(name.charAt(i - 1), name.charAt(i)))
             {
-                break;
+                wordBounds[2 * count] = wordStart;
+                wordBounds[2 * count + 1] = i;
+                count++;
+                wordStart = i;
             }
         }
-        return scanner.getCurrentWord();
-    }
 
-    private boolean hasNextWord(WordScanner scanner)
-    {
-        return scanner.hasNext();
+        wordBounds[2 * count] = wordStart;
+        wordBounds[2 * count + 1] = name.length();
+        return count + 1;
     }
 
-    public List<String> getWords(String name)
+    private static boolean isWordStart(char previous, char c)
     {
-        List<String> words = new ArrayList<String>();
-
-        WordScanner scanner = new WordScanner(name);
-        while (hasNextWord(scanner))
-        {
-            words.add(nextWord(scanner));
-        }
-
-        return words;
+        return Character.isUpperCase(c) || (Character.isDigit(c) && ! Character.isDigit(previous));
     }
 }
@@ -0,0 +1,127 @@
+package org.moreunit.core.matching;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.resources.IFile;
+import org.moreunit.core.log.Logger;
+import org.moreunit.core.resources.SrcFile;
+
+/**
+ * Finds which files of a group have corresponding files, using one search per
+ * corresponding source folder instead of one search per file (as
+ * {@link FileMatcher} does).
+ */
+public class FileBatchMatcher
+{
+    private final SearchEngine searchEngine;
+    private final Logger logger;
+
+    public FileBatchMatcher(SearchEngine searchEngine, Logger logger)
+    {
+        this.searchEngine = searchEngine;
+        this.logger = logger;
+    }
+
+    /**
+     * Returns the names of the given files having at least one corresponding
+     * file. Files that do not match the source folder configuration are
+     * ignored.
+     */
+    public Set<String> findFilesHavingCorrespondingFiles(Collection<SrcFile> files)
+    {
+        Set<String> result = new HashSet<String>();
+
+        for (Entry<String, List<FileToMatch>> group : groupByCorrespondingSrcFolder(files).entrySet())
+        {
+            List<FileToMatch> filesToMatch = group.getValue();
+            SourceFolderPath correspondingSrcFolder = filesToMatch.get(0).correspondingSrcFolder;
+
+            FileMatchCollector matchCollector = MatchStrategy.ALL_MATCHES.createMatchCollector(correspondingSrcFolder);
+            searchEngine.searchFiles(correspondingSrcFolder.getResolvedPartAsResource(), createUnionPattern(filesToMatch), matchCollector);
+
+            for (IFile match : matchCollector.getResults())
+            {
+                for (FileToMatch f : filesToMatch)
+                {
+                    if(f.fileNamePattern.matcher(match.getName()).matches())
+                    {
+                        result.add(f.file.getName());
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private Map<String, List<FileToMatch>> groupByCorrespondingSrcFolder(Collection<SrcFile> files)
+    {
+        Map<String, List<FileToMatch>> groups = new LinkedHashMap<String, List<FileToMatch>>();
+        for (SrcFile file : files)
+        {
+            Collection<String> filePatterns = file.evaluateName().getAllCorrespondingFilePatterns();
+            if(filePatterns.isEmpty())
+            {
+                continue;
+            }
+
+            SourceFolderPath correspondingSrcFolder;
+            try
+            {
+                correspondingSrcFolder = file.findCorrespondingSrcFolder();
+            }
+            catch (DoesNotMatchConfigurationException e)
+            {
+                if(logger.debugEnabled())
+                    logger.debug(e.getPath() + " does not match source folder preferences");
+                continue;
+            }
+
+            String key = correspondingSrcFolder.toString();
+            List<FileToMatch> group = groups.get(key);
+            if(group == null)
+            {
+                group = new ArrayList<FileToMatch>();
+                groups.put(key, group);
+            }
+            group.add(new FileToMatch(file, correspondingSrcFolder, FileMatcher.createFileNamePattern(file.getExtension(), filePatterns)));
+        }
+        return groups;
+    }
+
+    private Pattern createUnionPattern(List<FileToMatch> filesToMatch)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (FileToMatch f : filesToMatch)
+        {
+            if(sb.length() != 0)
+            {
+                sb.append("|");
+            }
+            sb.append("(?:").append(f.fileNamePattern.pattern()).append(")");
+        }
+        return Pattern.compile(sb.toString());
+    }
+
+    private static class FileToMatch
+    {
+        final SrcFile file;
+        final SourceFolderPath correspondingSrcFolder;
+        final Pattern fileNamePattern;
+
+        FileToMatch(SrcFile file, SourceFolderPath correspondingSrcFolder, Pattern fileNamePattern)
+        {
+            this.file = file;
+            this.correspondingSrcFolder = correspondingSrcFolder;
+            this.fileNamePattern = fileNamePattern;
+        }
+    }
+}
@@ -37,7 +37,7 @@ public class FileMatcher
         if(filePatterns.isEmpty())
             return;
 
-        Pattern fileNamePattern2 = createFileNamePattern(file, filePatterns);
+        Pattern fileNamePattern2 = createFileNamePattern(file.getExtension(), filePatterns);
         searchEngine.searchFiles(searchFolder, fileNamePattern2, matchCollector);
     }
 
@@ -46,7 +46,7 @@ public class FileMatcher
         return evaluation.getPreferredCorrespondingFileName() + "." + file.getExtension();
     }
 
-    private Pattern createFileNamePattern(SrcFile file, Collection<String> correspondingFileNames)
+    static Pattern createFileNamePattern(String extension, Collection<String> correspondingFileNames)
     {
         StringBuilder sb = null;
         // creates an OR pattern with file names
@@ -65,8 +65,6 @@ public class FileMatcher
 
         sb.append(")");
 
-        String extension = file.getExtension();
-
         // creates an OR pattern with the file extension: same case OR lower
         // case OR upper case (so a file having an extension with a mixed case
         // different to the one of the current file won't be found, unless we
@@ -2,6 +2,7 @@ package org.moreunit.core.matching;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -47,7 +48,8 @@ public final class FileNameEvaluation
         {
             result.add(SUCCESSIVE_QUOTE_SEPARATORS.matcher(pattern).replaceAll(""));
         }
-        return result;
+        // evaluations are cached and shared
+        return Collections.unmodifiableList(result);
     }
 
     /**
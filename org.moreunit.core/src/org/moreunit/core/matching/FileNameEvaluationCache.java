@@ -0,0 +1,61 @@
+package org.moreunit.core.matching;
+
+import java.util.Map;
+
+import org.moreunit.core.util.LRUCache;
+
+/**
+ * A bounded cache of {@link FileNameEvaluation}s, shared by all
+ * {@link TestFileNamePattern}s. Evaluations are keyed by the template and
+ * separator of the pattern that produced them, so entries of a pattern that is
+ * no longer used are never returned; the cache should nevertheless be
+ * {@link #clear() cleared} when templates change, to free memory.
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ */
+public final class FileNameEvaluationCache
+{
+    private static final int MAX_SIZE = 2000;
+
+    private static final FileNameEvaluationCache instance = new FileNameEvaluationCache(MAX_SIZE);
+
+    /*
+     * Guarded by itself.
+     */
+    private final Map<String, FileNameEvaluation> evaluations;
+
+    public static FileNameEvaluationCache getInstance()
+    {
+        return instance;
+    }
+
+    FileNameEvaluationCache(int maxSize)
+    {
+        evaluations = new LRUCache<String, FileNameEvaluation>(maxSize);
+    }
+
+    FileNameEvaluation get(String key)
+    {
+        synchronized (evaluations)
+        {
+            return evaluations.get(key);
+        }
+    }
+
+    void put(String key, FileNameEvaluation evaluation)
+    {
+        synchronized (evaluations)
+        {
+            evaluations.put(key, evaluation);
+        }
+    }
+
+    public void clear()
+    {
+        synchronized (evaluations)
+        {
+            evaluations.clear();
+        }
+    }
+}
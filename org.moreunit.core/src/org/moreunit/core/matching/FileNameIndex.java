@@ -0,0 +1,474 @@
+package org.moreunit.core.matching;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.moreunit.core.config.Service;
+import org.moreunit.core.log.Logger;
+
+/**
+ * An index of the names of the files of the workspace, partitioned by folder,
+ * which is kept up to date with resource deltas. It allows for finding files
+ * by name without walking the resource tree.
+ * <p>
+ * As {@link org.eclipse.search.core.text.TextSearchScope} does, derived
+ * resources and resources of closed projects are not indexed. The index is
+ * built by a background job scheduled the first time it is queried; until it
+ * is ready, queries walk the resource tree.
+ * </p>
+ */
+public class FileNameIndex implements IResourceChangeListener, Service
+{
+    private static final char MAX_CHAR = Character.MAX_VALUE;
+
+    private final IWorkspace workspace;
+    private final Logger logger;
+
+    /*
+     * Keys are folder paths ending with a separator, so that the folders
+     * contained in a given one are those whose key starts with its own key.
+     * Null until the index is built. Modified under lock.
+     */
+    private volatile ConcurrentNavigableMap<String, ConcurrentMap<String, IFile>> filesByFolder;
+
+    /*
+     * Guards the modifications of the index, and the fields below.
+     */
+    private final Object lock = new Object();
+    private BuildJob buildJob;
+    /*
+     * Resources that changed while the index was being built: they are indexed
+     * again before the index is used.
+     */
+    private List<IResource> changedDuringBuild;
+
+    public FileNameIndex(IWorkspace workspace, Logger logger)
+    {
+        this.workspace = workspace;
+        this.logger = logger;
+    }
+
+    public void start()
+    {
+        workspace.addResourceChangeListener(this, IResourceChangeEvent.POST_CHANGE);
+    }
+
+    public void stop()
+    {
+        workspace.removeResourceChangeListener(this);
+        synchronized (lock)
+        {
+            if(buildJob != null)
+            {
+                buildJob.cancel();
+            }
+            buildJob = null;
+            changedDuringBuild = null;
+            filesByFolder = null;
+        }
+    }
+
+    /**
+     * Returns the files contained in the given container, at any depth, which
+     * names match the given pattern.
+     */
+    public List<IFile> findFiles(IContainer container, Pattern fileNamePattern)
+    {
+        ConcurrentNavigableMap<String, ConcurrentMap<String, IFile>> index = filesByFolder;
+        if(index == null)
+        {
+            scheduleBuild();
+            return findFilesInResourceTree(container, fileNamePattern);
+        }
+
+        List<IFile> result = new ArrayList<IFile>();
+        for (Map<String, IFile> files : foldersUnder(index, container.getFullPath()).values())
+        {
+            for (Map.Entry<String, IFile> file : files.entrySet())
+            {
+                if(fileNamePattern.matcher(file.getKey()).matches())
+                {
+                    result.add(file.getValue());
+                }
+            }
+        }
+        return result;
+    }
+
+    /*
+     * Could be private, but is public for testing.
+     */
+    public boolean isBuilt()
+    {
+        return filesByFolder != null;
+    }
+
+    private List<IFile> findFilesInResourceTree(IContainer container, final Pattern fileNamePattern)
+    {
+        final List<IFile> result = new ArrayList<IFile>();
+        visitFiles(container, new FileVisitor()
+        {
+            public void visit(IFile file)
+            {
+                if(fileNamePattern.matcher(file.getName()).matches())
+                {
+                    result.add(file);
+                }
+            }
+        }, null);
+        return result;
+    }
+
+    private static ConcurrentNavigableMap<String, ConcurrentMap<String, IFile>> foldersUnder(ConcurrentNavigableMap<String, ConcurrentMap<String, IFile>> index, IPath path)
+    {
+        String key = keyOf(path);
+        return index.subMap(key, true, key + MAX_CHAR, false);
+    }
+
+    private static String keyOf(IPath folderPath)
+    {
+        return folderPath.addTrailingSeparator().toString();
+    }
+
+    private void scheduleBuild()
+    {
+        synchronized (lock)
+        {
+            if(filesByFolder == null && buildJob == null)
+            {
+                changedDuringBuild = new ArrayList<IResource>();
+                buildJob = new BuildJob();
+                buildJob.schedule();
+            }
+        }
+    }
+
+    public void resourceChanged(IResourceChangeEvent event)
+    {
+        IResourceDelta delta = event.getDelta();
+        if(delta == null)
+        {
+            return;
+        }
+
+        synchronized (lock)
+        {
+            try
+            {
+                if(filesByFolder != null)
+                {
+                    delta.accept(new DeltaVisitor(filesByFolder));
+                }
+                else if(changedDuringBuild != null)
+                {
+                    delta.accept(new ChangeRecorder(changedDuringBuild));
+                }
+                // else nothing to update: the index will be built from the
+                // current state of the workspace
+            }
+            catch (CoreException e)
+            {
+                logger.error("Could not update file name index, rebuilding it on next query", e);
+                filesByFolder = null;
+                if(buildJob != null)
+                {
+                    buildJob.cancel();
+                }
+                buildJob = null;
+                changedDuringBuild = null;
+            }
+        }
+    }
+
+    private void addContainer(final ConcurrentNavigableMap<String, ConcurrentMap<String, IFile>> index, IContainer container, IProgressMonitor monitor)
+    {
+        visitFiles(container, new FileVisitor()
+        {
+            public void visit(IFile file)
+            {
+                addFile(index, file);
+            }
+        }, monitor);
+    }
+
+    /**
+     * Visits the files of the given container that are neither derived nor
+     * inaccessible, until the given monitor, if any, is cancelled.
+     */
+    private void visitFiles(IContainer container, final FileVisitor visitor, final IProgressMonitor monitor)
+    {
+        if(! container.isAccessible())
+        {
+            return;
+        }
+
+        try
+        {
+            container.accept(new IResourceProxyVisitor()
+            {
+                public boolean visit(IResourceProxy proxy) throws CoreException
+                {
+                    if(proxy.isDerived() || ! proxy.isAccessible() || (monitor != null && monitor.isCanceled()))
+                    {
+                        return false;
+                    }
+                    if(proxy.getType() == IResource.FILE)
+                    {
+                        visitor.visit((IFile) proxy.requestResource());
+                        return false;
+                    }
+                    return true;
+                }
+            }, IResource.NONE);
+        }
+        catch (CoreException e)
+        {
+            logger.error("Could not index files of " + container, e);
+        }
+    }
+
+    private static void removeContainer(ConcurrentNavigableMap<String, ConcurrentMap<String, IFile>> index, IContainer container)
+    {
+        foldersUnder(index, container.getFullPath()).clear();
+    }
+
+    private static void addFile(ConcurrentNavigableMap<String, ConcurrentMap<String, IFile>> index, IFile file)
+    {
+        String folderKey = keyOf(file.getParent().getFullPath());
+        ConcurrentMap<String, IFile> files = index.get(folderKey);
+        if(files == null)
+        {
+            files = new ConcurrentHashMap<String, IFile>();
+            index.put(folderKey, files);
+        }
+        files.put(file.getName(), file);
+    }
+
+    private static void removeFile(ConcurrentNavigableMap<String, ConcurrentMap<String, IFile>> index, IFile file)
+    {
+        String folderKey = keyOf(file.getParent().getFullPath());
+        ConcurrentMap<String, IFile> files = index.get(folderKey);
+        if(files != null)
+        {
+            files.remove(file.getName());
+            if(files.isEmpty())
+            {
+                index.remove(folderKey);
+            }
+        }
+    }
+
+    /**
+     * Indexes the given resource again, according to its current state.
+     */
+    private void reindex(ConcurrentNavigableMap<String, ConcurrentMap<String, IFile>> index, IResource resource)
+    {
+        if(resource instanceof IFile)
+        {
+            removeFile(index, (IFile) resource);
+            if(resource.isAccessible() && ! resource.isDerived(IResource.CHECK_ANCESTORS))
+            {
+                addFile(index, (IFile) resource);
+            }
+        }
+        else if(resource instanceof IContainer)
+        {
+            removeContainer(index, (IContainer) resource);
+            if(! resource.isDerived(IResource.CHECK_ANCESTORS))
+            {
+                addContainer(index, (IContainer) resource, null);
+            }
+        }
+    }
+
+    private interface FileVisitor
+    {
+        void visit(IFile file);
+    }
+
+    private class BuildJob extends Job
+    {
+        BuildJob()
+        {
+            super("Indexing file names");
+            setSystem(true);
+            setPriority(Job.DECORATE);
+        }
+
+        @Override
+        public boolean belongsTo(Object family)
+        {
+            return family == FileNameIndex.this;
+        }
+
+        @Override
+        protected IStatus run(IProgressMonitor monitor)
+        {
+            long start = System.currentTimeMillis();
+
+            ConcurrentNavigableMap<String, ConcurrentMap<String, IFile>> index = new ConcurrentSkipListMap<String, ConcurrentMap<String, IFile>>();
+            addContainer(index, workspace.getRoot(), monitor);
+
+            synchronized (lock)
+            {
+                if(buildJob != this)
+                {
+                    // stopped or failed in the meantime
+                    return Status.CANCEL_STATUS;
+                }
+                if(monitor.isCanceled())
+                {
+                    buildJob = null;
+                    changedDuringBuild = null;
+                    return Status.CANCEL_STATUS;
+                }
+
+                for (IResource resource : changedDuringBuild)
+                {
+                    reindex(index, resource);
+                }
+                filesByFolder = index;
+                buildJob = null;
+                changedDuringBuild = null;
+            }
+
+            if(logger.debugEnabled())
+            {
+                logger.debug("File name index built in " + (System.currentTimeMillis() - start) + " ms (" + index.size() + " folders)");
+            }
+            return Status.OK_STATUS;
+        }
+    }
+
+    /**
+     * Records the resources affected by a delta while the index is being
+     * built.
+     */
+    private static class ChangeRecorder implements IResourceDeltaVisitor
+    {
+        private final List<IResource> changedResources;
+
+        ChangeRecorder(List<IResource> changedResources)
+        {
+            this.changedResources = changedResources;
+        }
+
+        public boolean visit(IResourceDelta delta)
+        {
+            IResource resource = delta.getResource();
+            if(resource.getType() == IResource.ROOT)
+            {
+                return true;
+            }
+            if(delta.getKind() != IResourceDelta.CHANGED || (delta.getFlags() & (IResourceDelta.OPEN | IResourceDelta.DERIVED_CHANGED)) != 0)
+            {
+                changedResources.add(resource);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private class DeltaVisitor implements IResourceDeltaVisitor
+    {
+        private final ConcurrentNavigableMap<String, ConcurrentMap<String, IFile>> index;
+
+        DeltaVisitor(ConcurrentNavigableMap<String, ConcurrentMap<String, IFile>> index)
+        {
+            this.index = index;
+        }
+
+        public boolean visit(IResourceDelta delta) throws CoreException
+        {
+            IResource resource = delta.getResource();
+            switch (resource.getType())
+            {
+            case IResource.ROOT:
+                return true;
+            case IResource.PROJECT:
+            case IResource.FOLDER:
+                return visitContainer(delta, (IContainer) resource);
+            case IResource.FILE:
+                visitFile(delta, (IFile) resource);
+                return false;
+            default:
+                return false;
+            }
+        }
+
+        private boolean visitContainer(IResourceDelta delta, IContainer container)
+        {
+            switch (delta.getKind())
+            {
+            case IResourceDelta.ADDED:
+                addContainer(index, container, null);
+                return false;
+            case IResourceDelta.REMOVED:
+                removeContainer(index, container);
+                return false;
+            default:
+                if((delta.getFlags() & (IResourceDelta.OPEN | IResourceDelta.DERIVED_CHANGED)) != 0)
+                {
+                    removeContainer(index, container);
+                    if(! container.isDerived(IResource.CHECK_ANCESTORS))
+                    {
+                        addContainer(index, container, null);
+                    }
+                    return false;
+                }
+                return container.isAccessible() && ! container.isDerived(IResource.CHECK_ANCESTORS);
+            }
+        }
+
+        private void visitFile(IResourceDelta delta, IFile file)
+        {
+            switch (delta.getKind())
+            {
+            case IResourceDelta.ADDED:
+                if(! file.isDerived(IResource.CHECK_ANCESTORS))
+                {
+                    addFile(index, file);
+                }
+                break;
+            case IResourceDelta.REMOVED:
+                removeFile(index, file);
+                break;
+            default:
+                if((delta.getFlags() & IResourceDelta.DERIVED_CHANGED) != 0)
+                {
+                    if(file.isDerived(IResource.CHECK_ANCESTORS))
+                    {
+                        removeFile(index, file);
+                    }
+                    else
+                    {
+                        addFile(index, file);
+                    }
+                }
+                break;
+            }
+        }
+    }
+}
@@ -1,15 +1,18 @@
 package org.moreunit.core.matching;
 
-import static java.util.Collections.emptyList;
 import static java.util.Collections.unmodifiableList;
 
-import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.AbstractList;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.RandomAccess;
 
 /**
  * Splits a name into tokens.
+ * <p>
+ * The name is scanned once, the offsets of its words being recorded in an
+ * array. Tokens and their combinations are then lists backed by the name,
+ * which strings are only built when they are actually read.
+ * </p>
  */
 public abstract class NameTokenizer
 {
@@ -32,30 +35,25 @@ public abstract class NameTokenizer
         return separator;
     }
 
-    private List<String> removeEmptyWords(List<String> words)
-    {
-        List<String> wordsNotEmpty = new ArrayList<String>();
-        for (String word : words)
-        {
-            if(word.length() != 0)
-            {
-                wordsNotEmpty.add(word);
-            }
-        }
-        return wordsNotEmpty;
-    }
-
     public TokenizationResult tokenize(String name)
     {
         checkName(name);
 
-        List<String> words = getWords(name);
-        words = removeEmptyWords(words);
+        // a name has at most as many words as characters
+        int[] wordBounds = new int[2 * name.length()];
+        Words words = new Words(name, separator, wordBounds, findWords(name, wordBounds));
 
-        return new TokenizationResult(words, getCombinationsFromStart(words), getCombinationsFromEnd(words));
+        return new TokenizationResult(words, words.combinationsFromStart(), words.combinationsFromEnd());
     }
 
-    protected abstract List<String> getWords(String name);
+    /**
+     * Finds the words of the given name, storing the start (inclusive) and end
+     * (exclusive) offsets of the i-th word at indexes {@code 2i} and
+     * {@code 2i + 1} of {@code wordBounds}. Empty words must be ignored.
+     *
+     * @return the number of words found
+     */
+    protected abstract int findWords(String name, int[] wordBounds);
 
     private void checkName(String name)
     {
@@ -65,70 +63,140 @@ public abstract class NameTokenizer
         }
     }
 
-    private List<String> getCombinationsFromStart(List<String> tokens)
+    /**
+     * The words of a name, and their combinations.
+     */
+    private static final class Words extends AbstractList<String> implements RandomAccess
     {
-        if(tokens.size() < 2)
+        private final String name;
+        private final String separator;
+        private final int[] bounds;
+        private final int count;
+        /**
+         * Whether consecutive words are separated by exactly one separator, in
+         * which case any combination of consecutive words is a substring of
+         * the name.
+         */
+        private final boolean contiguous;
+
+        Words(String name, String separator, int[] bounds, int count)
         {
-            return emptyList();
+            this.name = name;
+            this.separator = separator;
+            this.bounds = bounds;
+            this.count = count;
+            this.contiguous = areContiguous();
         }
 
-        List<String> combinations = new ArrayList<String>();
-        StringBuilder combination = null;
-
-        for (Iterator<String> it = tokens.iterator(); it.hasNext();)
+        private boolean areContiguous()
         {
-            String token = it.next();
-            if(! it.hasNext())
+            for (int i = 1; i < count; i++)
             {
-                break;
+                int previousEnd = end(i - 1);
+                if(start(i) - previousEnd != separator.length() || ! name.startsWith(separator, previousEnd))
+                {
+                    return false;
+                }
             }
+            return true;
+        }
 
-            if(combination == null)
-            {
-                combination = new StringBuilder(token);
-            }
-            else
-            {
-                combination.append(separator);
-                combination.append(token);
-            }
-            combinations.add(combination.toString());
+        private int start(int index)
+        {
+            return bounds[2 * index];
         }
 
-        return combinations;
-    }
+        private int end(int index)
+        {
+            return bounds[2 * index + 1];
+        }
 
-    private List<String> getCombinationsFromEnd(List<String> tokens)
-    {
-        if(tokens.size() < 2)
+        @Override
+        public String get(int index)
         {
-            return emptyList();
+            checkIndex(index, count);
+            return name.substring(start(index), end(index));
         }
 
-        List<String> combinations = new ArrayList<String>();
-        StringBuilder combination = null;
+        @Override
+        public int size()
+        {
+            return count;
+        }
 
-        for (ListIterator<String> it = tokens.listIterator(tokens.size()); it.hasPrevious();)
+        /**
+         * Returns the words from {@code first} to {@code last} (both
+         * inclusive), joined by the separator.
+         */
+        String join(int first, int last)
         {
-            String token = it.previous();
-            if(! it.hasPrevious())
+            if(contiguous)
             {
-                break;
+                return name.substring(start(first), end(last));
             }
 
-            if(combination == null)
+            StringBuilder sb = new StringBuilder(end(last) - start(first));
+            for (int i = first; i <= last; i++)
             {
-                combination = new StringBuilder(token);
+                if(i != first)
+                {
+                    sb.append(separator);
+                }
+                sb.append(name, start(i), end(i));
             }
-            else
+            return sb.toString();
+        }
+
+        /**
+         * The combinations of the first words, the last word excepted, from the
+         * shortest to the longest.
+         */
+        List<String> combinationsFromStart()
+        {
+            return new Combinations()
+            {
+                @Override
+                public String get(int index)
+                {
+                    checkIndex(index, size());
+                    return join(0, index);
+                }
+            };
+        }
+
+        /**
+         * The combinations of the last words, the first word excepted, from the
+         * longest to the shortest.
+         */
+        List<String> combinationsFromEnd()
+        {
+            return new Combinations()
             {
-                combination.insert(0, separator);
-                combination.insert(0, token);
+                @Override
+                public String get(int index)
+                {
+                    checkIndex(index, size());
+                    return join(index + 1, count - 1);
+                }
+            };
+        }
+
+        private abstract class Combinations extends AbstractList<String> implements RandomAccess
+        {
+            @Override
+            public int size()
+            {
+                return count < 2 ? 0 : count - 1;
             }
-            combinations.add(0, combination.toString());
         }
 
-        return combinations;
+        private static void checkIndex(int index, int size)
+        {
+            if(index < 0 || index >= size)
+            {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+        }
     }
 
     public static class TokenizationResult
@@ -2,47 +2,50 @@ package org.moreunit.core.matching;
 
 import java.util.regex.Pattern;
 
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IResource;
-import org.eclipse.core.runtime.IStatus;
-import org.eclipse.search.core.text.TextSearchEngine;
 import org.eclipse.search.core.text.TextSearchRequestor;
-import org.eclipse.search.core.text.TextSearchScope;
 import org.moreunit.core.log.Logger;
 import org.moreunit.core.resources.Resource;
 
+/**
+ * Finds files by name, using the {@link FileNameIndex}.
+ */
 public class SearchEngine
 {
-    private static final Pattern ANY_CONTENT = Pattern.compile("");
-
-    private final TextSearchEngine searchEngine;
+    private final FileNameIndex fileNameIndex;
     private final Logger logger;
 
-    public SearchEngine(TextSearchEngine searchEngine, Logger logger)
+    public SearchEngine(FileNameIndex fileNameIndex, Logger logger)
     {
-        this.searchEngine = searchEngine;
+        this.fileNameIndex = fileNameIndex;
         this.logger = logger;
     }
 
     public void searchFiles(Resource rootResource, Pattern fileNamePattern, TextSearchRequestor requestor)
     {
-        try
+        IResource root = rootResource.getUnderlyingPlatformResource();
+        if(! (root instanceof IContainer))
         {
-            TextSearchScope scope = createScope(rootResource.getUnderlyingPlatformResource(), fileNamePattern);
-            IStatus searchStatus = searchEngine.search(scope, requestor, ANY_CONTENT, null);
+            return;
+        }
 
-            if(searchStatus.getCode() != IStatus.OK)
+        requestor.beginReporting();
+        try
+        {
+            for (IFile file : fileNameIndex.findFiles((IContainer) root, fileNamePattern))
             {
-                logger.warn("Search failed with status: " + searchStatus);
+                requestor.acceptFile(file);
             }
         }
         catch (Exception e)
         {
             logger.error("Search failed", e);
         }
-    }
-
-    private TextSearchScope createScope(IResource rootResource, Pattern fileNamePattern)
-    {
-        return TextSearchScope.newSearchScope(new IResource[] { rootResource }, fileNamePattern, false);
+        finally
+        {
+            requestor.endReporting();
+        }
     }
 }
@@ -1,10 +1,5 @@
 package org.moreunit.core.matching;
 
-import static java.util.Arrays.asList;
-import static java.util.regex.Pattern.quote;
-
-import java.util.List;
-
 /**
  * Splits a name into tokens, using a given separator.
  */
@@ -25,8 +20,27 @@ public class SeparatorNameTokenizer extends NameTokenizer
     }
 
     @Override
-    protected List<String> getWords(String name)
+    protected int findWords(String name, int[] wordBounds)
     {
-        return asList(name.split(quote(separator())));
+        String separator = separator();
+        int count = 0;
+        int wordStart = 0;
+        while (wordStart <= name.length())
+        {
+            int wordEnd = name.indexOf(separator, wordStart);
+            if(wordEnd == - 1)
+            {
+                wordEnd = name.length();
+            }
+
+            if(wordEnd != wordStart)
+            {
+                wordBounds[2 * count] = wordStart;
+                wordBounds[2 * count + 1] = wordEnd;
+                count++;
+            }
+            wordStart = wordEnd + separator.length();
+        }
+        return count;
     }
 }
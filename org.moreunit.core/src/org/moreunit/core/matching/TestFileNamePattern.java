@@ -169,6 +169,7 @@ public final class TestFileNamePattern
     private final String patternString;
     private final List<Group> groups;
     private final Collection<Pattern> patterns;
+    private final String evaluationCacheKey;
 
     /**
      * Creates a {@link TestFileNamePattern} with the given template and
@@ -176,7 +177,8 @@ public final class TestFileNamePattern
      */
     public TestFileNamePattern(String template, NameTokenizer tokenizer)
     {
-        this(template, tokenizer, FileType.UNKNOWN);
+        // evaluations are not cached, as the tokenizer may be of any kind
+        this(template, tokenizer, FileType.UNKNOWN, false);
     }
 
     /**
@@ -187,7 +189,7 @@ public final class TestFileNamePattern
      */
     public TestFileNamePattern(String template, String separator)
     {
-        this(template, createTokenizer(separator), FileType.UNKNOWN);
+        this(template, createTokenizer(separator), FileType.UNKNOWN, true);
     }
 
     /**
@@ -198,7 +200,7 @@ public final class TestFileNamePattern
      */
     public static TestFileNamePattern forceEvaluationAsSourceFile(String template, String separator)
     {
-        return new TestFileNamePattern(template, createTokenizer(separator), FileType.SOURCE);
+        return new TestFileNamePattern(template, createTokenizer(separator), FileType.SOURCE, true);
     }
 
     /**
@@ -209,7 +211,7 @@ public final class TestFileNamePattern
      */
     public static TestFileNamePattern forceEvaluationAsTestFile(String template, String separator)
     {
-        return new TestFileNamePattern(template, createTokenizer(separator), FileType.TEST);
+        return new TestFileNamePattern(template, createTokenizer(separator), FileType.TEST, true);
     }
 
     private static NameTokenizer createTokenizer(String separator)
@@ -224,7 +226,7 @@ public final class TestFileNamePattern
         }
     }
 
-    private TestFileNamePattern(String template, NameTokenizer tokenizer, FileType fileType)
+    private TestFileNamePattern(String template, NameTokenizer tokenizer, FileType fileType, boolean cacheEvaluations)
     {
         this.fileType = fileType;
 
@@ -250,6 +252,8 @@ public final class TestFileNamePattern
         groups = createGroups();
 
         patterns = createEvaluationPatterns();
+
+        evaluationCacheKey = cacheEvaluations ? fileType.ordinal() + ":" + template.length() + template + separator.length() + separator + ":" : null;
     }
 
     public static boolean isValid(String template, String separator)
@@ -436,6 +440,23 @@ public final class TestFileNamePattern
      * @return the {@link FileNameEvaluation result} of the evaluation
      */
     public FileNameEvaluation evaluate(String fileBaseName)
+    {
+        if(evaluationCacheKey == null)
+        {
+            return doEvaluate(fileBaseName);
+        }
+
+        String key = evaluationCacheKey + fileBaseName;
+        FileNameEvaluation evaluation = FileNameEvaluationCache.getInstance().get(key);
+        if(evaluation == null)
+        {
+            evaluation = doEvaluate(fileBaseName);
+            FileNameEvaluationCache.getInstance().put(key, evaluation);
+        }
+        return evaluation;
+    }
+
+    private FileNameEvaluation doEvaluate(String fileBaseName)
     {
         if(fileType == FileType.TEST || (fileType == FileType.UNKNOWN && matchesAnyPattern(fileBaseName)))
         {
@@ -16,6 +16,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.moreunit.core.resources.Path;
+import org.moreunit.core.util.LRUCache;
 import org.moreunit.core.util.Strings;
 
 public class TestFolderPathPattern
@@ -23,6 +24,7 @@ public class TestFolderPathPattern
     public static final String SRC_PROJECT_VARIABLE = "${srcProject}";
 
     private static final int MAX_GROUPS = 9;
+    private static final int MAX_CACHED_PROJECTS = 100;
 
     private static final Pattern SRC_PATH_VALIDATOR;
     static
@@ -52,6 +54,11 @@ public class TestFolderPathPattern
     private final String testPathTemplate;
     private final Pattern testProjectPattern;
 
+    /*
+     * Templates compiled for a given source project name. Guarded by itself.
+     */
+    private final Map<String, ProjectTemplates> templatesBySrcProject = new LRUCache<String, ProjectTemplates>(MAX_CACHED_PROJECTS);
+
     public TestFolderPathPattern(String srcPathTemplate, String testPathTemplate)
     {
         checkArgument(isValid(srcPathTemplate, testPathTemplate));
@@ -184,14 +191,29 @@ public class TestFolderPathPattern
         String cleanSrcPath = removeSurroundingSlashes(srcPath.toString());
         String projectName = getProjectName(cleanSrcPath);
 
+        ProjectTemplates templates = getTemplatesForSrcProject(projectName);
+        Matcher matcher = templates.srcPathPattern.matcher(cleanSrcPath);
+        if(matcher.lookingAt())
+        {
+            String codePathWithinSrcFolder = cleanSrcPath.substring(matcher.end());
+            if(codePathWithinSrcFolder.indexOf('\\') == - 1)
+            {
+                return new SourceFolderPath(templates.testPathTemplate.resolve(matcher, codePathWithinSrcFolder, srcPath));
+            }
+        }
+
+        // unusual path: uses the generic (slower) translation
+        return new SourceFolderPath(translateToTestPath(cleanSrcPath, projectName, srcPath));
+    }
+
+    private String translateToTestPath(String cleanSrcPath, String projectName, Path srcPath) throws DoesNotMatchConfigurationException
+    {
         String srcPathTpl = getSrcPathTemplateForSrcProject(quoteReplacement(quote(projectName)));
         String codePathWithinSrcFolder = cleanSrcPath.replaceFirst(srcPathTpl, "");
 
         String tstPathTpl = getTestPathTemplateForSrcProject(projectName) + codePathWithinSrcFolder;
         srcPathTpl += quote(codePathWithinSrcFolder);
-        tstPathTpl = resolveGroups(cleanSrcPath, srcPathTpl, tstPathTpl, srcPath);
-
-        return new SourceFolderPath(tstPathTpl);
+        return resolveGroups(cleanSrcPath, srcPathTpl, tstPathTpl, srcPath);
     }
 
     private String resolveGroups(String path, String tplWithGroups, String tplWithRefs, Path analizedPath) throws DoesNotMatchConfigurationException
@@ -230,6 +252,23 @@ public class TestFolderPathPattern
         String srcProjectName = getSrcProjectName(tstProjectName, testPath);
         String cleanTestPath = removeSurroundingSlashes(testPath.toString());
 
+        ProjectTemplates templates = getTemplatesForSrcProject(srcProjectName);
+        Matcher matcher = templates.testPathPattern.matcher(cleanTestPath);
+        if(matcher.lookingAt())
+        {
+            String codePathWithinSrcFolder = cleanTestPath.substring(matcher.end());
+            if(codePathWithinSrcFolder.indexOf('\\') == - 1 && (codePathWithinSrcFolder.length() == 0 || ! codePathWithinSrcFolder.startsWith(tstProjectName)))
+            {
+                return new SourceFolderPath(templates.srcPathTemplate.resolve(matcher, codePathWithinSrcFolder, testPath));
+            }
+        }
+
+        // unusual path: uses the generic (slower) translation
+        return new SourceFolderPath(translateToSrcPath(cleanTestPath, tstProjectName, srcProjectName, testPath));
+    }
+
+    private String translateToSrcPath(String cleanTestPath, String tstProjectName, String srcProjectName, Path testPath) throws DoesNotMatchConfigurationException
+    {
         String tstPathTpl = getTestPathTemplateForSrcProject(srcProjectName);
         List<GroupRef> groupRefs = getGroupRefs(tstPathTpl);
         tstPathTpl = tstPathTpl.replaceAll("\\\\[1-9]", "(.*)");
@@ -244,9 +283,7 @@ public class TestFolderPathPattern
             tstPathTpl += quote(codePathWithinSrcFolder);
         }
 
-        srcPathTpl = resolveGroups(cleanTestPath, tstPathTpl, srcPathTpl, testPath);
-
-        return new SourceFolderPath(srcPathTpl);
+        return resolveGroups(cleanTestPath, tstPathTpl, srcPathTpl, testPath);
     }
 
     private String replaceGroupsWithRefs(String template, List<GroupRef> groupRefs)
@@ -290,6 +327,80 @@ public class TestFolderPathPattern
         return testPathTemplate.replaceFirst(quote(SRC_PROJECT_VARIABLE), projectName);
     }
 
+    private ProjectTemplates getTemplatesForSrcProject(String srcProjectName)
+    {
+        synchronized (templatesBySrcProject)
+        {
+            ProjectTemplates templates = templatesBySrcProject.get(srcProjectName);
+            if(templates == null)
+            {
+                templates = new ProjectTemplates(srcProjectName);
+                templatesBySrcProject.put(srcProjectName, templates);
+            }
+            return templates;
+        }
+    }
+
+    /**
+     * The path templates of this pattern, compiled for a given source project.
+     * The patterns match the beginning of a path, the rest of the path being
+     * the code path within the source folder.
+     */
+    private class ProjectTemplates
+    {
+        final Pattern srcPathPattern;
+        final ResolvableTemplate testPathTemplate;
+        final Pattern testPathPattern;
+        final ResolvableTemplate srcPathTemplate;
+
+        ProjectTemplates(String srcProjectName)
+        {
+            srcPathPattern = compile(getSrcPathTemplateForSrcProject(quoteReplacement(quote(srcProjectName))));
+            testPathTemplate = new ResolvableTemplate(getTestPathTemplateForSrcProject(srcProjectName), srcPathPattern);
+
+            String tstPathTpl = getTestPathTemplateForSrcProject(srcProjectName);
+            List<GroupRef> groupRefs = getGroupRefs(tstPathTpl);
+            testPathPattern = compile(tstPathTpl.replaceAll("\\\\[1-9]", "(.*)"));
+            srcPathTemplate = new ResolvableTemplate(replaceGroupsWithRefs(getSrcPathTemplateForSrcProject(srcProjectName), groupRefs), testPathPattern);
+        }
+    }
+
+    /**
+     * A path template containing group references, which are replaced with the
+     * groups captured when matching another path.
+     */
+    private static class ResolvableTemplate
+    {
+        private final String template;
+        private final List<GroupRef> groupRefs;
+        private final int groupCount;
+
+        ResolvableTemplate(String template, Pattern groupPattern)
+        {
+            this.template = template;
+            this.groupRefs = getGroupRefs(template);
+            this.groupCount = groupPattern.matcher("").groupCount();
+        }
+
+        String resolve(Matcher matcher, String codePathWithinSrcFolder, Path analizedPath) throws DoesNotMatchConfigurationException
+        {
+            StringBuilder result = new StringBuilder(template.length() + codePathWithinSrcFolder.length() + 32);
+
+            int idx = 0;
+            for (GroupRef ref : groupRefs)
+            {
+                if(groupCount < ref.num)
+                {
+                    throw new DoesNotMatchConfigurationException(analizedPath);
+                }
+                result.append(template, idx, ref.startIdx).append(matcher.group(ref.num));
+                idx = ref.endIdx;
+            }
+
+            return result.append(template, idx, template.length()).append(codePathWithinSrcFolder).toString();
+        }
+    }
+
     private static class GroupRef implements Comparable<GroupRef>
     {
         final Integer num;
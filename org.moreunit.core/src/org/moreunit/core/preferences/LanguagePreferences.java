@@ -4,7 +4,12 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.jface.util.IPropertyChangeListener;
+import org.eclipse.jface.util.PropertyChangeEvent;
+import org.moreunit.core.matching.FileNameEvaluationCache;
 import org.moreunit.core.matching.TestFileNamePattern;
+import org.moreunit.core.matching.TestFolderPathPattern;
+import org.moreunit.core.util.CacheStatistics;
 
 public abstract class LanguagePreferences
 {
@@ -23,8 +28,35 @@ public abstract class LanguagePreferences
      * we can guarantee that entries won't be kept in memory without reason.
      */
     private static final Map<String, TestFileNamePattern> FILE_NAME_PATTERN_CACHE = new HashMap<String, TestFileNamePattern>();
+    /**
+     * Cache for TestFolderPathPattern instances, which keep the path templates
+     * they compiled per project. Cleared along with FILE_NAME_PATTERN_CACHE,
+     * including by {@link #CACHE_INVALIDATOR}.
+     */
+    private static final Map<String, TestFolderPathPattern> FOLDER_PATH_PATTERN_CACHE = new HashMap<String, TestFolderPathPattern>();
     private static final Object CACHE_LOCK = new Object();
 
+    private static final CacheStatistics FILE_NAME_PATTERN_CACHE_STATISTICS = new CacheStatistics();
+    private static final CacheStatistics FOLDER_PATH_PATTERN_CACHE_STATISTICS = new CacheStatistics();
+
+    /**
+     * Clears the caches when a preference of this plug-in is modified in a
+     * store, which may happen without {@link #setValue(String, String)} being
+     * called: when defaults are restored, preferences are imported or the
+     * settings of a project are replaced, for instance. Could be
+     * package-private, but is public for testing.
+     */
+    public static final IPropertyChangeListener CACHE_INVALIDATOR = new IPropertyChangeListener()
+    {
+        public void propertyChange(PropertyChangeEvent event)
+        {
+            if(event.getProperty().startsWith(BASE))
+            {
+                clearCaches();
+            }
+        }
+    };
+
     protected String languageId;
     protected WriteablePreferences parentPreferences;
 
@@ -54,9 +86,39 @@ public abstract class LanguagePreferences
             TestFileNamePattern pattern = FILE_NAME_PATTERN_CACHE.get(key);
             if(pattern == null)
             {
+                FILE_NAME_PATTERN_CACHE_STATISTICS.recordMiss();
                 pattern = new TestFileNamePattern(template, separator);
                 FILE_NAME_PATTERN_CACHE.put(key, pattern);
             }
+            else
+            {
+                FILE_NAME_PATTERN_CACHE_STATISTICS.recordHit();
+            }
+
+            return pattern;
+        }
+    }
+
+    public TestFolderPathPattern getTestFolderPathPattern()
+    {
+        synchronized (CACHE_LOCK)
+        {
+            String srcTemplate = getSrcFolderPathTemplate();
+            String testTemplate = getTestFolderPathTemplate();
+            String key = (srcTemplate == null ? "" : srcTemplate.length() + srcTemplate) //
+                         + (testTemplate == null ? "" : testTemplate.length() + testTemplate);
+
+            TestFolderPathPattern pattern = FOLDER_PATH_PATTERN_CACHE.get(key);
+            if(pattern == null)
+            {
+                FOLDER_PATH_PATTERN_CACHE_STATISTICS.recordMiss();
+                pattern = new TestFolderPathPattern(srcTemplate, testTemplate);
+                FOLDER_PATH_PATTERN_CACHE.put(key, pattern);
+            }
+            else
+            {
+                FOLDER_PATH_PATTERN_CACHE_STATISTICS.recordHit();
+            }
 
             return pattern;
         }
@@ -76,11 +138,34 @@ public abstract class LanguagePreferences
     {
         synchronized (CACHE_LOCK)
         {
-            FILE_NAME_PATTERN_CACHE.clear();
+            clearCaches();
             getStore().setValue(BASE + languageId + name, value);
         }
     }
 
+    /*
+     * Could be private, but is public for testing.
+     */
+    public static void clearCaches()
+    {
+        synchronized (CACHE_LOCK)
+        {
+            FILE_NAME_PATTERN_CACHE.clear();
+            FOLDER_PATH_PATTERN_CACHE.clear();
+            FileNameEvaluationCache.getInstance().clear();
+        }
+    }
+
+    public static CacheStatistics getFileNamePatternCacheStatistics()
+    {
+        return FILE_NAME_PATTERN_CACHE_STATISTICS;
+    }
+
+    public static CacheStatistics getFolderPathPatternCacheStatistics()
+    {
+        return FOLDER_PATH_PATTERN_CACHE_STATISTICS;
+    }
+
     public void save()
     {
         parentPreferences.save();
@@ -36,6 +36,7 @@ public class Preferences implements WriteablePreferences, ReadablePreferences, L
     public Preferences(IPreferenceStore store, Logger logger)
     {
         this.store = store;
+        store.addPropertyChangeListener(LanguagePreferences.CACHE_INVALIDATOR);
         anyLanguagePrefReader = new LanguagePreferencesReader(LanguagePreferences.ANY_LANGUAGE, DEFAULTS, this);
         anyLanguagePrefWriter = new LanguagePreferencesWriter(LanguagePreferences.ANY_LANGUAGE, this);
         this.logger = logger;
@@ -166,6 +167,7 @@ public class Preferences implements WriteablePreferences, ReadablePreferences, L
         ProjectScope projectScope = new ProjectScope(project);
         ScopedPreferenceStore store = new ScopedPreferenceStore(projectScope, MoreUnitCore.PLUGIN_ID);
         store.setSearchContexts(new IScopeContext[] { projectScope });
+        store.addPropertyChangeListener(LanguagePreferences.CACHE_INVALIDATOR);
         projectStores.put(project, store);
 
         return store;
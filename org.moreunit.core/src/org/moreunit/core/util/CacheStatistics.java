@@ -0,0 +1,59 @@
+package org.moreunit.core.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the hits and misses of a cache, so that its effectiveness can be
+ * monitored.
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ */
+public final class CacheStatistics
+{
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public void recordHit()
+    {
+        hits.incrementAndGet();
+    }
+
+    public void recordMiss()
+    {
+        misses.incrementAndGet();
+    }
+
+    public long getHitCount()
+    {
+        return hits.get();
+    }
+
+    public long getMissCount()
+    {
+        return misses.get();
+    }
+
+    /**
+     * Returns the ratio of lookups that found their value in the cache,
+     * between 0 and 1, or 0 if the cache has not been used yet.
+     */
+    public double getHitRatio()
+    {
+        long hitCount = hits.get();
+        long lookupCount = hitCount + misses.get();
+        return lookupCount == 0 ? 0 : (double) hitCount / lookupCount;
+    }
+
+    public void reset()
+    {
+        hits.set(0);
+        misses.set(0);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("hits: %d, misses: %d, hit ratio: %.2f", getHitCount(), getMissCount(), getHitRatio());
+    }
+}
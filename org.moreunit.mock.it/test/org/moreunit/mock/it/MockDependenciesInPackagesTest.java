@@ -0,0 +1,50 @@
+package org.moreunit.mock.it;
+
+import static java.util.Arrays.asList;
+import static org.moreunit.mock.config.MockModule.$;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.Before;
+import org.junit.Test;
+import org.moreunit.mock.BulkDependencyMocker;
+import org.moreunit.mock.UiTestCase;
+import org.moreunit.test.context.Context;
+import org.moreunit.test.context.Preferences;
+import org.moreunit.test.context.TestType;
+
+@Context(mainSrc = "SomeConcept.cut.java.txt",
+        testSrc = "SomeConcept.test.java.txt",
+        preferences = @Preferences(testType = TestType.JUNIT4,
+                testClassNameTemplate = "${srcFile}Test"))
+public class MockDependenciesInPackagesTest extends UiTestCase
+{
+    private final String templateId = "org.moreunit.mock.mockitoWithAnnotationsAndJUnitRunner1.9";
+
+    private BulkDependencyMocker bulkMocker = $().getBulkDependencyMocker();
+
+    @Before
+    public void selectTemplate() throws Exception
+    {
+        $().getPreferences().setMockingTemplate(context.getProjectHandler().get(), templateId);
+    }
+
+    @Test
+    public void should_mock_injectable_dependencies_of_classes_under_test_found_in_package() throws Exception
+    {
+        // when
+        bulkMocker.mockDependencies(asList(context.getCompilationUnit("te.st.SomeConcept").getParent()), new NullProgressMonitor());
+
+        // then
+        context.assertCompilationUnit("te.st.SomeConceptTest").hasSameSourceAsIn("Mockito_post_1.9_bulk_dependencies.expected.java.txt");
+    }
+
+    @Test
+    public void should_mock_injectable_dependencies_of_classes_tested_in_package() throws Exception
+    {
+        // when
+        bulkMocker.mockDependencies(asList(context.getCompilationUnit("te.st.SomeConceptTest").getParent()), new NullProgressMonitor());
+
+        // then
+        context.assertCompilationUnit("te.st.SomeConceptTest").hasSameSourceAsIn("Mockito_post_1.9_bulk_dependencies.expected.java.txt");
+    }
+}
@@ -0,0 +1,72 @@
+package org.moreunit.mock;
+
+import static java.util.Arrays.asList;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.moreunit.core.log.Logger;
+import org.moreunit.elements.TestCaseTypeFacade;
+import org.moreunit.mock.elements.TypeFacadeFactory;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BulkDependencyMockerTest
+{
+    @Mock
+    private DependencyMocker mocker;
+    @Mock
+    private TypeFacadeFactory facadeFactory;
+    @Mock
+    private Logger logger;
+
+    @Mock
+    private IPackageFragment packageFragment;
+    @Mock
+    private ICompilationUnit testCaseCu;
+    @Mock
+    private TestCaseTypeFacade testCaseFacade;
+
+    private BulkDependencyMocker bulkMocker;
+
+    @Before
+    public void createBulkDependencyMocker() throws Exception
+    {
+        bulkMocker = new BulkDependencyMocker(mocker, facadeFactory, logger);
+    }
+
+    @Test
+    public void should_not_mock_anything_when_packages_are_empty() throws Exception
+    {
+        // given
+        when(packageFragment.getCompilationUnits()).thenReturn(new ICompilationUnit[0]);
+
+        // when
+        bulkMocker.mockDependencies(asList(packageFragment), new NullProgressMonitor());
+
+        // then
+        verifyZeroInteractions(mocker);
+    }
+
+    @Test
+    public void should_ignore_test_cases_without_class_under_test() throws Exception
+    {
+        // given
+        when(packageFragment.getCompilationUnits()).thenReturn(new ICompilationUnit[] { testCaseCu });
+        when(facadeFactory.isTestCase(testCaseCu)).thenReturn(true);
+        when(facadeFactory.createTestCaseFacade(testCaseCu)).thenReturn(testCaseFacade);
+        when(testCaseFacade.getCorrespondingClassUnderTest()).thenReturn(null);
+
+        // when
+        bulkMocker.mockDependencies(asList(packageFragment), new NullProgressMonitor());
+
+        // then
+        verifyZeroInteractions(mocker);
+    }
+}
@@ -0,0 +1,102 @@
+package org.moreunit.mock.dependencies;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeHierarchy;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class SupertypeHierarchyCacheTest
+{
+    private SupertypeHierarchyCache cache;
+    private IType type;
+    private ITypeHierarchy firstHierarchy;
+    private ITypeHierarchy secondHierarchy;
+
+    @Before
+    public void init() throws Exception
+    {
+        cache = new SupertypeHierarchyCache();
+        type = mock(IType.class);
+        firstHierarchy = mock(ITypeHierarchy.class);
+        secondHierarchy = mock(ITypeHierarchy.class);
+        when(firstHierarchy.getType()).thenReturn(type);
+        when(firstHierarchy.exists()).thenReturn(true);
+        when(secondHierarchy.exists()).thenReturn(true);
+        when(type.newSupertypeHierarchy(any(IProgressMonitor.class))).thenReturn(firstHierarchy, secondHierarchy);
+    }
+
+    @Test
+    public void should_compute_hierarchy_only_once() throws Exception
+    {
+        cache.getSupertypeHierarchy(type);
+
+        assertThat(cache.getSupertypeHierarchy(type)).isSameAs(firstHierarchy);
+    }
+
+    @Test
+    public void should_listen_to_hierarchy_changes() throws Exception
+    {
+        cache.getSupertypeHierarchy(type);
+
+        verify(firstHierarchy).addTypeHierarchyChangedListener(cache);
+    }
+
+    @Test
+    public void should_compute_hierarchy_again_when_it_changed() throws Exception
+    {
+        cache.getSupertypeHierarchy(type);
+
+        cache.typeHierarchyChanged(firstHierarchy);
+
+        verify(firstHierarchy).removeTypeHierarchyChangedListener(cache);
+        assertThat(cache.getSupertypeHierarchy(type)).isSameAs(secondHierarchy);
+    }
+
+    @Test
+    public void should_compute_hierarchy_again_when_it_changed_as_soon_as_listened_to() throws Exception
+    {
+        doAnswer(new Answer<Void>()
+        {
+            public Void answer(InvocationOnMock invocation) throws Throwable
+            {
+                cache.typeHierarchyChanged(firstHierarchy);
+                return null;
+            }
+        }).when(firstHierarchy).addTypeHierarchyChangedListener(cache);
+
+        cache.getSupertypeHierarchy(type);
+
+        assertThat(cache.getSupertypeHierarchy(type)).isSameAs(secondHierarchy);
+    }
+
+    @Test
+    public void should_compute_hierarchy_again_when_it_no_longer_exists() throws Exception
+    {
+        when(firstHierarchy.exists()).thenReturn(false);
+
+        cache.getSupertypeHierarchy(type);
+
+        verify(firstHierarchy).removeTypeHierarchyChangedListener(cache);
+        assertThat(cache.getSupertypeHierarchy(type)).isSameAs(secondHierarchy);
+    }
+
+    @Test
+    public void should_compute_hierarchy_again_when_cleared() throws Exception
+    {
+        cache.getSupertypeHierarchy(type);
+
+        cache.clear();
+
+        assertThat(cache.getSupertypeHierarchy(type)).isSameAs(secondHierarchy);
+    }
+}
@@ -0,0 +1,105 @@
+package org.moreunit.mock.templates;
+
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.core.IBuffer;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IType;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.moreunit.core.log.Logger;
+import org.moreunit.mock.dependencies.Dependencies;
+import org.moreunit.mock.model.MockingTemplate;
+import org.moreunit.preferences.PreferenceConstants;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TemplateProcessorTest
+{
+    private static final String SOME_TEST_TYPE = PreferenceConstants.DEFAULT_TEST_TYPE;
+
+    @Mock
+    private ContextFactory contextFactory;
+    @Mock
+    private SourceFormatter sourceFormatter;
+    @Mock
+    private Logger logger;
+
+    private TemplateProcessor templateProcessor;
+
+    @Mock
+    private Dependencies dependencies;
+    @Mock
+    private IType classUnderTest;
+    @Mock
+    private IType testCase;
+    @Mock
+    private ICompilationUnit testCaseCu;
+    @Mock
+    private ICompilationUnit workingCopy;
+    @Mock
+    private IBuffer workingCopyBuffer;
+    @Mock
+    private MockingContext mockingContext;
+
+    private MockingTemplate mockingTemplate = new MockingTemplate("a template");
+
+    @Before
+    public void createTemplateProcessor() throws Exception
+    {
+        templateProcessor = new TemplateProcessor(contextFactory, sourceFormatter, logger);
+
+        when(testCase.getCompilationUnit()).thenReturn(testCaseCu);
+        when(testCaseCu.isOpen()).thenReturn(true);
+        when(testCaseCu.getWorkingCopy(any(IProgressMonitor.class))).thenReturn(workingCopy);
+        when(workingCopy.getBuffer()).thenReturn(workingCopyBuffer);
+        when(contextFactory.createMockingContext(dependencies, classUnderTest, SOME_TEST_TYPE, workingCopy)).thenReturn(mockingContext);
+    }
+
+    @Test
+    public void should_commit_formatted_source_to_working_copy_then_discard_it() throws Exception
+    {
+        // given
+        when(mockingContext.hasDependenciesToMock()).thenReturn(true);
+        when(sourceFormatter.getFormattedSource(workingCopy)).thenReturn("formatted source");
+
+        // when
+        templateProcessor.applyTemplate(mockingTemplate, dependencies, classUnderTest, testCase, SOME_TEST_TYPE);
+
+        // then
+        verify(mockingContext).prepareContext(mockingTemplate, templateProcessor);
+        verify(workingCopyBuffer).setContents("formatted source");
+        verify(workingCopy).commitWorkingCopy(anyBoolean(), any(IProgressMonitor.class));
+        verify(workingCopy).discardWorkingCopy();
+    }
+
+    @Test
+    public void should_discard_working_copy_without_committing_it_when_template_can_not_be_applied() throws Exception
+    {
+        // given
+        when(mockingContext.hasDependenciesToMock()).thenReturn(false);
+
+        // when
+        try
+        {
+            templateProcessor.applyTemplate(mockingTemplate, dependencies, classUnderTest, testCase, SOME_TEST_TYPE);
+            fail("expected NoDependenciesToMockException");
+        }
+        catch (NoDependenciesToMockException e)
+        {
+            // expected
+        }
+
+        // then
+        verify(workingCopy, never()).commitWorkingCopy(anyBoolean(), any(IProgressMonitor.class));
+        verify(workingCopy).discardWorkingCopy();
+    }
+}
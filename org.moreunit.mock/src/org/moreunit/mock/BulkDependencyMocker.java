@@ -0,0 +1,254 @@
+package org.moreunit.mock;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.moreunit.core.log.Logger;
+import org.moreunit.mock.dependencies.Dependencies;
+import org.moreunit.mock.dependencies.DependencyInjectionPointCollector;
+import org.moreunit.mock.dependencies.DependencyInjectionPointStore;
+import org.moreunit.mock.dependencies.Field;
+import org.moreunit.mock.elements.NamingRules;
+import org.moreunit.mock.elements.TypeFacadeFactory;
+import org.moreunit.preferences.Preferences;
+import org.moreunit.util.ParallelJobs;
+
+/**
+ * Mocks the dependencies of all the classes under test found in a selection of
+ * packages, in their test cases.
+ * <p>
+ * Since there is no wizard to choose them, the injection points are: the
+ * constructors and setters visible to the test case, and the fields annotated
+ * for injection. The dependencies of all classes are computed in parallel
+ * jobs, then templates are applied to the test cases in a single workspace
+ * operation, so that the workspace is only built once.
+ * </p>
+ */
+public class BulkDependencyMocker
+{
+    private final DependencyMocker mocker;
+    private final TypeFacadeFactory facadeFactory;
+    private final Logger logger;
+
+    public BulkDependencyMocker(DependencyMocker mocker, TypeFacadeFactory facadeFactory, Logger logger)
+    {
+        this.mocker = mocker;
+        this.facadeFactory = facadeFactory;
+        this.logger = logger;
+    }
+
+    /**
+     * Mocks the dependencies of the classes under test contained in the given
+     * packages or source folders, or tested by the test cases they contain.
+     */
+    public void mockDependencies(Collection< ? extends IJavaElement> containers, IProgressMonitor monitor) throws CoreException
+    {
+        monitor.beginTask("Mocking dependencies", 30);
+        try
+        {
+            List<TestedClass> testedClasses = findTestedClasses(containers, new SubProgressMonitor(monitor, 10));
+            computeDependencies(testedClasses, new SubProgressMonitor(monitor, 10));
+            applyTemplates(testedClasses, new SubProgressMonitor(monitor, 10));
+        }
+        finally
+        {
+            monitor.done();
+        }
+    }
+
+    private List<TestedClass> findTestedClasses(Collection< ? extends IJavaElement> containers, IProgressMonitor monitor) throws JavaModelException
+    {
+        List<ICompilationUnit> compilationUnits = new ArrayList<ICompilationUnit>();
+        for (IJavaElement container : containers)
+        {
+            addCompilationUnits(container, compilationUnits);
+        }
+
+        monitor.beginTask("Searching test cases", compilationUnits.size());
+
+        // the same pair may be found from both the class and the test case
+        Map<String, TestedClass> testedClasses = new LinkedHashMap<String, TestedClass>();
+        for (ICompilationUnit compilationUnit : compilationUnits)
+        {
+            checkCanceled(monitor);
+            monitor.subTask(compilationUnit.getElementName());
+
+            if(facadeFactory.isTestCase(compilationUnit))
+            {
+                IType classUnderTest = facadeFactory.createTestCaseFacade(compilationUnit).getCorrespondingClassUnderTest();
+                if(classUnderTest != null)
+                {
+                    addTestedClass(testedClasses, classUnderTest, compilationUnit.findPrimaryType());
+                }
+            }
+            else
+            {
+                IType classUnderTest = compilationUnit.findPrimaryType();
+                for (IType testCase : facadeFactory.createClassFacade(compilationUnit).getCorrespondingTestCases())
+                {
+                    addTestedClass(testedClasses, classUnderTest, testCase);
+                }
+            }
+            monitor.worked(1);
+        }
+
+        monitor.done();
+        return new ArrayList<TestedClass>(testedClasses.values());
+    }
+
+    private void addCompilationUnits(IJavaElement container, List<ICompilationUnit> compilationUnits) throws JavaModelException
+    {
+        if(container instanceof IPackageFragmentRoot)
+        {
+            for (IJavaElement child : ((IPackageFragmentRoot) container).getChildren())
+            {
+                addCompilationUnits(child, compilationUnits);
+            }
+        }
+        else if(container instanceof IPackageFragment)
+        {
+            for (ICompilationUnit compilationUnit : ((IPackageFragment) container).getCompilationUnits())
+            {
+                compilationUnits.add(compilationUnit);
+            }
+        }
+        else if(container instanceof ICompilationUnit)
+        {
+            compilationUnits.add((ICompilationUnit) container);
+        }
+    }
+
+    private static void addTestedClass(Map<String, TestedClass> testedClasses, IType classUnderTest, IType testCase)
+    {
+        if(classUnderTest != null && testCase != null && ! classUnderTest.equals(testCase))
+        {
+            String key = classUnderTest.getHandleIdentifier() + testCase.getHandleIdentifier();
+            if(! testedClasses.containsKey(key))
+            {
+                testedClasses.put(key, new TestedClass(classUnderTest, testCase));
+            }
+        }
+    }
+
+    private void computeDependencies(List<TestedClass> testedClasses, IProgressMonitor monitor)
+    {
+        List<ParallelJobs.Task<Dependencies>> tasks = new ArrayList<ParallelJobs.Task<Dependencies>>();
+        for (final TestedClass testedClass : testedClasses)
+        {
+            tasks.add(new ParallelJobs.Task<Dependencies>()
+            {
+                public Dependencies run(IProgressMonitor taskMonitor)
+                {
+                    try
+                    {
+                        return computeDependencies(testedClass);
+                    }
+                    catch (OperationCanceledException e)
+                    {
+                        throw e;
+                    }
+                    catch (Exception e)
+                    {
+                        // MSG
+                        logger.error("Could not determine dependencies to mock for " + testedClass.classUnderTest.getElementName(), e);
+                        return null;
+                    }
+                }
+            });
+        }
+
+        List<Dependencies> results = ParallelJobs.run("Computing dependencies", tasks, monitor);
+        for (int i = 0; i < testedClasses.size(); i++)
+        {
+            testedClasses.get(i).dependencies = results.get(i);
+        }
+    }
+
+    private Dependencies computeDependencies(TestedClass testedClass) throws JavaModelException
+    {
+        IType classUnderTest = testedClass.classUnderTest;
+        DependencyInjectionPointCollector collector = new DependencyInjectionPointCollector(classUnderTest, testedClass.testCase.getPackageFragment());
+
+        List<IMember> injectionPoints = new ArrayList<IMember>();
+        injectionPoints.addAll(collector.getConstructors());
+        injectionPoints.addAll(collector.getSetters());
+        for (Field field : collector.getFields())
+        {
+            if(field.isInjectable())
+            {
+                injectionPoints.add(field.get());
+            }
+        }
+
+        DependencyInjectionPointStore injectionPointStore = new DependencyInjectionPointStore(logger);
+        injectionPointStore.setInjectionPoints(injectionPoints);
+
+        Dependencies dependencies = new Dependencies(classUnderTest, injectionPointStore, new NamingRules(classUnderTest.getJavaProject()));
+        dependencies.init();
+        return dependencies;
+    }
+
+    private void applyTemplates(final List<TestedClass> testedClasses, IProgressMonitor monitor) throws CoreException
+    {
+        IWorkspaceRunnable runnable = new IWorkspaceRunnable()
+        {
+            public void run(IProgressMonitor runMonitor) throws CoreException
+            {
+                runMonitor.beginTask("Applying mocking templates", testedClasses.size());
+                for (TestedClass testedClass : testedClasses)
+                {
+                    checkCanceled(runMonitor);
+                    if(testedClass.dependencies != null)
+                    {
+                        runMonitor.subTask(testedClass.testCase.getElementName());
+                        String testType = Preferences.forProject(testedClass.classUnderTest.getJavaProject()).getTestType();
+                        mocker.mockDependencies(testedClass.dependencies, testedClass.classUnderTest, testedClass.testCase, testType);
+                    }
+                    runMonitor.worked(1);
+                }
+                runMonitor.done();
+            }
+        };
+        // a single workspace operation: resource deltas are sent, and the
+        // workspace is built, only once all test cases have been modified
+        JavaCore.run(runnable, ResourcesPlugin.getWorkspace().getRoot(), monitor);
+    }
+
+    private static void checkCanceled(IProgressMonitor monitor)
+    {
+        if(monitor.isCanceled())
+        {
+            throw new OperationCanceledException();
+        }
+    }
+
+    private static class TestedClass
+    {
+        final IType classUnderTest;
+        final IType testCase;
+        Dependencies dependencies;
+
+        TestedClass(IType classUnderTest, IType testCase)
+        {
+            this.classUnderTest = classUnderTest;
+            this.testCase = testCase;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.moreunit.mock.actions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.commands.AbstractHandler;
+import org.eclipse.core.commands.ExecutionEvent;
+import org.eclipse.core.commands.ExecutionException;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jface.action.IAction;
+import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.ui.IObjectActionDelegate;
+import org.eclipse.ui.IWorkbenchPart;
+import org.eclipse.ui.handlers.HandlerUtil;
+import org.moreunit.core.log.Logger;
+import org.moreunit.mock.BulkDependencyMocker;
+import org.moreunit.mock.MoreUnitMockPlugin;
+
+import static org.moreunit.mock.config.MockModule.$;
+
+/**
+ * Mocks the dependencies of all the classes under test found in the selected
+ * packages or source folders, in their test cases. The work is done in a
+ * background job.
+ */
+public class MockDependenciesInPackagesAction extends AbstractHandler implements IObjectActionDelegate
+{
+    private final BulkDependencyMocker bulkMocker;
+    private final Logger logger;
+    private ISelection selection;
+
+    public MockDependenciesInPackagesAction()
+    {
+        this($().getBulkDependencyMocker(), $().getLogger());
+    }
+
+    public MockDependenciesInPackagesAction(BulkDependencyMocker bulkMocker, Logger logger)
+    {
+        this.bulkMocker = bulkMocker;
+        this.logger = logger;
+    }
+
+    public Object execute(ExecutionEvent event) throws ExecutionException
+    {
+        selection = HandlerUtil.getCurrentSelection(event);
+        execute();
+        return null;
+    }
+
+    public void run(IAction action)
+    {
+        execute();
+    }
+
+    private void execute()
+    {
+        final List<IJavaElement> containers = getSelectedContainers();
+        if(containers.isEmpty())
+        {
+            return;
+        }
+
+        Job job = new Job("Mocking dependencies")
+        {
+            @Override
+            protected IStatus run(IProgressMonitor monitor)
+            {
+                try
+                {
+                    bulkMocker.mockDependencies(containers, monitor);
+                    return Status.OK_STATUS;
+                }
+                catch (OperationCanceledException e)
+                {
+                    return Status.CANCEL_STATUS;
+                }
+                catch (CoreException e)
+                {
+                    // MSG
+                    logger.error("Could not mock dependencies", e);
+                    return new Status(IStatus.ERROR, MoreUnitMockPlugin.PLUGIN_ID, "Could not mock dependencies", e);
+                }
+            }
+        };
+        job.setUser(true);
+        job.schedule();
+    }
+
+    private List<IJavaElement> getSelectedContainers()
+    {
+        List<IJavaElement> containers = new ArrayList<IJavaElement>();
+        if(selection instanceof IStructuredSelection)
+        {
+            for (Object element : ((IStructuredSelection) selection).toList())
+            {
+                if(element instanceof IPackageFragment || element instanceof IPackageFragmentRoot)
+                {
+                    containers.add((IJavaElement) element);
+                }
+            }
+        }
+        return containers;
+    }
+
+    public void selectionChanged(IAction action, ISelection selection)
+    {
+        this.selection = selection;
+    }
+
+    public void setActivePart(IAction action, IWorkbenchPart targetPart)
+    {
+        // nothing to do
+    }
+}
@@ -6,9 +6,11 @@ import java.util.Collection;
 import org.moreunit.core.config.Module;
 import org.moreunit.core.log.DefaultLogger;
 import org.moreunit.core.log.Logger;
+import org.moreunit.mock.BulkDependencyMocker;
 import org.moreunit.mock.DependencyMocker;
 import org.moreunit.mock.MoreUnitMockPlugin;
 import org.moreunit.mock.PluginResourceLoader;
+import org.moreunit.mock.dependencies.SupertypeHierarchyCache;
 import org.moreunit.mock.elements.TypeFacadeFactory;
 import org.moreunit.mock.preferences.PreferenceStoreManager;
 import org.moreunit.mock.preferences.Preferences;
@@ -85,6 +87,7 @@ public class MockModule extends Module<MockModule>
     @Override
     protected void clean()
     {
+        SupertypeHierarchyCache.getInstance().clear();
         templateLoader = null;
         mockingTemplateStore = null;
         preferences = null;
@@ -92,6 +95,11 @@ public class MockModule extends Module<MockModule>
         logger = null;
     }
 
+    public BulkDependencyMocker getBulkDependencyMocker()
+    {
+        return new BulkDependencyMocker(getDependencyMocker(), getTypeFacadeFactory(), getLogger());
+    }
+
     private ContextFactory getContextFactory()
     {
         return new ContextFactory();
@@ -2,7 +2,11 @@ package org.moreunit.mock.dependencies;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -32,6 +36,15 @@ public class Dependencies extends ArrayList<Dependency>
     private final List<Dependency> constructorDependencies = new ArrayList<Dependency>();
     private final List<SetterDependency> setterDependencies = new ArrayList<SetterDependency>();
     private final List<FieldDependency> fieldDependencies = new ArrayList<FieldDependency>();
+    /*
+     * Avoids scanning the list of dependencies for each injection point.
+     */
+    private final Set<Dependency> knownDependencies = new HashSet<Dependency>();
+    /*
+     * Many injection points share the same types: they are resolved only
+     * once.
+     */
+    private final Map<String, String> resolvedTypesBySignature = new HashMap<String, String>();
 
     public Dependencies(IType classUnderTest, DependencyInjectionPointStore injectionPointProvider, NamingRules namingRules)
     {
@@ -70,7 +83,7 @@ public class Dependencies extends ArrayList<Dependency>
             for (int i = 0; i < parameterNames.length; i++)
             {
                 Dependency dependency = createConstructorDependency(parameterTypes[i], parameterNames[i]);
-                if(! contains(dependency))
+                if(knownDependencies.add(dependency))
                 {
                     constructorDependencies.add(dependency);
                     add(dependency);
@@ -91,7 +104,7 @@ public class Dependencies extends ArrayList<Dependency>
         for (IMethod method : injectionPointProvider.getSetters())
         {
             SetterDependency dependency = createSetterDependency(method);
-            if(! contains(dependency))
+            if(knownDependencies.add(dependency))
             {
                 setterDependencies.add(dependency);
                 add(dependency);
@@ -114,6 +127,17 @@ public class Dependencies extends ArrayList<Dependency>
         // @NonNull etc. should probably not be put on test case fields
         cleanSignature = cleanSignature.replaceAll("^\\s*(?:\\S+\\s+)*?(\\S+)\\s*$", "$1");
 
+        String resolvedType = resolvedTypesBySignature.get(cleanSignature);
+        if(resolvedType == null)
+        {
+            resolvedType = resolveType(cleanSignature);
+            resolvedTypesBySignature.put(cleanSignature, resolvedType);
+        }
+        return resolvedType;
+    }
+
+    private String resolveType(String cleanSignature) throws JavaModelException
+    {
         String[][] possibleFieldTypes = classUnderTest.resolveType(cleanSignature);
         if(possibleFieldTypes == null || possibleFieldTypes.length == 0)
         {
@@ -129,7 +153,7 @@ public class Dependencies extends ArrayList<Dependency>
         for (IField field : injectionPointProvider.getFields())
         {
             FieldDependency dependency = createFieldDependency(field);
-            if(! contains(dependency))
+            if(knownDependencies.add(dependency))
             {
                 fieldDependencies.add(dependency);
                 add(dependency);
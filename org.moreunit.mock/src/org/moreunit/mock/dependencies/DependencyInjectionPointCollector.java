@@ -6,7 +6,6 @@ import java.util.HashSet;
 import java.util.Set;
 import java.util.regex.Pattern;
 
-import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.jdt.core.Flags;
 import org.eclipse.jdt.core.IField;
 import org.eclipse.jdt.core.IMember;
@@ -87,7 +86,7 @@ public class DependencyInjectionPointCollector implements DependencyInjectionPoi
     {
         if(typeHierarchy == null)
         {
-            typeHierarchy = classUnderTest.newSupertypeHierarchy(new NullProgressMonitor());
+            typeHierarchy = SupertypeHierarchyCache.getInstance().getSupertypeHierarchy(classUnderTest);
         }
         return typeHierarchy;
     }
@@ -1,5 +1,7 @@
 package org.moreunit.mock.dependencies;
 
+import java.util.regex.Pattern;
+
 import org.eclipse.jdt.core.Flags;
 import org.eclipse.jdt.core.IAnnotation;
 import org.eclipse.jdt.core.IField;
@@ -7,8 +9,11 @@ import org.eclipse.jdt.core.JavaModelException;
 
 public class Field
 {
+    private static final Pattern INJECTION_ANNOTATION = Pattern.compile("^([^\\.]+\\.)*(Inject|Resource|Autowired)$");
+
     private final IField field;
     private boolean visibleToTestCase;
+    private Boolean injectable;
 
     public Field(IField field, boolean visibleToTestCase)
     {
@@ -26,18 +31,27 @@ public class Field
         return ! Flags.isFinal(field.getFlags());
     }
 
+    /**
+     * Tells whether this field has an injection annotation. The annotations
+     * are only read on first call, since the wizard asks each time the visible
+     * fields are changed.
+     */
     public boolean isInjectable() throws JavaModelException
     {
-        return hasAnnotation("Inject") || hasAnnotation("Resource") || hasAnnotation("Autowired");
+        if(injectable == null)
+        {
+            injectable = hasInjectionAnnotation();
+        }
+        return injectable;
     }
 
-    private boolean hasAnnotation(String annotationName) throws JavaModelException
+    private boolean hasInjectionAnnotation() throws JavaModelException
     {
         // we can't just use fied.getAnnotation(annotationName).exists() as it
         // may return a cached value
         for (IAnnotation annotation : field.getAnnotations())
         {
-            if(annotation.getElementName().matches("^([^\\.]+\\.)*" + annotationName + "$"))
+            if(INJECTION_ANNOTATION.matcher(annotation.getElementName()).matches())
             {
                 return true;
             }
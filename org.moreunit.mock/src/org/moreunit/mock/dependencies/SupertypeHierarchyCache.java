@@ -0,0 +1,106 @@
+package org.moreunit.mock.dependencies;
+
+import java.util.Map;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeHierarchy;
+import org.eclipse.jdt.core.ITypeHierarchyChangedListener;
+import org.eclipse.jdt.core.JavaModelException;
+import org.moreunit.core.util.LRUCache;
+
+/**
+ * Shares the supertype hierarchies of the classes under test between the
+ * components of the "Mock dependencies" wizard. A hierarchy is evicted as soon
+ * as JDT reports that it changed.
+ */
+public class SupertypeHierarchyCache implements ITypeHierarchyChangedListener
+{
+    private static final int MAX_CACHED_HIERARCHIES = 20;
+
+    private static final SupertypeHierarchyCache instance = new SupertypeHierarchyCache();
+
+    /*
+     * Guarded by itself.
+     */
+    private final Map<IType, ITypeHierarchy> hierarchiesByType = new LRUCache<IType, ITypeHierarchy>(MAX_CACHED_HIERARCHIES)
+    {
+        private static final long serialVersionUID = 6309217011553818476L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<IType, ITypeHierarchy> eldest)
+        {
+            boolean remove = super.removeEldestEntry(eldest);
+            if(remove)
+            {
+                eldest.getValue().removeTypeHierarchyChangedListener(SupertypeHierarchyCache.this);
+            }
+            return remove;
+        }
+    };
+
+    public static SupertypeHierarchyCache getInstance()
+    {
+        return instance;
+    }
+
+    protected SupertypeHierarchyCache()
+    {
+    }
+
+    public ITypeHierarchy getSupertypeHierarchy(IType type) throws JavaModelException
+    {
+        synchronized (hierarchiesByType)
+        {
+            ITypeHierarchy hierarchy = hierarchiesByType.get(type);
+            if(hierarchy != null)
+            {
+                return hierarchy;
+            }
+        }
+
+        ITypeHierarchy hierarchy = type.newSupertypeHierarchy(new NullProgressMonitor());
+        synchronized (hierarchiesByType)
+        {
+            ITypeHierarchy previousHierarchy = hierarchiesByType.put(type, hierarchy);
+            if(previousHierarchy != null)
+            {
+                previousHierarchy.removeTypeHierarchyChangedListener(this);
+            }
+        }
+
+        // the hierarchy is cached before listening to it, so that a change
+        // reported in between evicts it
+        hierarchy.addTypeHierarchyChangedListener(this);
+        if(! hierarchy.exists())
+        {
+            typeHierarchyChanged(hierarchy);
+        }
+        return hierarchy;
+    }
+
+    public void typeHierarchyChanged(ITypeHierarchy hierarchy)
+    {
+        hierarchy.removeTypeHierarchyChangedListener(this);
+        synchronized (hierarchiesByType)
+        {
+            IType type = hierarchy.getType();
+            if(hierarchiesByType.get(type) == hierarchy)
+            {
+                hierarchiesByType.remove(type);
+            }
+        }
+    }
+
+    public void clear()
+    {
+        synchronized (hierarchiesByType)
+        {
+            for (ITypeHierarchy hierarchy : hierarchiesByType.values())
+            {
+                hierarchy.removeTypeHierarchyChangedListener(this);
+            }
+            hierarchiesByType.clear();
+        }
+    }
+}
@@ -27,9 +27,10 @@ public class TemplateProcessor
     public void applyTemplate(MockingTemplate mockingTemplate, Dependencies dependencies, IType classUnderTest, IType testCase, String testType) throws MockingTemplateException
     {
         ICompilationUnit testCaseCu = testCase.getCompilationUnit();
+        ICompilationUnit workingCopy = null;
         try
         {
-            ICompilationUnit workingCopy = createWorkingCopy(testCaseCu);
+            workingCopy = createWorkingCopy(testCaseCu);
 
             MockingContext context = contextFactory.createMockingContext(dependencies, classUnderTest, testType, workingCopy);
             if(! context.hasDependenciesToMock())
@@ -41,7 +42,7 @@ public class TemplateProcessor
 
             applyTemplate(mockingTemplate, context);
 
-            setSource(testCaseCu, sourceFormatter.getFormattedSource(workingCopy));
+            setSource(workingCopy, sourceFormatter.getFormattedSource(workingCopy));
         }
         catch (Exception e)
         {
@@ -51,6 +52,10 @@ public class TemplateProcessor
             }
             throw new MockingTemplateException(e);
         }
+        finally
+        {
+            discard(workingCopy);
+        }
     }
 
     private ICompilationUnit createWorkingCopy(ICompilationUnit compilationUnit) throws JavaModelException
@@ -86,10 +91,25 @@ public class TemplateProcessor
         }
     }
 
-    private void setSource(ICompilationUnit compilationUnit, String source) throws JavaModelException
+    private void setSource(ICompilationUnit workingCopy, String source) throws JavaModelException
+    {
+        workingCopy.getBuffer().setContents(source);
+        workingCopy.commitWorkingCopy(false, new NullProgressMonitor());
+    }
+
+    private void discard(ICompilationUnit workingCopy)
     {
-        ICompilationUnit wc = createWorkingCopy(compilationUnit);
-        wc.getBuffer().setContents(source);
-        wc.commitWorkingCopy(false, new NullProgressMonitor());
+        if(workingCopy == null)
+        {
+            return;
+        }
+        try
+        {
+            workingCopy.discardWorkingCopy();
+        }
+        catch (JavaModelException e)
+        {
+            logger.error("Could not discard working copy of " + workingCopy.getElementName(), e);
+        }
     }
 }
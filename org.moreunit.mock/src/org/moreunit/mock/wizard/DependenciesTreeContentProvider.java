@@ -2,10 +2,10 @@ package org.moreunit.mock.wizard;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
-import java.util.Set;
+import java.util.Map;
 
 import org.eclipse.jdt.core.IMember;
 import org.eclipse.jdt.core.IMethod;
@@ -17,6 +17,7 @@ import org.eclipse.jface.viewers.Viewer;
 import org.moreunit.core.log.Logger;
 import org.moreunit.mock.dependencies.DependencyInjectionPointProvider;
 import org.moreunit.mock.dependencies.Field;
+import org.moreunit.mock.dependencies.SupertypeHierarchyCache;
 
 import static org.moreunit.mock.wizard.DependenciesTreeContentProvider.VisibleFields.ALL;
 import static org.moreunit.mock.wizard.DependenciesTreeContentProvider.VisibleFields.VISIBLE_TO_TEST_CASE_AND_INJECTABLE;
@@ -36,6 +37,13 @@ public class DependenciesTreeContentProvider implements ITreeContentProvider
     private final Logger logger;
     private final List<IType> types = new ArrayList<IType>();
     private final List<IMember> members = new ArrayList<IMember>();
+    private final Map<IType, List<IMember>> membersByType = new HashMap<IType, List<IMember>>();
+    /*
+     * The hierarchy of the class under test and its injectable methods do not
+     * depend on the visible fields: they are only computed once.
+     */
+    private List<IType> allTypes;
+    private List<IMember> methods;
 
     public DependenciesTreeContentProvider(IType classUnderTest, DependencyInjectionPointProvider provider, VisibleFields visibleFields, Logger logger)
     {
@@ -58,25 +66,35 @@ public class DependenciesTreeContentProvider implements ITreeContentProvider
 
     private void initTypes()
     {
-        try
-        {
-            types.add(classUnderTest);
-
-            ITypeHierarchy hierarchy = classUnderTest.newSupertypeHierarchy(null);
-            Collections.addAll(types, hierarchy.getAllSuperclasses(classUnderTest));
-        }
-        catch (JavaModelException e)
+        if(allTypes == null)
         {
-            logger.error("Error while populating dependencies tree", e);
+            allTypes = new ArrayList<IType>();
+            allTypes.add(classUnderTest);
+            try
+            {
+                ITypeHierarchy hierarchy = SupertypeHierarchyCache.getInstance().getSupertypeHierarchy(classUnderTest);
+                Collections.addAll(allTypes, hierarchy.getAllSuperclasses(classUnderTest));
+            }
+            catch (JavaModelException e)
+            {
+                logger.error("Error while populating dependencies tree", e);
+            }
         }
+        types.addAll(allTypes);
     }
 
     private void initMembers()
     {
         try
         {
-            addMethods(provider.getConstructors());
-            addMethods(provider.getSetters());
+            if(methods == null)
+            {
+                methods = new ArrayList<IMember>();
+                Map<String, Integer> indexesBySignature = new HashMap<String, Integer>();
+                addMethods(provider.getConstructors(), indexesBySignature);
+                addMethods(provider.getSetters(), indexesBySignature);
+            }
+            members.addAll(methods);
             addFields(provider.getFields());
             sortMembers();
         }
@@ -86,42 +104,57 @@ public class DependenciesTreeContentProvider implements ITreeContentProvider
         }
     }
 
-    private void addMethods(Iterable<IMethod> methods) throws JavaModelException
+    private void addMethods(Iterable<IMethod> methodsToAdd, Map<String, Integer> indexesBySignature) throws JavaModelException
     {
-        for_methods: for (IMethod method : methods)
+        // a method having the same signature as an already collected one
+        // replaces it
+        for (IMethod method : methodsToAdd)
         {
-            for (ListIterator<IMember> memberIt = members.listIterator(); memberIt.hasNext();)
+            String signature = method.getElementName() + method.getSignature();
+            Integer index = indexesBySignature.get(signature);
+            if(index == null)
             {
-                IMember alreadyCollectedMember = memberIt.next();
-                if(alreadyCollectedMember instanceof IMethod && alreadyCollectedMember.getElementName().equals(method.getElementName())
-                   && ((IMethod) alreadyCollectedMember).getSignature().equals(method.getSignature()))
-                {
-                    memberIt.set(method);
-                    continue for_methods;
-                }
+                indexesBySignature.put(signature, methods.size());
+                methods.add(method);
+            }
+            else
+            {
+                methods.set(index, method);
             }
-            members.add(method);
         }
     }
 
     private void addFields(Iterable<Field> fields) throws JavaModelException
     {
-        for_fields: for (Field field : fields)
+        // a field replaces the first collected method having its name
+        Map<String, LinkedList<Integer>> methodIndexesByName = new HashMap<String, LinkedList<Integer>>();
+        for (int i = 0; i < members.size(); i++)
+        {
+            String name = members.get(i).getElementName();
+            LinkedList<Integer> indexes = methodIndexesByName.get(name);
+            if(indexes == null)
+            {
+                indexes = new LinkedList<Integer>();
+                methodIndexesByName.put(name, indexes);
+            }
+            indexes.add(i);
+        }
+
+        for (Field field : fields)
         {
             if(! shouldShowField(field))
             {
                 continue;
             }
-            for (ListIterator<IMember> memberIt = members.listIterator(); memberIt.hasNext();)
+            LinkedList<Integer> indexes = methodIndexesByName.get(field.get().getElementName());
+            if(indexes == null || indexes.isEmpty())
+            {
+                members.add(field.get());
+            }
+            else
             {
-                IMember alreadyCollectedMemeber = memberIt.next();
-                if(alreadyCollectedMemeber instanceof IMethod && alreadyCollectedMemeber.getElementName().equals(field.get().getElementName()))
-                {
-                    memberIt.set(field.get());
-                    continue for_fields;
-                }
+                members.set(indexes.removeFirst(), field.get());
             }
-            members.add(field.get());
         }
     }
 
@@ -146,29 +179,30 @@ public class DependenciesTreeContentProvider implements ITreeContentProvider
 
     private void removeUnusedTypes()
     {
-        Set<IType> usedTypes = new HashSet<IType>(types.size());
+        membersByType.clear();
         for (IMember member : members)
         {
-            usedTypes.add(member.getDeclaringType());
+            List<IMember> typeMembers = membersByType.get(member.getDeclaringType());
+            if(typeMembers == null)
+            {
+                typeMembers = new ArrayList<IMember>();
+                membersByType.put(member.getDeclaringType(), typeMembers);
+            }
+            typeMembers.add(member);
         }
 
-        types.retainAll(usedTypes);
+        types.retainAll(membersByType.keySet());
     }
 
     public Object[] getChildren(Object parentElement)
     {
         if(parentElement instanceof IType)
         {
-            IType parentType = (IType) parentElement;
-            List<IMember> result = new ArrayList<IMember>(members.size());
-            for (IMember member : members)
+            List<IMember> typeMembers = membersByType.get(parentElement);
+            if(typeMembers != null)
             {
-                if(member.getDeclaringType().equals(parentType))
-                {
-                    result.add(member);
-                }
+                return typeMembers.toArray();
             }
-            return result.toArray();
         }
         return EMPTY_ARRAY;
     }
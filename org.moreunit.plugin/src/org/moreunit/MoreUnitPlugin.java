@@ -1,10 +1,13 @@
 package org.moreunit;
 
+import java.io.File;
 import java.util.List;
 
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jdt.core.ElementChangedEvent;
 import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.ui.IPartService;
 import org.eclipse.ui.IWorkbenchWindow;
@@ -14,10 +17,18 @@ import org.moreunit.annotation.AnnotationUpdateListener;
 import org.moreunit.annotation.MoreUnitAnnotationModel;
 import org.moreunit.core.log.DefaultLogger;
 import org.moreunit.core.log.Logger;
+import org.moreunit.elements.ChangedMethodsTracker;
+import org.moreunit.elements.MethodClassificationCache;
+import org.moreunit.elements.TestMethodIndex;
+import org.moreunit.launch.TestLauncher;
 import org.moreunit.log.LogHandler;
+import org.moreunit.matching.CorrespondingTypeIndex;
 import org.moreunit.util.FeatureDetector;
+import org.moreunit.util.MethodCallGraph;
+import org.moreunit.util.MethodsUnderTestIndex;
 import org.moreunit.util.MoreUnitContants;
 import org.moreunit.util.PluginTools;
+import org.moreunit.util.SearchScopeSingelton;
 import org.osgi.framework.BundleContext;
 
 /**
@@ -31,6 +42,7 @@ public class MoreUnitPlugin extends AbstractUIPlugin
     public static final String PLUGIN_ID = "org.moreunit";
 
     private static final String LOG_LEVEL_PROPERTY = "org.moreunit.log.level";
+    private static final String TYPE_INDEX_FILE = "correspondingTypes.index";
 
     private Logger logger;
     private AnnotationUpdateListener annotationUpdateListener;
@@ -66,6 +78,31 @@ public class MoreUnitPlugin extends AbstractUIPlugin
 
         MoreUnitAnnotationModel.attachForAllOpenEditor();
         removeMarkerFromOlderMoreUnitVersions();
+
+        startCorrespondingTypeIndex();
+        JavaCore.addElementChangedListener(ChangedMethodsTracker.getInstance(), ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+        JavaCore.addElementChangedListener(TestMethodIndex.getInstance(), ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+        JavaCore.addElementChangedListener(MethodClassificationCache.getInstance(), ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+        JavaCore.addElementChangedListener(MethodCallGraph.getInstance(), ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+        JavaCore.addElementChangedListener(MethodsUnderTestIndex.getInstance(), ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+        JavaCore.addElementChangedListener(SourceFolderContext.getInstance(), ElementChangedEvent.POST_CHANGE);
+        JavaCore.addElementChangedListener(SearchScopeSingelton.getInstance(), ElementChangedEvent.POST_CHANGE);
+    }
+
+    private void startCorrespondingTypeIndex()
+    {
+        CorrespondingTypeIndex index = CorrespondingTypeIndex.getInstance();
+        index.load(getTypeIndexFile());
+        JavaCore.addElementChangedListener(index, ElementChangedEvent.POST_CHANGE);
+        if(index.isEmpty())
+        {
+            index.scheduleBuild();
+        }
+    }
+
+    private File getTypeIndexFile()
+    {
+        return getStateLocation().append(TYPE_INDEX_FILE).toFile();
     }
 
     protected IPartService getPartService()
@@ -103,6 +140,22 @@ public class MoreUnitPlugin extends AbstractUIPlugin
      */
     public void stop(BundleContext context) throws Exception
     {
+        JavaCore.removeElementChangedListener(SearchScopeSingelton.getInstance());
+        JavaCore.removeElementChangedListener(SourceFolderContext.getInstance());
+        JavaCore.removeElementChangedListener(MethodsUnderTestIndex.getInstance());
+        MethodsUnderTestIndex.getInstance().cancelIndexing();
+        JavaCore.removeElementChangedListener(MethodCallGraph.getInstance());
+        JavaCore.removeElementChangedListener(MethodClassificationCache.getInstance());
+        JavaCore.removeElementChangedListener(TestMethodIndex.getInstance());
+        JavaCore.removeElementChangedListener(ChangedMethodsTracker.getInstance());
+
+        CorrespondingTypeIndex index = CorrespondingTypeIndex.getInstance();
+        JavaCore.removeElementChangedListener(index);
+        index.cancelBuild();
+        index.save(getTypeIndexFile());
+
+        TestLauncher.disposeCaches();
+
         super.stop(context);
         annotationUpdateListener.dispose();
 
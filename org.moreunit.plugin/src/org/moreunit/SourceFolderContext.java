@@ -1,28 +1,59 @@
 package org.moreunit;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.moreunit.elements.SourceFolderMapping;
 import org.moreunit.log.LogHandler;
+import org.moreunit.matching.CorrespondingTypeIndex;
 import org.moreunit.preferences.Preferences;
 import org.moreunit.util.PluginTools;
+import org.moreunit.util.SearchScopeSingelton;
 
 /**
+ * Knows which source folders have to be searched to find the types
+ * corresponding to the ones of a given source folder.
+ * <p>
+ * Lookups are served from an immutable snapshot that is replaced atomically,
+ * so that readers never block. The part of the snapshot coming from the
+ * settings of a project is rebuilt alone when those settings or the classpath
+ * of the project change. Lookups for folders having no mapping are memoized
+ * until the next classpath change of their project.
+ * </p>
+ *
  * @author vera 15.03.2008 16:26:16
  */
-public class SourceFolderContext
+public class SourceFolderContext implements IElementChangedListener
 {
-
     private static SourceFolderContext instance;
-    private Map<IPackageFragmentRoot, List<IPackageFragmentRoot>> folderToLookupMap;
 
-    public static SourceFolderContext getInstance()
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<Snapshot>();
+    private final ConcurrentMap<IPackageFragmentRoot, List<IPackageFragmentRoot>> defaultLookups = new ConcurrentHashMap<IPackageFragmentRoot, List<IPackageFragmentRoot>>();
+    private final UpdateContextJob updateJob = new UpdateContextJob();
+
+    public static synchronized SourceFolderContext getInstance()
     {
         if(instance == null)
             instance = new SourceFolderContext();
@@ -32,56 +63,116 @@ public class SourceFolderContext
 
     private SourceFolderContext()
     {
-        initContextForWorkspace();
     }
 
+    /**
+     * Rebuilds the lookup table for all projects of the workspace.
+     */
     public void initContextForWorkspace()
     {
-        folderToLookupMap = new HashMap<IPackageFragmentRoot, List<IPackageFragmentRoot>>();
+        Map<IJavaProject, Map<IPackageFragmentRoot, List<IPackageFragmentRoot>>> lookupsByProject = new LinkedHashMap<IJavaProject, Map<IPackageFragmentRoot, List<IPackageFragmentRoot>>>();
+        for (IJavaProject project : PluginTools.getJavaProjectsFromWorkspace())
+        {
+            lookupsByProject.put(project, createLookupsFor(project));
+        }
+
+        defaultLookups.clear();
+        snapshot.set(new Snapshot(lookupsByProject));
+    }
+
+    /**
+     * Rebuilds the part of the lookup table coming from the settings of the
+     * given project.
+     */
+    public void initContextForProject(IJavaProject project)
+    {
+        Map<IPackageFragmentRoot, List<IPackageFragmentRoot>> lookups = project.exists() ? createLookupsFor(project) : null;
 
-        List<IJavaProject> javaProjectsFromWorkspace = PluginTools.getJavaProjectsFromWorkspace();
-        for (IJavaProject project : javaProjectsFromWorkspace)
+        while (true)
         {
-            List<SourceFolderMapping> testSourceFolder = Preferences.getInstance().getSourceMappingList(project);
-            for (SourceFolderMapping mapping : testSourceFolder)
+            Snapshot current = getSnapshot();
+            Snapshot updated = current.with(project, lookups);
+            if(snapshot.compareAndSet(current, updated))
             {
-                updateMap(mapping);
+                return;
             }
         }
     }
 
-    private void updateMap(SourceFolderMapping mapping)
+    /**
+     * Rebuilds the lookup table for all projects of the workspace in the
+     * background, then resets the cached search scopes and the test case
+     * index.
+     */
+    public void scheduleContextUpdateForWorkspace()
+    {
+        updateJob.updateWorkspace();
+    }
+
+    private Map<IPackageFragmentRoot, List<IPackageFragmentRoot>> createLookupsFor(IJavaProject project)
     {
-        for (IPackageFragmentRoot sourceFolder : mapping.getSourceFolderList())
+        Map<IPackageFragmentRoot, List<IPackageFragmentRoot>> lookups = new HashMap<IPackageFragmentRoot, List<IPackageFragmentRoot>>();
+        for (SourceFolderMapping mapping : Preferences.getInstance().getSourceMappingList(project))
         {
-            List<IPackageFragmentRoot> list = new ArrayList<IPackageFragmentRoot>();
-            list.add(mapping.getTestFolder());
-            updateMap(sourceFolder, list);
-        }
+            for (IPackageFragmentRoot sourceFolder : mapping.getSourceFolderList())
+            {
+                addLookup(lookups, sourceFolder, Collections.singletonList(mapping.getTestFolder()));
+            }
 
-        updateMap(mapping.getTestFolder(), mapping.getSourceFolderList());
+            addLookup(lookups, mapping.getTestFolder(), mapping.getSourceFolderList());
+        }
+        return lookups;
     }
 
-    private void updateMap(IPackageFragmentRoot key, List<IPackageFragmentRoot> value)
+    private static void addLookup(Map<IPackageFragmentRoot, List<IPackageFragmentRoot>> lookups, IPackageFragmentRoot key, List<IPackageFragmentRoot> value)
     {
-        if(folderToLookupMap.containsKey(key))
+        List<IPackageFragmentRoot> list = lookups.get(key);
+        if(list == null)
         {
-            List<IPackageFragmentRoot> list = folderToLookupMap.get(key);
-            list.addAll(value);
+            list = new ArrayList<IPackageFragmentRoot>();
+            lookups.put(key, list);
         }
-        else
+        list.addAll(value);
+    }
+
+    private Snapshot getSnapshot()
+    {
+        Snapshot current = snapshot.get();
+        if(current == null)
         {
-            List<IPackageFragmentRoot> list = new ArrayList<IPackageFragmentRoot>();
-            list.addAll(value);
-            folderToLookupMap.put(key, list);
+            synchronized (this)
+            {
+                if(snapshot.get() == null)
+                {
+                    initContextForWorkspace();
+                }
+            }
+            current = snapshot.get();
         }
+        return current;
     }
 
+    /**
+     * Returns the source folders to search to find the types corresponding to
+     * the ones of the given folder. The returned list must not be modified.
+     */
     public List<IPackageFragmentRoot> getSourceFolderToSearch(IPackageFragmentRoot baseFolder)
     {
-        if(folderToLookupMap.containsKey(baseFolder))
-            return folderToLookupMap.get(baseFolder);
+        List<IPackageFragmentRoot> mappedFolders = getSnapshot().folderToLookupMap.get(baseFolder);
+        if(mappedFolders != null)
+            return mappedFolders;
+
+        List<IPackageFragmentRoot> defaultFolders = defaultLookups.get(baseFolder);
+        if(defaultFolders == null)
+        {
+            defaultFolders = Collections.unmodifiableList(getAllSourceFolders(baseFolder));
+            defaultLookups.put(baseFolder, defaultFolders);
+        }
+        return defaultFolders;
+    }
 
+    private List<IPackageFragmentRoot> getAllSourceFolders(IPackageFragmentRoot baseFolder)
+    {
         // if there are no settings for the project then take all source folder
         // as context
         // you can not take the source folder for test because this method is
@@ -102,4 +193,216 @@ public class SourceFolderContext
         }
         return resultList;
     }
+
+    public void elementChanged(ElementChangedEvent event)
+    {
+        Set<IJavaProject> changedProjects = new LinkedHashSet<IJavaProject>();
+        for (IJavaElementDelta projectDelta : event.getDelta().getAffectedChildren())
+        {
+            IJavaElement element = projectDelta.getElement();
+            if(element.getElementType() == IJavaElement.JAVA_PROJECT && affectsSourceFolders(projectDelta))
+            {
+                changedProjects.add((IJavaProject) element);
+            }
+        }
+
+        if(changedProjects.isEmpty())
+        {
+            return;
+        }
+
+        for (IJavaProject project : changedProjects)
+        {
+            forgetDefaultLookups(project);
+        }
+
+        Snapshot current = snapshot.get();
+        if(current != null)
+        {
+            updateJob.updateProjects(current.projectsReferencing(changedProjects));
+        }
+    }
+
+    private boolean affectsSourceFolders(IJavaElementDelta projectDelta)
+    {
+        if(projectDelta.getKind() != IJavaElementDelta.CHANGED)
+        {
+            return true;
+        }
+
+        int projectFlags = IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED | IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED;
+        if((projectDelta.getFlags() & projectFlags) != 0)
+        {
+            return true;
+        }
+
+        for (IJavaElementDelta rootDelta : projectDelta.getAffectedChildren())
+        {
+            if(rootDelta.getElement().getElementType() == IJavaElement.PACKAGE_FRAGMENT_ROOT && rootDelta.getKind() != IJavaElementDelta.CHANGED)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void forgetDefaultLookups(IJavaProject project)
+    {
+        for (IPackageFragmentRoot folder : defaultLookups.keySet())
+        {
+            if(project.equals(folder.getJavaProject()))
+            {
+                defaultLookups.remove(folder);
+            }
+        }
+    }
+
+    private static final class Snapshot
+    {
+        final Map<IJavaProject, Map<IPackageFragmentRoot, List<IPackageFragmentRoot>>> lookupsByProject;
+        final Map<IPackageFragmentRoot, List<IPackageFragmentRoot>> folderToLookupMap;
+
+        Snapshot(Map<IJavaProject, Map<IPackageFragmentRoot, List<IPackageFragmentRoot>>> lookupsByProject)
+        {
+            this.lookupsByProject = Collections.unmodifiableMap(lookupsByProject);
+
+            Map<IPackageFragmentRoot, List<IPackageFragmentRoot>> mergedLookups = new HashMap<IPackageFragmentRoot, List<IPackageFragmentRoot>>();
+            for (Map<IPackageFragmentRoot, List<IPackageFragmentRoot>> lookups : lookupsByProject.values())
+            {
+                for (Entry<IPackageFragmentRoot, List<IPackageFragmentRoot>> lookup : lookups.entrySet())
+                {
+                    addLookup(mergedLookups, lookup.getKey(), lookup.getValue());
+                }
+            }
+            for (Entry<IPackageFragmentRoot, List<IPackageFragmentRoot>> lookup : mergedLookups.entrySet())
+            {
+                lookup.setValue(Collections.unmodifiableList(lookup.getValue()));
+            }
+            this.folderToLookupMap = Collections.unmodifiableMap(mergedLookups);
+        }
+
+        /**
+         * Returns a copy of this snapshot in which the lookups of the given
+         * project are replaced, or removed if <code>lookups</code> is null.
+         */
+        Snapshot with(IJavaProject project, Map<IPackageFragmentRoot, List<IPackageFragmentRoot>> lookups)
+        {
+            Map<IJavaProject, Map<IPackageFragmentRoot, List<IPackageFragmentRoot>>> newLookups = new LinkedHashMap<IJavaProject, Map<IPackageFragmentRoot, List<IPackageFragmentRoot>>>(lookupsByProject);
+            if(lookups == null)
+            {
+                newLookups.remove(project);
+            }
+            else
+            {
+                newLookups.put(project, lookups);
+            }
+            return new Snapshot(newLookups);
+        }
+
+        /**
+         * Returns the given projects, plus the projects having settings that
+         * refer to a folder of one of them.
+         */
+        Set<IJavaProject> projectsReferencing(Collection<IJavaProject> projects)
+        {
+            Set<IJavaProject> result = new LinkedHashSet<IJavaProject>(projects);
+            for (Entry<IJavaProject, Map<IPackageFragmentRoot, List<IPackageFragmentRoot>>> projectLookups : lookupsByProject.entrySet())
+            {
+                if(refersTo(projectLookups.getValue(), projects))
+                {
+                    result.add(projectLookups.getKey());
+                }
+            }
+            return result;
+        }
+
+        private static boolean refersTo(Map<IPackageFragmentRoot, List<IPackageFragmentRoot>> lookups, Collection<IJavaProject> projects)
+        {
+            for (Entry<IPackageFragmentRoot, List<IPackageFragmentRoot>> lookup : lookups.entrySet())
+            {
+                if(projects.contains(lookup.getKey().getJavaProject()))
+                {
+                    return true;
+                }
+                for (IPackageFragmentRoot folder : lookup.getValue())
+                {
+                    if(projects.contains(folder.getJavaProject()))
+                    {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Rebuilds parts of the lookup table in the background. Requests received
+     * while the job is waiting or running are coalesced.
+     */
+    private class UpdateContextJob extends Job
+    {
+        /*
+         * Guarded by this job.
+         */
+        private final Set<IJavaProject> pendingProjects = new LinkedHashSet<IJavaProject>();
+        private boolean workspaceUpdatePending;
+
+        UpdateContextJob()
+        {
+            super("Updating MoreUnit source folder mappings");
+            setSystem(true);
+        }
+
+        synchronized void updateProjects(Collection<IJavaProject> projects)
+        {
+            pendingProjects.addAll(projects);
+            schedule();
+        }
+
+        synchronized void updateWorkspace()
+        {
+            workspaceUpdatePending = true;
+            pendingProjects.clear();
+            schedule();
+        }
+
+        @Override
+        protected IStatus run(IProgressMonitor monitor)
+        {
+            boolean updateWorkspace;
+            List<IJavaProject> projects;
+            synchronized (this)
+            {
+                updateWorkspace = workspaceUpdatePending;
+                projects = new ArrayList<IJavaProject>(pendingProjects);
+                workspaceUpdatePending = false;
+                pendingProjects.clear();
+            }
+
+            if(updateWorkspace)
+            {
+                initContextForWorkspace();
+                SearchScopeSingelton.getInstance().resetCachedSearchScopes();
+                // entries computed until now may come from the previous
+                // mappings
+                CorrespondingTypeIndex.getInstance().clear();
+                return Status.OK_STATUS;
+            }
+
+            for (IJavaProject project : projects)
+            {
+                if(monitor.isCanceled())
+                {
+                    // not rebuilt: resets them all at next lookup
+                    snapshot.set(null);
+                    SearchScopeSingelton.getInstance().resetCachedSearchScopes();
+                    return Status.CANCEL_STATUS;
+                }
+                initContextForProject(project);
+                SearchScopeSingelton.getInstance().resetCachedSearchScopes(project);
+            }
+            return Status.OK_STATUS;
+        }
+    }
 }
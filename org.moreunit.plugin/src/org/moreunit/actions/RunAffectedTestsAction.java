@@ -0,0 +1,28 @@
+package org.moreunit.actions;
+
+import org.eclipse.jface.action.IAction;
+import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.ui.IEditorActionDelegate;
+import org.eclipse.ui.IEditorPart;
+import org.moreunit.handler.RunTestsActionExecutor;
+
+/**
+ * This class delegates the action from the menu in the editor to run the tests
+ * affected by the methods that changed since they were last run.
+ */
+public class RunAffectedTestsAction implements IEditorActionDelegate
+{
+
+    public void setActiveEditor(IAction action, IEditorPart targetEditor)
+    {
+    }
+
+    public void run(IAction action)
+    {
+        RunTestsActionExecutor.getInstance().executeRunAffectedTestsAction();
+    }
+
+    public void selectionChanged(IAction action, ISelection selection)
+    {
+    }
+}
@@ -3,9 +3,15 @@ package org.moreunit.annotation;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
@@ -13,7 +19,6 @@ import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.core.IAnnotation;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IMethod;
-import org.eclipse.jdt.core.ISourceRange;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jface.text.BadLocationException;
@@ -25,6 +30,7 @@ import org.eclipse.jface.text.source.IAnnotationModel;
 import org.eclipse.jface.text.source.IAnnotationModelExtension;
 import org.eclipse.jface.text.source.IAnnotationModelListener;
 import org.eclipse.jface.text.source.IAnnotationModelListenerExtension;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.IEditorReference;
 import org.eclipse.ui.IWorkbenchPage;
 import org.eclipse.ui.IWorkbenchPart;
@@ -49,10 +55,36 @@ public class MoreUnitAnnotationModel implements IAnnotationModel
 
     private static final String MODEL_KEY = "org.moreunit.model_key";
 
+    private static final long UPDATE_DELAY_MILLIS = 200;
+
     private final List<MoreUnitAnnotation> annotations = Collections.synchronizedList(new ArrayList<MoreUnitAnnotation>());
     private final List<IAnnotationModelListener> annotationModelListeners = new ArrayList<IAnnotationModelListener>(2);
     private final IDocument document;
     private final ITextEditor textEditor;
+    private final Job updateJob = new UpdateAnnotationsJob();
+
+    /*
+     * Only accessed by updateJob, which never runs concurrently with itself.
+     * Values are annotation types, null for methods without tests.
+     */
+    private final Map<String, String> annotationTypesByMethod = new HashMap<String, String>();
+    private String testCasesFingerprint;
+
+    /*
+     * Only accessed from the UI thread, as the positions of the annotations.
+     */
+    private final Map<String, MoreUnitAnnotation> annotationsByMethod = new HashMap<String, MoreUnitAnnotation>();
+
+    /*
+     * Guarded by annotations.
+     */
+    private boolean connected;
+
+    /*
+     * Set once the model is removed from the editor, after which updates are
+     * dropped.
+     */
+    private volatile boolean detached;
 
     /*
      * Could be private, but is public for testing.
@@ -145,123 +177,256 @@ public class MoreUnitAnnotationModel implements IAnnotationModel
             return;
         }
         IAnnotationModelExtension modelExtension = (IAnnotationModelExtension) model;
-        modelExtension.removeAnnotationModel(MODEL_KEY);
+        IAnnotationModel annotationModel = modelExtension.removeAnnotationModel(MODEL_KEY);
+        if(annotationModel instanceof MoreUnitAnnotationModel)
+        {
+            ((MoreUnitAnnotationModel) annotationModel).cancelUpdates();
+        }
     }
 
-    private void clear(AnnotationModelEvent event)
+    /**
+     * Cancels the pending update, and prevents any further one from being
+     * applied.
+     */
+    private void cancelUpdates()
     {
-        synchronized (annotations)
-        {
-            for (MoreUnitAnnotation annotation : annotations)
-            {
-                annotation.markDeleted(true);
-                event.annotationRemoved(annotation, annotation.getPosition());
-            }
+        detached = true;
+        updateJob.cancel();
+    }
 
-            annotations.clear();
+    /**
+     * Schedules an update of the annotations. Successive requests are
+     * coalesced, and a running update is cancelled since its result would be
+     * outdated.
+     */
+    private void updateAnnotations()
+    {
+        if(detached)
+        {
+            return;
         }
+        updateJob.cancel();
+        updateJob.schedule(UPDATE_DELAY_MILLIS);
     }
 
-    private void updateAnnotations()
+    /**
+     * Computes the annotations of the methods of the edited type, by method
+     * handle identifier. Only the methods that were added since the last
+     * computation are searched for tests, unless the test cases (or the
+     * annotation mode) changed, in which case all methods are. Returns null
+     * if the computation has been cancelled.
+     */
+    private Map<String, MoreUnitAnnotation> computeAnnotations(IProgressMonitor monitor) throws JavaModelException
     {
-        final MoreUnitAnnotationModel modelInstance = this;
-        Job updateJob = new Job("Update MoreUnit Annotations")
+        EditorPartFacade editorPartFacade = new EditorPartFacade(textEditor);
+        if(! editorPartFacade.isJavaLikeFile())
         {
+            return noAnnotations();
+        }
 
-            @Override
-            protected IStatus run(IProgressMonitor monitor)
-            {
-                AnnotationModelEvent event = new AnnotationModelEvent(modelInstance);
-                clear(event);
+        ICompilationUnit compilationUnit = editorPartFacade.getCompilationUnit();
+        if(TypeFacade.isTestCase(compilationUnit))
+        {
+            return noAnnotations();
+        }
 
-                try
-                {
-                    EditorPartFacade editorPartFacade = new EditorPartFacade(textEditor);
-                    if(! editorPartFacade.isJavaLikeFile())
-                    {
-                        return Status.OK_STATUS;
-                    }
+        ClassTypeFacade classTypeFacade = new ClassTypeFacade(compilationUnit);
+        IType type = classTypeFacade.getType();
+        if(type == null)
+        {
+            // this could happen if the resource is out of sync with the file
+            // system
+            return noAnnotations();
+        }
 
-                    ICompilationUnit compilationUnit = editorPartFacade.getCompilationUnit();
-                    if(TypeFacade.isTestCase(compilationUnit))
-                    {
-                        return Status.OK_STATUS;
-                    }
+        TestAnnotationMode testAnnotationMode = Preferences.forProject(type.getJavaProject()).getTestAnnotationMode();
+        if(testAnnotationMode == TestAnnotationMode.OFF)
+        {
+            return noAnnotations();
+        }
 
-                    ClassTypeFacade classTypeFacade = new ClassTypeFacade(compilationUnit);
-                    IType type = classTypeFacade.getType();
-                    if(type == null)
-                    {
-                        return Status.OK_STATUS; // this could happen if the
-                                                 // resource is out of sync with
-                                                 // the file system
-                    }
+        String fingerprint = computeTestCasesFingerprint(testAnnotationMode, classTypeFacade.getCorrespondingTestCases());
+        boolean recomputeAll = ! fingerprint.equals(testCasesFingerprint);
 
-                    annotateTestedMethods(type, classTypeFacade, event);
-                }
-                catch (Exception exc)
-                {
-                    LogHandler.getInstance().handleExceptionLog(exc);
-                }
+        Map<String, MoreUnitAnnotation> result = new HashMap<String, MoreUnitAnnotation>();
+        Set<String> currentMethods = new HashSet<String>();
+        for (IMethod method : type.getMethods())
+        {
+            if(monitor.isCanceled())
+            {
+                return null;
+            }
 
-                fireModelChanged(event);
+            String methodKey = method.getHandleIdentifier();
+            currentMethods.add(methodKey);
 
-                return Status.OK_STATUS;
+            String annotationType;
+            if(recomputeAll || ! annotationTypesByMethod.containsKey(methodKey))
+            {
+                annotationType = computeAnnotationType(method, classTypeFacade, testAnnotationMode);
+                annotationTypesByMethod.put(methodKey, annotationType);
+            }
+            else
+            {
+                annotationType = annotationTypesByMethod.get(methodKey);
+            }
+
+            if(MoreUnitAnnotation.ANNOTATION_ID_IGNORED.equals(annotationType))
+            {
+                result.put(methodKey, MoreUnitAnnotation.createAnnotationForIgnoredTesMethod(method.getNameRange()));
+            }
+            else if(annotationType != null)
+            {
+                result.put(methodKey, MoreUnitAnnotation.createAnnotationForTestedMethod(method.getNameRange()));
             }
-        };
+        }
+
+        annotationTypesByMethod.keySet().retainAll(currentMethods);
+        testCasesFingerprint = fingerprint;
 
-        updateJob.setPriority(Job.DECORATE);
-        updateJob.schedule();
+        return result;
     }
 
-    private void annotateTestedMethods(IType type, ClassTypeFacade classTypeFacade, AnnotationModelEvent event) throws JavaModelException
+    private Map<String, MoreUnitAnnotation> noAnnotations()
     {
-        TestAnnotationMode testAnnotationMode = Preferences.forProject(type.getJavaProject()).getTestAnnotationMode();
-        if(testAnnotationMode == TestAnnotationMode.OFF)
+        annotationTypesByMethod.clear();
+        testCasesFingerprint = null;
+        return Collections.emptyMap();
+    }
+
+    private String computeTestCasesFingerprint(TestAnnotationMode testAnnotationMode, Collection<IType> testCases)
+    {
+        StringBuilder sb = new StringBuilder(testAnnotationMode.toString());
+        for (IType testCase : testCases)
         {
-            return;
+            sb.append('|').append(testCase.getHandleIdentifier());
+            IResource resource = testCase.getResource();
+            if(resource != null)
+            {
+                sb.append('@').append(resource.getModificationStamp());
+            }
         }
+        return sb.toString();
+    }
 
-        for (IMethod method : type.getMethods())
+    /**
+     * Returns the type of the annotation to show for the given method, or null
+     * if the method is not tested.
+     */
+    private String computeAnnotationType(IMethod method, ClassTypeFacade classTypeFacade, TestAnnotationMode testAnnotationMode) throws JavaModelException
+    {
+        // searching by call is safe here: calls are computed by
+        // MethodCallGraph, which shares no state between search tasks
+        Collection<IMethod> testMethods = classTypeFacade.getCorrespondingTestMethods(method, testAnnotationMode.getMethodSearchMode());
+        if(testMethods.isEmpty())
         {
-            // never search by call, as it causes a lot of issues, the
-            // CallHierarchy singleton's state being shared between different
-            // search tasks
-            Collection<IMethod> testMethods = classTypeFacade.getCorrespondingTestMethods(method, testAnnotationMode.getMethodSearchMode());
+            return null;
+        }
 
-            boolean hasIgnoredTest = false;
-            for (IMethod testMethod : testMethods)
+        for (IMethod testMethod : testMethods)
+        {
+            // Using getAnnotation(IGNORE_ANNOTATION_NAME).exists() seems to
+            // give back true "for a while" after removing an annotation,
+            // that is why I am using this loop
+            IAnnotation[] allAnnotations = testMethod.getAnnotations();
+            for (IAnnotation annotation : allAnnotations)
             {
-                // Using getAnnotation(IGNORE_ANNOTATION_NAME).exists() seems to
-                // give back true "for a while" after removing an annotation,
-                // that is why I am using this loop
-                IAnnotation[] allAnnotations = testMethod.getAnnotations();
-                for (IAnnotation annotation : allAnnotations)
+                if(IGNORE_ANNOTATION_NAME.equals(annotation.getElementName()))
                 {
-                    if(IGNORE_ANNOTATION_NAME.equals(annotation.getElementName()))
-                    {
-                        hasIgnoredTest = true;
-                        break;
-                    }
+                    return MoreUnitAnnotation.ANNOTATION_ID_IGNORED;
                 }
             }
+        }
+        return MoreUnitAnnotation.ANNOTATION_ID;
+    }
 
-            if(! testMethods.isEmpty())
+    /**
+     * Replaces the current annotations with the given ones, keeping (and
+     * moving if required) those that did not change, then notifies the
+     * listeners. Must be called from the UI thread, where the document
+     * positions are read and updated while the user types.
+     */
+    private void applyAnnotations(Map<String, MoreUnitAnnotation> newAnnotations)
+    {
+        AnnotationModelEvent event = new AnnotationModelEvent(this);
+
+        for (Iterator<Entry<String, MoreUnitAnnotation>> it = annotationsByMethod.entrySet().iterator(); it.hasNext();)
+        {
+            Entry<String, MoreUnitAnnotation> entry = it.next();
+            MoreUnitAnnotation newAnnotation = newAnnotations.get(entry.getKey());
+            if(newAnnotation == null || ! newAnnotation.getType().equals(entry.getValue().getType()))
             {
-                ISourceRange range = method.getNameRange();
-                MoreUnitAnnotation annotation = null;
-                if(hasIgnoredTest)
-                    annotation = MoreUnitAnnotation.createAnnotationForIgnoredTesMethod(range);
-                else
-                    annotation = MoreUnitAnnotation.createAnnotationForTestedMethod(range);
+                removeAnnotation(entry.getValue(), event);
+                it.remove();
+            }
+        }
 
-                synchronized (annotations)
-                {
-                    annotations.add(annotation);
-                }
-                event.annotationAdded(annotation);
+        for (Entry<String, MoreUnitAnnotation> entry : newAnnotations.entrySet())
+        {
+            MoreUnitAnnotation oldAnnotation = annotationsByMethod.get(entry.getKey());
+            if(oldAnnotation == null)
+            {
+                annotationsByMethod.put(entry.getKey(), entry.getValue());
+                addAnnotation(entry.getValue(), event);
+            }
+            else
+            {
+                // same kind of annotation: only its position may have changed
+                updatePosition(oldAnnotation, entry.getValue().getPosition(), event);
+            }
+        }
+
+        fireModelChanged(event);
+    }
+
+    private void addAnnotation(MoreUnitAnnotation annotation, AnnotationModelEvent event)
+    {
+        synchronized (annotations)
+        {
+            annotations.add(annotation);
+            if(connected)
+            {
+                addPosition(annotation);
+            }
+        }
+        event.annotationAdded(annotation);
+    }
+
+    private void removeAnnotation(MoreUnitAnnotation annotation, AnnotationModelEvent event)
+    {
+        synchronized (annotations)
+        {
+            annotations.remove(annotation);
+            if(connected)
+            {
+                document.removePosition(annotation.getPosition());
             }
         }
+        annotation.markDeleted(true);
+        event.annotationRemoved(annotation, annotation.getPosition());
+    }
+
+    private void updatePosition(MoreUnitAnnotation annotation, Position newPosition, AnnotationModelEvent event)
+    {
+        Position position = annotation.getPosition();
+        if(! position.equals(newPosition))
+        {
+            position.setOffset(newPosition.getOffset());
+            position.setLength(newPosition.getLength());
+            event.annotationChanged(annotation);
+        }
+    }
+
+    private void addPosition(MoreUnitAnnotation annotation)
+    {
+        try
+        {
+            document.addPosition(annotation.getPosition());
+        }
+        catch (BadLocationException exc)
+        {
+            LogHandler.getInstance().handleExceptionLog(exc);
+        }
     }
 
     public void addAnnotation(Annotation annotation, Position position)
@@ -304,16 +469,13 @@ public class MoreUnitAnnotationModel implements IAnnotationModel
             throw new RuntimeException("Can not connect");
         }
 
-        for (MoreUnitAnnotation annotation : copyAnnotations())
+        synchronized (annotations)
         {
-            try
+            for (MoreUnitAnnotation annotation : annotations)
             {
-                document.addPosition(annotation.getPosition());
-            }
-            catch (BadLocationException exc)
-            {
-                LogHandler.getInstance().handleExceptionLog(exc);
+                addPosition(annotation);
             }
+            connected = true;
         }
     }
 
@@ -324,9 +486,13 @@ public class MoreUnitAnnotationModel implements IAnnotationModel
             throw new RuntimeException("Can not connect");
         }
 
-        for (MoreUnitAnnotation annotation : copyAnnotations())
+        synchronized (annotations)
         {
-            document.removePosition(annotation.getPosition());
+            for (MoreUnitAnnotation annotation : annotations)
+            {
+                document.removePosition(annotation.getPosition());
+            }
+            connected = false;
         }
     }
 
@@ -362,4 +528,55 @@ public class MoreUnitAnnotationModel implements IAnnotationModel
             return new ArrayList<MoreUnitAnnotation>(annotations);
         }
     }
+
+    private class UpdateAnnotationsJob extends Job
+    {
+        UpdateAnnotationsJob()
+        {
+            super("Update MoreUnit Annotations");
+            setPriority(Job.DECORATE);
+        }
+
+        @Override
+        protected IStatus run(IProgressMonitor monitor)
+        {
+            if(detached)
+            {
+                return Status.CANCEL_STATUS;
+            }
+
+            final Map<String, MoreUnitAnnotation> newAnnotations;
+            try
+            {
+                newAnnotations = computeAnnotations(monitor);
+            }
+            catch (Exception exc)
+            {
+                LogHandler.getInstance().handleExceptionLog(exc);
+                return Status.OK_STATUS;
+            }
+
+            if(newAnnotations == null || monitor.isCanceled() || detached)
+            {
+                return Status.CANCEL_STATUS;
+            }
+
+            Display display = PlatformUI.getWorkbench().getDisplay();
+            if(! display.isDisposed())
+            {
+                display.asyncExec(new Runnable()
+                {
+                    public void run()
+                    {
+                        // the editor may have been closed in the meantime
+                        if(! detached)
+                        {
+                            applyAnnotations(newAnnotations);
+                        }
+                    }
+                });
+            }
+            return Status.OK_STATUS;
+        }
+    }
 }
\ No newline at end of file
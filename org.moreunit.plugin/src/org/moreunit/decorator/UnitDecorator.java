@@ -12,9 +12,9 @@ import org.eclipse.jface.viewers.LabelProviderChangedEvent;
 import org.eclipse.ui.IDecoratorManager;
 import org.moreunit.MoreUnitPlugin;
 import org.moreunit.core.log.Logger;
-import org.moreunit.elements.ClassTypeFacade;
 import org.moreunit.elements.TypeFacade;
 import org.moreunit.images.ImageDescriptorCenter;
+import org.moreunit.matching.CorrespondingTypeIndex;
 import org.moreunit.util.MoreUnitContants;
 
 /**
@@ -50,8 +50,7 @@ public class UnitDecorator extends LabelProvider implements ILightweightLabelDec
             return;
         }
 
-        ClassTypeFacade javaFileFacade = new ClassTypeFacade(cu);
-        if(javaFileFacade.hasTestCase())
+        if(CorrespondingTypeIndex.getInstance().hasTestCase(cu))
         {
             if(logger.traceEnabled())
             {
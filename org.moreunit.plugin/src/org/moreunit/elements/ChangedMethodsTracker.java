@@ -0,0 +1,222 @@
+package org.moreunit.elements;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.moreunit.log.LogHandler;
+
+/**
+ * Records the methods that have been added or modified since the affected
+ * tests were last run, as reported by Java element deltas.
+ * <p>
+ * Fine-grained deltas, such as the ones sent while an editor reconciles its
+ * working copy, tell which methods changed. When a compilation unit or a type
+ * changes without such details, all its methods are considered as changed.
+ * </p>
+ */
+public class ChangedMethodsTracker implements IElementChangedListener
+{
+    private static final ChangedMethodsTracker instance = new ChangedMethodsTracker();
+
+    /*
+     * Guarded by this tracker. Handle identifiers of the changed methods, and
+     * of the compilation units and types which methods all changed.
+     */
+    private final Set<String> changedMethods = new LinkedHashSet<String>();
+    private final Set<String> changedContainers = new LinkedHashSet<String>();
+
+    public static ChangedMethodsTracker getInstance()
+    {
+        return instance;
+    }
+
+    protected ChangedMethodsTracker()
+    {
+    }
+
+    /**
+     * Returns the methods that changed since the last call to this method (or
+     * to {@link #clear()}), and forgets about them.
+     */
+    public Collection<IMethod> takeChangedMethods()
+    {
+        List<String> methodHandles;
+        List<String> containerHandles;
+        synchronized (this)
+        {
+            methodHandles = new ArrayList<String>(changedMethods);
+            containerHandles = new ArrayList<String>(changedContainers);
+            clear();
+        }
+
+        Set<IMethod> methods = new LinkedHashSet<IMethod>();
+        for (String handle : containerHandles)
+        {
+            IJavaElement container = JavaCore.create(handle);
+            if(container != null && container.exists())
+            {
+                addMethods(container, methods);
+            }
+        }
+        for (String handle : methodHandles)
+        {
+            IJavaElement method = JavaCore.create(handle);
+            if(method instanceof IMethod && method.exists())
+            {
+                methods.add((IMethod) method);
+            }
+        }
+        return methods;
+    }
+
+    private void addMethods(IJavaElement container, Set<IMethod> methods)
+    {
+        try
+        {
+            IType[] types = container instanceof ICompilationUnit ? ((ICompilationUnit) container).getTypes() : new IType[] { (IType) container };
+            for (IType type : types)
+            {
+                addMethods(type, methods);
+            }
+        }
+        catch (JavaModelException e)
+        {
+            LogHandler.getInstance().handleExceptionLog(e);
+        }
+    }
+
+    private void addMethods(IType type, Set<IMethod> methods) throws JavaModelException
+    {
+        for (IMethod method : type.getMethods())
+        {
+            methods.add(method);
+        }
+        for (IType memberType : type.getTypes())
+        {
+            addMethods(memberType, methods);
+        }
+    }
+
+    /**
+     * Records the given methods as changed again, for instance when the run
+     * of the tests affected by them has been canceled.
+     */
+    public synchronized void addChangedMethods(Collection<IMethod> methods)
+    {
+        for (IMethod method : methods)
+        {
+            changedMethods.add(method.getHandleIdentifier());
+        }
+    }
+
+    public synchronized void clear()
+    {
+        changedMethods.clear();
+        changedContainers.clear();
+    }
+
+    public void elementChanged(ElementChangedEvent event)
+    {
+        processDelta(event.getDelta());
+    }
+
+    private void processDelta(IJavaElementDelta delta)
+    {
+        IJavaElement element = delta.getElement();
+        switch (element.getElementType())
+        {
+        case IJavaElement.JAVA_MODEL:
+        case IJavaElement.JAVA_PROJECT:
+        case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+        case IJavaElement.PACKAGE_FRAGMENT:
+            if(delta.getKind() == IJavaElementDelta.CHANGED)
+            {
+                processChildren(delta);
+            }
+            break;
+        case IJavaElement.COMPILATION_UNIT:
+            processCompilationUnitDelta(delta, (ICompilationUnit) element);
+            break;
+        case IJavaElement.TYPE:
+            if(delta.getKind() == IJavaElementDelta.ADDED)
+            {
+                addChangedContainer(element);
+            }
+            else if(delta.getKind() == IJavaElementDelta.CHANGED)
+            {
+                processChildren(delta);
+            }
+            break;
+        case IJavaElement.METHOD:
+            if(delta.getKind() == IJavaElementDelta.ADDED || (delta.getKind() == IJavaElementDelta.CHANGED && (delta.getFlags() & IJavaElementDelta.F_CONTENT) != 0))
+            {
+                addChangedMethod(element);
+            }
+            break;
+        default:
+            break;
+        }
+    }
+
+    private void processCompilationUnitDelta(IJavaElementDelta delta, ICompilationUnit compilationUnit)
+    {
+        if(compilationUnit.getOwner() != null)
+        {
+            // neither a primary compilation unit nor the working copy of an
+            // editor
+            return;
+        }
+
+        if(delta.getKind() == IJavaElementDelta.ADDED)
+        {
+            addChangedContainer(compilationUnit);
+        }
+        else if(delta.getKind() == IJavaElementDelta.CHANGED)
+        {
+            int flags = delta.getFlags();
+            if((flags & IJavaElementDelta.F_FINE_GRAINED) != 0)
+            {
+                processChildren(delta);
+            }
+            else if((flags & IJavaElementDelta.F_PRIMARY_RESOURCE) != 0)
+            {
+                // a working copy has been saved: its changes have already been
+                // reported when it was reconciled
+            }
+            else if((flags & IJavaElementDelta.F_CONTENT) != 0)
+            {
+                addChangedContainer(compilationUnit);
+            }
+        }
+    }
+
+    private void processChildren(IJavaElementDelta delta)
+    {
+        for (IJavaElementDelta child : delta.getAffectedChildren())
+        {
+            processDelta(child);
+        }
+    }
+
+    private synchronized void addChangedMethod(IJavaElement method)
+    {
+        changedMethods.add(method.getPrimaryElement().getHandleIdentifier());
+    }
+
+    private synchronized void addChangedContainer(IJavaElement container)
+    {
+        changedContainers.add(container.getPrimaryElement().getHandleIdentifier());
+    }
+}
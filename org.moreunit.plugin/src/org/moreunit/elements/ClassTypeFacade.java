@@ -115,14 +115,8 @@ public class ClassTypeFacade extends TypeFacade
 
         try
         {
-            IMethod[] methodsOfType = testCaseType.getCompilationUnit().findPrimaryType().getMethods();
-            for (IMethod testmethod : methodsOfType)
-            {
-                if(testmethod.getElementName().startsWith(nameOfCorrespondingTestMethod))
-                {
-                    result.add(testmethod);
-                }
-            }
+            IType primaryType = testCaseType.getCompilationUnit().findPrimaryType();
+            result.addAll(TestMethodIndex.getInstance().getMethodsStartingWith(primaryType, nameOfCorrespondingTestMethod));
         }
         catch (JavaModelException exc)
         {
@@ -176,7 +170,7 @@ public class ClassTypeFacade extends TypeFacade
 
     public boolean hasTestCase()
     {
-        return ! getCorrespondingTestCases().isEmpty();
+        return hasCorrespondingClass();
     }
 
     private static class CreateNewTestCaseAction extends CreateNewClassAction
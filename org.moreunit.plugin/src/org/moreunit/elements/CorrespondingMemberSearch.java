@@ -0,0 +1,311 @@
+package org.moreunit.elements;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+import org.moreunit.elements.CorrespondingMemberRequest.MemberType;
+
+/**
+ * Searches, in background jobs, the members corresponding to a type or to one
+ * of its methods, as requested by
+ * {@link TypeFacade#getOneCorrespondingMember(CorrespondingMemberRequest)}.
+ * <p>
+ * The corresponding classes are searched first, likely matches being only
+ * proposed, at most {@value #MAX_PROPOSED_CLASSES} of them, if there are no
+ * perfect ones. When there are perfect matches, their methods are then
+ * searched by name and by call concurrently. Listeners are notified each time
+ * results are added, so that they may be displayed before the search
+ * completes. All the jobs are canceled by {@link #cancel()}.
+ * </p>
+ */
+class CorrespondingMemberSearch
+{
+    /**
+     * Maximum number of likely matches proposed to the user.
+     */
+    private static final int MAX_PROPOSED_CLASSES = 50;
+
+    private final TypeFacade typeFacade;
+    private final CorrespondingMemberRequest request;
+
+    /*
+     * Guarded by this search.
+     */
+    private Collection<IType> classes;
+    private boolean perfectMatches = true;
+    private final Set<IMethod> methods = new LinkedHashSet<IMethod>();
+    private int runningJobs;
+    private boolean canceled;
+    private final List<Runnable> listeners = new ArrayList<Runnable>();
+
+    CorrespondingMemberSearch(TypeFacade typeFacade, CorrespondingMemberRequest request)
+    {
+        this.typeFacade = typeFacade;
+        this.request = request;
+    }
+
+    void start()
+    {
+        schedule(new SearchJob("Searching corresponding classes")
+        {
+            @Override
+            protected void search(IProgressMonitor monitor)
+            {
+                searchClasses();
+            }
+        });
+    }
+
+    private void searchClasses()
+    {
+        Collection<IType> perfectClasses = typeFacade.getCorrespondingClasses(false);
+        if(perfectClasses.isEmpty())
+        {
+            // likely matches are only proposed in a dialog, which does not
+            // need all of them
+            Collection<IType> likelyClasses = typeFacade.getLikelyCorrespondingClasses(MAX_PROPOSED_CLASSES);
+            synchronized (this)
+            {
+                classes = likelyClasses;
+                perfectMatches = false;
+            }
+            return;
+        }
+
+        synchronized (this)
+        {
+            classes = perfectClasses;
+        }
+
+        final IMethod currentMethod = request.getCurrentMethod();
+        if(currentMethod == null || ! request.shouldReturn(MemberType.TYPE_OR_METHOD))
+        {
+            return;
+        }
+
+        final List<IType> searchedClasses = new ArrayList<IType>(perfectClasses);
+        if(request.getMethodSearchMode().searchByName)
+        {
+            schedule(new SearchJob("Searching corresponding methods by name")
+            {
+                @Override
+                protected void search(IProgressMonitor monitor)
+                {
+                    addMethods(typeFacade.getCorrespondingMethodsInClasses(currentMethod, searchedClasses));
+                }
+            });
+        }
+        if(request.getMethodSearchMode().searchByCall)
+        {
+            schedule(new SearchJob("Searching corresponding methods by call")
+            {
+                @Override
+                protected void search(IProgressMonitor monitor)
+                {
+                    addMethods(typeFacade.getCallRelationshipFinder(currentMethod, searchedClasses).getMatches(monitor));
+                }
+            });
+        }
+    }
+
+    private void addMethods(Collection<IMethod> foundMethods)
+    {
+        synchronized (this)
+        {
+            if(canceled)
+            {
+                throw new OperationCanceledException();
+            }
+            methods.addAll(foundMethods);
+        }
+    }
+
+    private void schedule(SearchJob job)
+    {
+        synchronized (this)
+        {
+            if(canceled)
+            {
+                return;
+            }
+            runningJobs++;
+        }
+
+        job.addJobChangeListener(new JobChangeAdapter()
+        {
+            @Override
+            public void done(IJobChangeEvent event)
+            {
+                synchronized (CorrespondingMemberSearch.this)
+                {
+                    runningJobs--;
+                    CorrespondingMemberSearch.this.notifyAll();
+                }
+                notifyListeners();
+            }
+        });
+        job.schedule();
+    }
+
+    /**
+     * Cancels the jobs of this search, which results will not change anymore.
+     */
+    void cancel()
+    {
+        synchronized (this)
+        {
+            canceled = true;
+            notifyAll();
+        }
+        Job.getJobManager().cancel(this);
+    }
+
+    synchronized boolean isDone()
+    {
+        return runningJobs == 0;
+    }
+
+    synchronized boolean isCanceled()
+    {
+        return canceled;
+    }
+
+    synchronized boolean isPerfectMatch()
+    {
+        return perfectMatches;
+    }
+
+    synchronized Collection<IType> getClasses()
+    {
+        return classes == null ? Collections.<IType> emptySet() : new ArrayList<IType>(classes);
+    }
+
+    synchronized Collection<IMethod> getMethods()
+    {
+        return new ArrayList<IMethod>(methods);
+    }
+
+    /**
+     * Registers a listener that will be notified, from any thread, each time
+     * the results of this search change and when it completes.
+     */
+    synchronized void addListener(Runnable listener)
+    {
+        listeners.add(listener);
+    }
+
+    private void notifyListeners()
+    {
+        List<Runnable> listenersToNotify;
+        synchronized (this)
+        {
+            listenersToNotify = new ArrayList<Runnable>(listeners);
+        }
+        for (Runnable listener : listenersToNotify)
+        {
+            listener.run();
+        }
+    }
+
+    /**
+     * Waits until this search completes, or until the given delay expires
+     * while at least the given number of methods has been found. If the given
+     * monitor is canceled, this search is canceled too. This method blocks:
+     * from the UI thread, it should be run by the progress service.
+     */
+    void await(long delayInMillis, int minMethodCount, IProgressMonitor monitor)
+    {
+        long deadline = System.currentTimeMillis() + delayInMillis;
+        monitor.beginTask("Searching corresponding members", IProgressMonitor.UNKNOWN);
+        try
+        {
+            while (! isDone() && ! isCanceled())
+            {
+                if(monitor.isCanceled())
+                {
+                    cancel();
+                    return;
+                }
+                if(System.currentTimeMillis() >= deadline && getMethodCount() >= minMethodCount)
+                {
+                    return;
+                }
+                waitForChange(deadline);
+            }
+        }
+        finally
+        {
+            monitor.done();
+        }
+    }
+
+    private synchronized int getMethodCount()
+    {
+        return methods.size();
+    }
+
+    private synchronized void waitForChange(long deadline)
+    {
+        try
+        {
+            wait(Math.max(10, Math.min(100, deadline - System.currentTimeMillis())));
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            canceled = true;
+        }
+    }
+
+    private abstract class SearchJob extends Job
+    {
+        SearchJob(String name)
+        {
+            super(name);
+            setPriority(Job.INTERACTIVE);
+        }
+
+        @Override
+        public boolean belongsTo(Object family)
+        {
+            return family == CorrespondingMemberSearch.this;
+        }
+
+        @Override
+        protected IStatus run(IProgressMonitor monitor)
+        {
+            try
+            {
+                if(monitor.isCanceled() || isCanceled())
+                {
+                    return Status.CANCEL_STATUS;
+                }
+                search(monitor);
+                return Status.OK_STATUS;
+            }
+            catch (OperationCanceledException e)
+            {
+                return Status.CANCEL_STATUS;
+            }
+            finally
+            {
+                monitor.done();
+            }
+        }
+
+        protected abstract void search(IProgressMonitor monitor);
+    }
+}
@@ -6,6 +6,7 @@ package org.moreunit.elements;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IMethod;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaModelException;
@@ -13,11 +14,13 @@ import org.eclipse.jdt.core.Signature;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.FieldDeclaration;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
 import org.eclipse.jdt.core.dom.Modifier;
 import org.eclipse.jdt.core.dom.SingleVariableDeclaration;
 import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
+import org.eclipse.jdt.ui.SharedASTProvider;
 import org.moreunit.core.util.StringConstants;
 import org.moreunit.util.MoreUnitContants;
 
@@ -34,9 +37,23 @@ public class FilterMethodVisitor extends ASTVisitor
 
     public FilterMethodVisitor(IType classType)
     {
+        getAST(classType.getCompilationUnit()).accept(this);
+    }
+
+    /**
+     * Returns the AST shared with the Java editor if the given compilation unit
+     * is the one of the active editor and its AST is available, or parses it
+     * otherwise.
+     */
+    private static CompilationUnit getAST(ICompilationUnit compilationUnit)
+    {
+        CompilationUnit sharedAST = SharedASTProvider.getAST(compilationUnit, SharedASTProvider.WAIT_NO, null);
+        if(sharedAST != null)
+            return sharedAST;
+
         ASTParser parser = ASTParser.newParser(AST.JLS3);
-        parser.setSource(classType.getCompilationUnit());
-        parser.createAST(null).accept(this);
+        parser.setSource(compilationUnit);
+        return (CompilationUnit) parser.createAST(null);
     }
 
     @Override
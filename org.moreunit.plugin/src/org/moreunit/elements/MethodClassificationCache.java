@@ -0,0 +1,201 @@
+package org.moreunit.elements;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaModelException;
+import org.moreunit.core.util.LRUCache;
+import org.moreunit.log.LogHandler;
+
+/**
+ * Caches, for each class under test, which of its methods are private,
+ * getters or setters, so that the Missing Test Methods view can be filtered
+ * without parsing the class again. Entries are invalidated by Java element
+ * deltas.
+ */
+public class MethodClassificationCache implements IElementChangedListener
+{
+    private static final int MAX_CACHED_TYPES = 50;
+
+    private static final int PRIVATE = 1;
+    private static final int GETTER = 1 << 1;
+    private static final int SETTER = 1 << 2;
+
+    private static final MethodClassificationCache instance = new MethodClassificationCache();
+
+    /*
+     * Guarded by itself. Kinds of the methods of a type, by handle identifier
+     * of the type and then of the method.
+     */
+    private final Map<String, Map<String, Integer>> methodKindsByType = new LRUCache<String, Map<String, Integer>>(MAX_CACHED_TYPES);
+    /**
+     * Incremented on each invalidation, so that results computed while the
+     * Java model was changing are not cached. Guarded by methodKindsByType.
+     */
+    private long modificationCount;
+
+    public static MethodClassificationCache getInstance()
+    {
+        return instance;
+    }
+
+    protected MethodClassificationCache()
+    {
+    }
+
+    public boolean isPrivateMethod(IMethod method)
+    {
+        return hasKind(method, PRIVATE);
+    }
+
+    public boolean isGetterOrSetterMethod(IMethod method)
+    {
+        return hasKind(method, GETTER | SETTER);
+    }
+
+    private boolean hasKind(IMethod method, int kind)
+    {
+        Integer methodKind = getMethodKinds(method.getDeclaringType()).get(method.getHandleIdentifier());
+        return methodKind != null && (methodKind & kind) != 0;
+    }
+
+    private Map<String, Integer> getMethodKinds(IType type)
+    {
+        String key = type.getHandleIdentifier();
+        long initialModificationCount;
+        synchronized (methodKindsByType)
+        {
+            Map<String, Integer> methodKinds = methodKindsByType.get(key);
+            if(methodKinds != null)
+            {
+                return methodKinds;
+            }
+            initialModificationCount = modificationCount;
+        }
+
+        Map<String, Integer> methodKinds = classifyMethods(type);
+        if(methodKinds == null)
+        {
+            // not cached, so that the classification is attempted again
+            return Collections.emptyMap();
+        }
+
+        synchronized (methodKindsByType)
+        {
+            if(initialModificationCount == modificationCount)
+            {
+                methodKindsByType.put(key, methodKinds);
+            }
+        }
+        return methodKinds;
+    }
+
+    /**
+     * Returns the kinds of the methods of the given type, or null if the type
+     * could not be read.
+     */
+    private Map<String, Integer> classifyMethods(IType type)
+    {
+        Map<String, Integer> methodKinds = new HashMap<String, Integer>();
+        try
+        {
+            // the visitor is not kept, so that the AST can be garbage collected
+            FilterMethodVisitor visitor = new FilterMethodVisitor(type);
+            for (IMethod method : type.getMethods())
+            {
+                int kind = 0;
+                if(visitor.isPrivateMethod(method))
+                    kind |= PRIVATE;
+                if(visitor.isGetterMethod(method))
+                    kind |= GETTER;
+                if(visitor.isSetterMethod(method))
+                    kind |= SETTER;
+
+                methodKinds.put(method.getHandleIdentifier(), kind);
+            }
+        }
+        catch (JavaModelException e)
+        {
+            LogHandler.getInstance().handleExceptionLog(e);
+            return null;
+        }
+        return methodKinds;
+    }
+
+    public void clear()
+    {
+        synchronized (methodKindsByType)
+        {
+            modificationCount++;
+            methodKindsByType.clear();
+        }
+    }
+
+    public void elementChanged(ElementChangedEvent event)
+    {
+        processDelta(event.getDelta());
+    }
+
+    private void processDelta(IJavaElementDelta delta)
+    {
+        IJavaElement element = delta.getElement();
+        switch (element.getElementType())
+        {
+        case IJavaElement.JAVA_MODEL:
+            processChildren(delta);
+            break;
+        case IJavaElement.JAVA_PROJECT:
+        case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+        case IJavaElement.PACKAGE_FRAGMENT:
+            if(delta.getKind() == IJavaElementDelta.CHANGED)
+            {
+                processChildren(delta);
+            }
+            else
+            {
+                invalidate(element.getHandleIdentifier());
+            }
+            break;
+        case IJavaElement.COMPILATION_UNIT:
+            invalidate(element.getHandleIdentifier());
+            break;
+        default:
+            break;
+        }
+    }
+
+    private void processChildren(IJavaElementDelta delta)
+    {
+        for (IJavaElementDelta child : delta.getAffectedChildren())
+        {
+            processDelta(child);
+        }
+    }
+
+    /**
+     * Removes the method kinds of the types contained in the element having
+     * the given handle identifier.
+     */
+    private void invalidate(String containerHandle)
+    {
+        synchronized (methodKindsByType)
+        {
+            modificationCount++;
+            for (Iterator<String> it = methodKindsByType.keySet().iterator(); it.hasNext();)
+            {
+                if(it.next().startsWith(containerHandle))
+                {
+                    it.remove();
+                }
+            }
+        }
+    }
+}
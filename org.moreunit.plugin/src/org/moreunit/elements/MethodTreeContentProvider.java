@@ -4,56 +4,70 @@
 package org.moreunit.elements;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
 import org.eclipse.jdt.core.IMethod;
 import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jface.viewers.ITreeContentProvider;
+import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.swt.widgets.Display;
+import org.moreunit.log.LogHandler;
 import org.moreunit.preferences.Preferences;
 import org.moreunit.preferences.Preferences.MethodSearchMode;
-import org.moreunit.ui.MethodPage;
 
 /**
+ * Provides the methods of a class that have no test method. They are searched
+ * in a background job, which is notified of the changes to the class and to
+ * its test cases by Java element deltas: only the methods that may be
+ * affected by a change are evaluated again, and the viewer is updated by
+ * adding and removing elements rather than being refreshed.
+ *
  * @author vera
  */
-public class MethodTreeContentProvider implements ITreeContentProvider
+public class MethodTreeContentProvider implements ITreeContentProvider, IElementChangedListener
 {
-    IType classType;
-    List<IMethod> methods = new ArrayList<IMethod>();
+    private static final long UPDATE_DELAY = 300;
+
+    private final IType classType;
+
+    /*
+     * Only accessed from the UI thread. All untested methods, and the ones
+     * currently shown by the viewer (that is to say, not filtered).
+     */
+    private final List<IMethod> methods = new ArrayList<IMethod>();
+    private final Set<IMethod> shownMethods = new HashSet<IMethod>();
+    private TreeViewer treeViewer;
+
     private boolean isPrivateFiltered = false;
     private boolean isGetterFiltered = false;
 
+    private final UpdateJob updateJob = new UpdateJob();
+
     public MethodTreeContentProvider(IType javaFileFile)
     {
         this.classType = javaFileFile;
-        resetMethods(javaFileFile);
-    }
-
-    private void resetMethods(IType javaFileFile)
-    {
-        methods = new ArrayList<IMethod>();
-        if(javaFileFile == null || TypeFacade.isTestCase(javaFileFile))
+        if(javaFileFile != null && ! TypeFacade.isTestCase(javaFileFile))
         {
-            return;
-        }
-
-        MethodSearchMode searchMode = Preferences.forProject(javaFileFile.getJavaProject()).getMethodSearchMode();
-        try
-        {
-            ClassTypeFacade typeFacade = new ClassTypeFacade(javaFileFile.getCompilationUnit());
-            IMethod[] allMethods = javaFileFile.getMethods();
-
-            for (IMethod method : allMethods)
-            {
-                if(typeFacade.getCorrespondingTestMethods(method, searchMode).size() == 0)
-                    methods.add(method);
-            }
-        }
-        catch (JavaModelException e)
-        {
-            methods = new ArrayList<IMethod>();
+            JavaCore.addElementChangedListener(this, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+            updateJob.checkAllMethods();
         }
     }
 
@@ -74,68 +88,398 @@ public class MethodTreeContentProvider implements ITreeContentProvider
 
     public Object[] getElements(Object inputElement)
     {
-        if(inputElement instanceof MethodPage)
-            resetMethods(((MethodPage) inputElement).getInputType());
-
-        List<IMethod> resultMethodList = new ArrayList<IMethod>();
-        if(isPrivateFiltered)
-            resultMethodList.addAll(filterPrivateMethods(methods));
-        else
-            resultMethodList.addAll(methods);
-
-        if(isGetterFiltered)
+        shownMethods.clear();
+        for (IMethod method : methods)
         {
-            return filterGetterAndSetter(resultMethodList).toArray();
+            if(! isFiltered(method))
+                shownMethods.add(method);
         }
 
+        List<IMethod> resultMethodList = new ArrayList<IMethod>(methods);
+        resultMethodList.retainAll(shownMethods);
         return resultMethodList.toArray();
     }
 
     public void dispose()
     {
-        methods = null;
+        JavaCore.removeElementChangedListener(this);
+        updateJob.cancel();
+        treeViewer = null;
     }
 
     public void inputChanged(Viewer viewer, Object oldInput, Object newInput)
     {
+        // a null input is given when this provider is replaced by another one
+        treeViewer = newInput == null ? null : (TreeViewer) viewer;
     }
 
-    private List<IMethod> filterPrivateMethods(List<IMethod> methodList)
+    private boolean isFiltered(IMethod method)
     {
-        List<IMethod> resultList = new ArrayList<IMethod>();
-        FilterMethodVisitor privateMethodVisitor = new FilterMethodVisitor(classType);
+        MethodClassificationCache classifications = MethodClassificationCache.getInstance();
+        return (isPrivateFiltered && classifications.isPrivateMethod(method)) || (isGetterFiltered && classifications.isGetterOrSetterMethod(method));
+    }
+
+    public void setPrivateFiltered(boolean isPrivateFiltered)
+    {
+        this.isPrivateFiltered = isPrivateFiltered;
+    }
+
+    public void setGetterFiltered(boolean isGetterFiltered)
+    {
+        this.isGetterFiltered = isGetterFiltered;
+    }
+
+    public void elementChanged(ElementChangedEvent event)
+    {
+        processDelta(event.getDelta());
+    }
 
-        for (IMethod method : methodList)
+    private void processDelta(IJavaElementDelta delta)
+    {
+        switch (delta.getElement().getElementType())
         {
-            if(! privateMethodVisitor.isPrivateMethod(method))
-                resultList.add(method);
+        case IJavaElement.JAVA_MODEL:
+        case IJavaElement.JAVA_PROJECT:
+        case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+        case IJavaElement.PACKAGE_FRAGMENT:
+            if(delta.getKind() == IJavaElementDelta.CHANGED)
+            {
+                processChildren(delta);
+            }
+            else
+            {
+                updateJob.checkAllMethods();
+            }
+            break;
+        case IJavaElement.COMPILATION_UNIT:
+            processCompilationUnitDelta(delta, (ICompilationUnit) delta.getElement());
+            break;
+        default:
+            break;
         }
+    }
 
-        return resultList;
+    private void processChildren(IJavaElementDelta delta)
+    {
+        for (IJavaElementDelta child : delta.getAffectedChildren())
+        {
+            processDelta(child);
+        }
     }
 
-    private List<IMethod> filterGetterAndSetter(List<IMethod> methodList)
+    private void processCompilationUnitDelta(IJavaElementDelta delta, ICompilationUnit compilationUnit)
     {
-        List<IMethod> resultList = new ArrayList<IMethod>();
-        FilterMethodVisitor getterMethodVisitor = new FilterMethodVisitor(classType);
+        if(compilationUnit.getOwner() != null)
+        {
+            // neither a primary compilation unit nor the working copy of an
+            // editor
+            return;
+        }
 
-        for (IMethod method : methodList)
+        boolean isClassUnderTest = compilationUnit.equals(classType.getCompilationUnit());
+        if(delta.getKind() != IJavaElementDelta.CHANGED)
         {
-            if(! getterMethodVisitor.isGetterMethod(method) && ! getterMethodVisitor.isSetterMethod(method))
-                resultList.add(method);
+            // a test case name contains the name of the class it tests
+            if(isClassUnderTest || JavaCore.removeJavaLikeExtension(compilationUnit.getElementName()).contains(classType.getElementName()))
+            {
+                updateJob.checkAllMethods();
+            }
+            return;
+        }
+
+        if(! isClassUnderTest && ! updateJob.isTestCase(compilationUnit))
+        {
+            return;
         }
 
-        return resultList;
+        int flags = delta.getFlags();
+        if((flags & IJavaElementDelta.F_FINE_GRAINED) != 0)
+        {
+            if(isClassUnderTest)
+            {
+                processClassUnderTestChildren(delta);
+            }
+            else
+            {
+                Set<String> testMethodNames = new HashSet<String>();
+                collectMethodNames(delta, testMethodNames);
+                updateJob.checkTestMethods(testMethodNames);
+            }
+        }
+        else if((flags & IJavaElementDelta.F_PRIMARY_RESOURCE) != 0)
+        {
+            // a working copy has been saved: its changes have already been
+            // reported when it was reconciled
+        }
+        else if((flags & IJavaElementDelta.F_CONTENT) != 0)
+        {
+            updateJob.checkAllMethods();
+        }
     }
 
-    public void setPrivateFiltered(boolean isPrivateFiltered)
+    private void processClassUnderTestChildren(IJavaElementDelta compilationUnitDelta)
     {
-        this.isPrivateFiltered = isPrivateFiltered;
+        for (IJavaElementDelta typeDelta : compilationUnitDelta.getAffectedChildren())
+        {
+            if(! classType.equals(typeDelta.getElement().getPrimaryElement()))
+            {
+                continue;
+            }
+
+            if(typeDelta.getKind() != IJavaElementDelta.CHANGED)
+            {
+                updateJob.checkAllMethods();
+                return;
+            }
+
+            List<IMethod> changedMethods = new ArrayList<IMethod>();
+            for (IJavaElementDelta memberDelta : typeDelta.getAffectedChildren())
+            {
+                if(memberDelta.getElement().getElementType() == IJavaElement.METHOD)
+                {
+                    changedMethods.add((IMethod) memberDelta.getElement().getPrimaryElement());
+                }
+            }
+            updateJob.checkMethods(changedMethods);
+        }
     }
 
-    public void setGetterFiltered(boolean isGetterFiltered)
+    private static void collectMethodNames(IJavaElementDelta delta, Set<String> methodNames)
     {
-        this.isGetterFiltered = isGetterFiltered;
+        for (IJavaElementDelta child : delta.getAffectedChildren())
+        {
+            if(child.getElement().getElementType() == IJavaElement.METHOD)
+            {
+                methodNames.add(child.getElement().getElementName());
+            }
+            else
+            {
+                collectMethodNames(child, methodNames);
+            }
+        }
     }
 
+    /**
+     * Adds and removes elements from the viewer, in the UI thread. When all
+     * methods have been evaluated, the ones that are not listed anymore are
+     * removed too.
+     */
+    private void publish(final Collection<IMethod> untestedMethods, final Collection<IMethod> testedMethods, final boolean allMethodsEvaluated)
+    {
+        if(untestedMethods.isEmpty() && testedMethods.isEmpty() && ! allMethodsEvaluated)
+        {
+            return;
+        }
+
+        Display.getDefault().asyncExec(new Runnable()
+        {
+            public void run()
+            {
+                if(treeViewer != null && treeViewer.getControl().isDisposed())
+                {
+                    return;
+                }
+
+                Set<IMethod> methodsToRemove = new LinkedHashSet<IMethod>(testedMethods);
+                if(allMethodsEvaluated)
+                {
+                    for (IMethod method : methods)
+                    {
+                        if(! untestedMethods.contains(method))
+                            methodsToRemove.add(method);
+                    }
+                }
+
+                List<IMethod> elementsToRemove = new ArrayList<IMethod>();
+                for (IMethod method : methodsToRemove)
+                {
+                    methods.remove(method);
+                    if(shownMethods.remove(method))
+                        elementsToRemove.add(method);
+                }
+
+                // the kind of a method may have changed, hence whether it is
+                // filtered or not
+                List<IMethod> elementsToAdd = new ArrayList<IMethod>();
+                for (IMethod method : untestedMethods)
+                {
+                    if(! methods.contains(method))
+                        methods.add(method);
+
+                    if(isFiltered(method))
+                    {
+                        if(shownMethods.remove(method))
+                            elementsToRemove.add(method);
+                    }
+                    else if(shownMethods.add(method))
+                    {
+                        elementsToAdd.add(method);
+                    }
+                }
+
+                if(treeViewer == null)
+                {
+                    // the viewer will ask for its elements once its input is set
+                    return;
+                }
+
+                if(! elementsToRemove.isEmpty())
+                    treeViewer.remove(elementsToRemove.toArray());
+                if(! elementsToAdd.isEmpty())
+                    treeViewer.add(treeViewer.getInput(), elementsToAdd.toArray());
+            }
+        });
+    }
+
+    private class UpdateJob extends Job
+    {
+        /*
+         * Guarded by this job.
+         */
+        private boolean allMethodsPending;
+        private final Set<IMethod> pendingMethods = new LinkedHashSet<IMethod>();
+        private final Set<String> pendingTestMethodNames = new HashSet<String>();
+        private Set<ICompilationUnit> testCases = Collections.emptySet();
+
+        UpdateJob()
+        {
+            super("Searching methods without tests");
+            setSystem(true);
+        }
+
+        /**
+         * The jobs of a provider belong to the family of this provider, so that
+         * one may wait for its updates.
+         */
+        @Override
+        public boolean belongsTo(Object family)
+        {
+            return family == MethodTreeContentProvider.this;
+        }
+
+        synchronized boolean isTestCase(ICompilationUnit compilationUnit)
+        {
+            return testCases.contains(compilationUnit);
+        }
+
+        synchronized void checkAllMethods()
+        {
+            allMethodsPending = true;
+            schedule(UPDATE_DELAY);
+        }
+
+        synchronized void checkMethods(Collection<IMethod> methods)
+        {
+            if(! methods.isEmpty())
+            {
+                pendingMethods.addAll(methods);
+                schedule(UPDATE_DELAY);
+            }
+        }
+
+        synchronized void checkTestMethods(Collection<String> testMethodNames)
+        {
+            if(! testMethodNames.isEmpty())
+            {
+                pendingTestMethodNames.addAll(testMethodNames);
+                schedule(UPDATE_DELAY);
+            }
+        }
+
+        private synchronized void setTestCases(Set<ICompilationUnit> compilationUnits)
+        {
+            testCases = compilationUnits;
+        }
+
+        @Override
+        protected IStatus run(IProgressMonitor monitor)
+        {
+            boolean checkAll;
+            Set<IMethod> methodsToCheck;
+            Set<String> testMethodNames;
+            synchronized (this)
+            {
+                checkAll = allMethodsPending;
+                methodsToCheck = new LinkedHashSet<IMethod>(pendingMethods);
+                testMethodNames = new HashSet<String>(pendingTestMethodNames);
+                allMethodsPending = false;
+                pendingMethods.clear();
+                pendingTestMethodNames.clear();
+            }
+
+            try
+            {
+                ClassTypeFacade typeFacade = new ClassTypeFacade(classType.getCompilationUnit());
+                MethodSearchMode searchMode = Preferences.forProject(classType.getJavaProject()).getMethodSearchMode();
+
+                if(checkAll)
+                {
+                    Set<ICompilationUnit> compilationUnits = new HashSet<ICompilationUnit>();
+                    for (IType testCase : typeFacade.getCorrespondingTestCases())
+                    {
+                        compilationUnits.add(testCase.getCompilationUnit());
+                    }
+                    setTestCases(compilationUnits);
+                }
+
+                IMethod[] allMethods = classType.exists() ? classType.getMethods() : new IMethod[0];
+                if(checkAll || (! testMethodNames.isEmpty() && searchMode.searchByCall))
+                {
+                    // any method may be called by a changed test method
+                    methodsToCheck.addAll(Arrays.asList(allMethods));
+                }
+                else if(! testMethodNames.isEmpty())
+                {
+                    // the name of a test method contains the name of the
+                    // method it tests
+                    for (IMethod method : allMethods)
+                    {
+                        if(isContainedInAny(method.getElementName(), testMethodNames))
+                            methodsToCheck.add(method);
+                    }
+                }
+
+                monitor.beginTask("Searching methods without tests in " + classType.getElementName(), methodsToCheck.size());
+
+                List<IMethod> untestedMethods = new ArrayList<IMethod>();
+                List<IMethod> testedMethods = new ArrayList<IMethod>();
+                for (IMethod method : methodsToCheck)
+                {
+                    if(monitor.isCanceled())
+                    {
+                        return Status.CANCEL_STATUS;
+                    }
+
+                    if(method.exists() && typeFacade.getCorrespondingTestMethods(method, searchMode).isEmpty())
+                        untestedMethods.add(method);
+                    else
+                        testedMethods.add(method);
+                    monitor.worked(1);
+                }
+
+                publish(untestedMethods, testedMethods, checkAll);
+                return Status.OK_STATUS;
+            }
+            catch (JavaModelException e)
+            {
+                LogHandler.getInstance().handleExceptionLog(e);
+                return Status.OK_STATUS;
+            }
+            finally
+            {
+                monitor.done();
+            }
+        }
+
+        private boolean isContainedInAny(String methodName, Collection<String> testMethodNames)
+        {
+            String lowerCaseMethodName = methodName.toLowerCase();
+            for (String testMethodName : testMethodNames)
+            {
+                if(testMethodName.toLowerCase().contains(lowerCaseMethodName))
+                    return true;
+            }
+            return false;
+        }
+    }
 }
@@ -1,25 +1,57 @@
 package org.moreunit.elements;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jface.viewers.ITreeContentProvider;
+import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.jface.viewers.Viewer;
-import org.moreunit.ui.MissingTestsViewPart;
+import org.eclipse.swt.widgets.Display;
+import org.moreunit.log.LogHandler;
+import org.moreunit.matching.CorrespondingTypeIndex;
 import org.moreunit.util.PluginTools;
 
+/**
+ * Provides the classes of a project that have no test case. They are searched
+ * in a background job that adds them to the viewer by batches, and only the
+ * compilation units touched by a change are evaluated again afterward.
+ */
 public class MissingClassTreeContentProvider implements ITreeContentProvider
 {
-    
+    private static final int BATCH_SIZE = 20;
+
+    /*
+     * Only accessed from the UI thread.
+     */
+    private final List<ICompilationUnit> elements = new ArrayList<ICompilationUnit>();
+    private TreeViewer treeViewer;
+
+    /**
+     * Incremented each time a new project is scanned, so that results of
+     * previous scans are discarded.
+     */
+    private volatile int generation;
+
+    private final ScanJob scanJob = new ScanJob();
+
     public MissingClassTreeContentProvider()
     {
-        
+
     }
 
     public Object[] getChildren(Object arg0)
@@ -39,47 +71,271 @@ public class MissingClassTreeContentProvider implements ITreeContentProvider
 
     public Object[] getElements(Object inputElement)
     {
-        List<Object> elements = new ArrayList<Object>();
+        return elements.toArray();
+    }
 
-        if(inputElement instanceof MissingTestsViewPart)
+    /**
+     * Clears the viewer and starts searching, in the background, the classes
+     * of the given project having no test case. Must be called from the UI
+     * thread.
+     */
+    public void scan(IJavaProject javaProject)
+    {
+        generation++;
+        elements.clear();
+        if(treeViewer != null)
         {
-            IJavaProject javaProject = ((MissingTestsViewPart) inputElement).getSelectedJavaProject();
-            if(javaProject != null)
+            treeViewer.refresh();
+        }
+        scanJob.scanProject(javaProject, generation);
+    }
+
+    /**
+     * Evaluates again, in the background, the given compilation units as well
+     * as the ones that may be tested by them. May be called from any thread.
+     */
+    public void update(Collection<ICompilationUnit> touchedCompilationUnits)
+    {
+        scanJob.updateCompilationUnits(touchedCompilationUnits);
+    }
+
+    public void inputChanged(Viewer viewer, Object oldInput, Object newInput)
+    {
+        treeViewer = (TreeViewer) viewer;
+    }
+
+    public void dispose()
+    {
+        scanJob.cancel();
+        treeViewer = null;
+    }
+
+    private static boolean isMissingTestCase(ICompilationUnit compilationUnit)
+    {
+        return ! TypeFacade.isTestCase(compilationUnit) && ! CorrespondingTypeIndex.getInstance().hasTestCase(compilationUnit);
+    }
+
+    private static List<ICompilationUnit> getCompilationUnits(IJavaProject javaProject)
+    {
+        List<ICompilationUnit> result = new ArrayList<ICompilationUnit>();
+        for (IPackageFragmentRoot sourceFolder : PluginTools.getAllSourceFolderFromProject(javaProject))
+        {
+            try
             {
-                List<IPackageFragmentRoot> allSourceFolderFromProject = PluginTools.getAllSourceFolderFromProject(javaProject);
-                for (IPackageFragmentRoot sourceFolder : allSourceFolderFromProject)
+                for (IJavaElement javaPackage : sourceFolder.getChildren())
                 {
-                    try
-                    {
-                        IJavaElement[] children = sourceFolder.getChildren();
-                        for (IJavaElement javaPackage : children)
-                        {
-                            ICompilationUnit[] compilationUnits = ((IPackageFragment) javaPackage).getCompilationUnits();
-                            for (ICompilationUnit compilationUnit : compilationUnits)
-                            {
-                                ClassTypeFacade classTypeFacade = new ClassTypeFacade(compilationUnit);
-                                if(!TypeFacade.isTestCase(compilationUnit) && !classTypeFacade.hasTestCase())
-                                    elements.add(compilationUnit);
-                            }
-                        }
-                    }
-                    catch (JavaModelException e)
-                    {
-                        e.printStackTrace();
-                    }
+                    Collections.addAll(result, ((IPackageFragment) javaPackage).getCompilationUnits());
                 }
             }
+            catch (JavaModelException e)
+            {
+                LogHandler.getInstance().handleExceptionLog(e);
+            }
         }
-
-        return elements.toArray();
+        return result;
     }
 
-    public void inputChanged(Viewer arg0, Object arg1, Object arg2)
+    private static String getTypeName(ICompilationUnit compilationUnit)
     {
+        return JavaCore.removeJavaLikeExtension(compilationUnit.getElementName());
     }
 
-    public void dispose()
+    /**
+     * Adds and removes elements from the viewer, in the UI thread, unless
+     * another scan has been started in the meantime.
+     */
+    private void publish(final int scanGeneration, final Collection<ICompilationUnit> elementsToAdd, final Collection<ICompilationUnit> elementsToRemove)
     {
+        if(elementsToAdd.isEmpty() && elementsToRemove.isEmpty())
+        {
+            return;
+        }
+
+        Display.getDefault().asyncExec(new Runnable()
+        {
+            public void run()
+            {
+                if(scanGeneration != generation || treeViewer == null || treeViewer.getControl().isDisposed())
+                {
+                    return;
+                }
+
+                if(! elementsToRemove.isEmpty())
+                {
+                    elements.removeAll(elementsToRemove);
+                    treeViewer.remove(elementsToRemove.toArray());
+                }
+
+                List<ICompilationUnit> newElements = new ArrayList<ICompilationUnit>();
+                for (ICompilationUnit element : elementsToAdd)
+                {
+                    if(! elements.contains(element))
+                    {
+                        newElements.add(element);
+                    }
+                }
+                if(! newElements.isEmpty())
+                {
+                    elements.addAll(newElements);
+                    treeViewer.add(treeViewer.getInput(), newElements.toArray());
+                }
+            }
+        });
     }
 
+    private class ScanJob extends Job
+    {
+        /*
+         * Guarded by this job.
+         */
+        private IJavaProject javaProject;
+        private int scanGeneration;
+        private boolean projectScanPending;
+        private final Set<ICompilationUnit> pendingCompilationUnits = new LinkedHashSet<ICompilationUnit>();
+
+        ScanJob()
+        {
+            super("Searching classes without tests");
+        }
+
+        @Override
+        public boolean belongsTo(Object family)
+        {
+            return family == MissingClassTreeContentProvider.this;
+        }
+
+        synchronized void scanProject(IJavaProject project, int newGeneration)
+        {
+            cancel();
+            javaProject = project;
+            scanGeneration = newGeneration;
+            projectScanPending = project != null;
+            pendingCompilationUnits.clear();
+            if(projectScanPending)
+            {
+                schedule();
+            }
+        }
+
+        synchronized void updateCompilationUnits(Collection<ICompilationUnit> compilationUnits)
+        {
+            if(javaProject == null)
+            {
+                return;
+            }
+            pendingCompilationUnits.addAll(compilationUnits);
+            schedule();
+        }
+
+        @Override
+        protected IStatus run(IProgressMonitor monitor)
+        {
+            IJavaProject project;
+            int currentGeneration;
+            boolean scanWholeProject;
+            List<ICompilationUnit> compilationUnits;
+            synchronized (this)
+            {
+                project = javaProject;
+                currentGeneration = scanGeneration;
+                scanWholeProject = projectScanPending;
+                compilationUnits = new ArrayList<ICompilationUnit>(pendingCompilationUnits);
+                projectScanPending = false;
+                pendingCompilationUnits.clear();
+            }
+
+            if(project == null)
+            {
+                return Status.OK_STATUS;
+            }
+
+            try
+            {
+                if(scanWholeProject)
+                {
+                    return scan(project, currentGeneration, monitor);
+                }
+                return update(project, compilationUnits, currentGeneration, monitor);
+            }
+            finally
+            {
+                monitor.done();
+            }
+        }
+
+        private IStatus scan(IJavaProject project, int currentGeneration, IProgressMonitor monitor)
+        {
+            List<ICompilationUnit> compilationUnits = getCompilationUnits(project);
+            monitor.beginTask("Searching classes without tests in " + project.getElementName(), compilationUnits.size());
+
+            List<ICompilationUnit> batch = new ArrayList<ICompilationUnit>();
+            for (ICompilationUnit compilationUnit : compilationUnits)
+            {
+                if(monitor.isCanceled())
+                {
+                    return Status.CANCEL_STATUS;
+                }
+
+                monitor.subTask(compilationUnit.getElementName());
+                if(isMissingTestCase(compilationUnit))
+                {
+                    batch.add(compilationUnit);
+                    if(batch.size() == BATCH_SIZE)
+                    {
+                        publish(currentGeneration, batch, Collections.<ICompilationUnit> emptyList());
+                        batch = new ArrayList<ICompilationUnit>();
+                    }
+                }
+                monitor.worked(1);
+            }
+
+            publish(currentGeneration, batch, Collections.<ICompilationUnit> emptyList());
+            return Status.OK_STATUS;
+        }
+
+        private IStatus update(IJavaProject project, List<ICompilationUnit> touchedCompilationUnits, int currentGeneration, IProgressMonitor monitor)
+        {
+            // a test case name contains the name of the class it tests, hence
+            // the classes that may have gained or lost a test case are those
+            // which name is contained in the name of a touched unit
+            Set<ICompilationUnit> compilationUnits = new LinkedHashSet<ICompilationUnit>(touchedCompilationUnits);
+            for (ICompilationUnit compilationUnit : getCompilationUnits(project))
+            {
+                String typeName = getTypeName(compilationUnit);
+                for (ICompilationUnit touchedCompilationUnit : touchedCompilationUnits)
+                {
+                    if(getTypeName(touchedCompilationUnit).contains(typeName))
+                    {
+                        compilationUnits.add(compilationUnit);
+                        break;
+                    }
+                }
+            }
+
+            monitor.beginTask("Updating classes without tests in " + project.getElementName(), compilationUnits.size());
+
+            List<ICompilationUnit> elementsToAdd = new ArrayList<ICompilationUnit>();
+            List<ICompilationUnit> elementsToRemove = new ArrayList<ICompilationUnit>();
+            for (ICompilationUnit compilationUnit : compilationUnits)
+            {
+                if(monitor.isCanceled())
+                {
+                    return Status.CANCEL_STATUS;
+                }
+
+                if(compilationUnit.exists() && project.equals(compilationUnit.getJavaProject()) && isMissingTestCase(compilationUnit))
+                {
+                    elementsToAdd.add(compilationUnit);
+                }
+                else
+                {
+                    elementsToRemove.add(compilationUnit);
+                }
+                monitor.worked(1);
+            }
+
+            publish(currentGeneration, elementsToAdd, elementsToRemove);
+            return Status.OK_STATUS;
+        }
+    }
 }
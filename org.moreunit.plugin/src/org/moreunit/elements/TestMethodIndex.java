@@ -0,0 +1,217 @@
+package org.moreunit.elements;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaModelException;
+import org.moreunit.core.util.LRUCache;
+
+/**
+ * Caches, for each test case, the names of its methods sorted
+ * alphabetically, so that looking for the test methods starting with a given
+ * prefix does not require scanning all of them. Entries are invalidated by
+ * Java element deltas.
+ */
+public class TestMethodIndex implements IElementChangedListener
+{
+    private static final int MAX_CACHED_TYPES = 500;
+
+    private static final TestMethodIndex instance = new TestMethodIndex();
+
+    /*
+     * Guarded by itself.
+     */
+    private final Map<String, SortedMethods> methodsByType = new LRUCache<String, SortedMethods>(MAX_CACHED_TYPES);
+    /**
+     * Incremented on each invalidation, so that results computed while the
+     * Java model was changing are not cached. Guarded by methodsByType.
+     */
+    private long modificationCount;
+
+    public static TestMethodIndex getInstance()
+    {
+        return instance;
+    }
+
+    protected TestMethodIndex()
+    {
+    }
+
+    /**
+     * Returns the methods of the given type which name starts with the given
+     * prefix, in declaration order.
+     */
+    public List<IMethod> getMethodsStartingWith(IType type, String prefix) throws JavaModelException
+    {
+        return getSortedMethods(type).startingWith(prefix);
+    }
+
+    private SortedMethods getSortedMethods(IType type) throws JavaModelException
+    {
+        String key = type.getHandleIdentifier();
+        long initialModificationCount;
+        synchronized (methodsByType)
+        {
+            SortedMethods methods = methodsByType.get(key);
+            if(methods != null)
+            {
+                return methods;
+            }
+            initialModificationCount = modificationCount;
+        }
+
+        SortedMethods methods = new SortedMethods(type.getMethods());
+        synchronized (methodsByType)
+        {
+            if(initialModificationCount == modificationCount)
+            {
+                methodsByType.put(key, methods);
+            }
+        }
+        return methods;
+    }
+
+    public void clear()
+    {
+        synchronized (methodsByType)
+        {
+            modificationCount++;
+            methodsByType.clear();
+        }
+    }
+
+    public void elementChanged(ElementChangedEvent event)
+    {
+        processDelta(event.getDelta());
+    }
+
+    private void processDelta(IJavaElementDelta delta)
+    {
+        IJavaElement element = delta.getElement();
+        switch (element.getElementType())
+        {
+        case IJavaElement.JAVA_MODEL:
+            processChildren(delta);
+            break;
+        case IJavaElement.JAVA_PROJECT:
+        case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+        case IJavaElement.PACKAGE_FRAGMENT:
+            if(delta.getKind() == IJavaElementDelta.CHANGED)
+            {
+                processChildren(delta);
+            }
+            else
+            {
+                invalidate(element.getHandleIdentifier());
+            }
+            break;
+        case IJavaElement.COMPILATION_UNIT:
+            invalidate(element.getHandleIdentifier());
+            break;
+        default:
+            break;
+        }
+    }
+
+    private void processChildren(IJavaElementDelta delta)
+    {
+        for (IJavaElementDelta child : delta.getAffectedChildren())
+        {
+            processDelta(child);
+        }
+    }
+
+    /**
+     * Removes the entries of the types contained in the element having the
+     * given handle identifier.
+     */
+    private void invalidate(String containerHandle)
+    {
+        synchronized (methodsByType)
+        {
+            modificationCount++;
+            for (Iterator<String> it = methodsByType.keySet().iterator(); it.hasNext();)
+            {
+                if(it.next().startsWith(containerHandle))
+                {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private static class SortedMethods
+    {
+        private final IMethod[] methods;
+        private final String[] sortedNames;
+        private final Integer[] declarationIndexes;
+
+        SortedMethods(final IMethod[] methods)
+        {
+            this.methods = methods;
+
+            declarationIndexes = new Integer[methods.length];
+            for (int i = 0; i < methods.length; i++)
+            {
+                declarationIndexes[i] = i;
+            }
+            Arrays.sort(declarationIndexes, new Comparator<Integer>()
+            {
+                public int compare(Integer i1, Integer i2)
+                {
+                    return methods[i1].getElementName().compareTo(methods[i2].getElementName());
+                }
+            });
+
+            sortedNames = new String[methods.length];
+            for (int i = 0; i < methods.length; i++)
+            {
+                sortedNames[i] = methods[declarationIndexes[i]].getElementName();
+            }
+        }
+
+        List<IMethod> startingWith(String prefix)
+        {
+            int first = Arrays.binarySearch(sortedNames, prefix);
+            if(first < 0)
+            {
+                first = - first - 1;
+            }
+            else
+            {
+                // several methods may have the same name
+                while (first > 0 && sortedNames[first - 1].equals(prefix))
+                {
+                    first--;
+                }
+            }
+
+            List<Integer> matchingIndexes = new ArrayList<Integer>();
+            for (int i = first; i < sortedNames.length && sortedNames[i].startsWith(prefix); i++)
+            {
+                matchingIndexes.add(declarationIndexes[i]);
+            }
+
+            // preserves declaration order
+            Integer[] indexes = matchingIndexes.toArray(new Integer[matchingIndexes.size()]);
+            Arrays.sort(indexes);
+
+            List<IMethod> result = new ArrayList<IMethod>(indexes.length);
+            for (Integer i : indexes)
+            {
+                result.add(methods[i]);
+            }
+            return result;
+        }
+    }
+}
@@ -1,19 +1,23 @@
 package org.moreunit.elements;
 
+import java.lang.reflect.InvocationTargetException;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedHashSet;
 
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IMember;
 import org.eclipse.jdt.core.IMethod;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jface.operation.IRunnableWithProgress;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.IEditorPart;
+import org.eclipse.ui.PlatformUI;
 import org.moreunit.core.util.StringConstants;
-import org.moreunit.elements.CorrespondingMemberRequest.MemberType;
+import org.moreunit.log.LogHandler;
 import org.moreunit.matching.CorrespondingTypeSearcher;
 import org.moreunit.preferences.Preferences;
 import org.moreunit.preferences.Preferences.ProjectPreferences;
@@ -31,6 +35,13 @@ import org.moreunit.wizards.NewClassyWizard;
  */
 public abstract class TypeFacade
 {
+    /**
+     * Delay after which the results of a search for corresponding members are
+     * displayed even though the search is not complete.
+     */
+    private static final long PARTIAL_RESULTS_DELAY = 500;
+    private static final String SEARCH_IN_PROGRESS_TEXT = "Searching for more members...";
+
     protected final ICompilationUnit compilationUnit;
     protected final TestMethodDivinerFactory testMethodDivinerFactory;
     protected final TestMethodDiviner testMethodDiviner;
@@ -110,33 +121,85 @@ public abstract class TypeFacade
      */
     public IMember getOneCorrespondingMember(CorrespondingMemberRequest request)
     {
-        final Collection<IType> proposedClasses = getCorrespondingClasses(false);
-
-        final OneCorrespondingMemberAction action;
-        if(proposedClasses.isEmpty())
+        CorrespondingMemberSearch search = new CorrespondingMemberSearch(this, request);
+        search.start();
+        try
         {
-            action = getLikelyCorrespondingClass(request);
+            // once several methods are found, the user will have to choose
+            // anyway: the dialog is opened without waiting for the end of the
+            // search, and updated as results arrive
+            await(search);
+            if(search.isCanceled())
+            {
+                return null;
+            }
+
+            final OneCorrespondingMemberAction action;
+            if(! search.isDone())
+            {
+                action = new OpenChoiceDialog(request, search);
+            }
+            else if(search.isPerfectMatch())
+            {
+                action = getPerfectCorrespondingMember(request, search.getClasses(), search.getMethods());
+            }
+            else
+            {
+                action = getLikelyCorrespondingClass(request, search.getClasses());
+            }
+
+            if(action == null)
+            {
+                return null;
+            }
+
+            IMember memberToJump = action.getCorrespondingMember();
+
+            registerJump(request.getCurrentMethod(), memberToJump);
+            return memberToJump;
         }
-        else
+        finally
         {
-            action = getPerfectCorrespondingMember(request, proposedClasses);
+            search.cancel();
         }
+    }
 
-        if(action == null)
+    /**
+     * Waits for the given search. From the UI thread, the wait is done in
+     * another thread by the progress service, which shows a busy cursor, then
+     * a progress dialog allowing to cancel the search if it lasts.
+     */
+    private static void await(final CorrespondingMemberSearch search)
+    {
+        if(Display.getCurrent() == null)
         {
-            return null;
+            search.await(PARTIAL_RESULTS_DELAY, 2, new NullProgressMonitor());
+            return;
         }
 
-        IMember memberToJump = action.getCorrespondingMember();
-
-        registerJump(request.getCurrentMethod(), memberToJump);
-        return memberToJump;
+        try
+        {
+            PlatformUI.getWorkbench().getProgressService().busyCursorWhile(new IRunnableWithProgress()
+            {
+                public void run(IProgressMonitor monitor)
+                {
+                    search.await(PARTIAL_RESULTS_DELAY, 2, monitor);
+                }
+            });
+        }
+        catch (InvocationTargetException e)
+        {
+            LogHandler.getInstance().handleExceptionLog(e.getCause());
+            search.cancel();
+        }
+        catch (InterruptedException e)
+        {
+            search.cancel();
+        }
     }
 
-    private OneCorrespondingMemberAction getPerfectCorrespondingMember(CorrespondingMemberRequest request, Collection<IType> proposedClasses)
+    private OneCorrespondingMemberAction getPerfectCorrespondingMember(CorrespondingMemberRequest request, Collection<IType> proposedClasses, Collection<IMethod> proposedMethods)
     {
-        Collection<IMethod> proposedMethods = findCorrespondingMethodsInClasses(request, proposedClasses);
-
         if(proposedMethods.size() == 1)
         {
             return new ReturnMember(proposedMethods.iterator().next());
@@ -163,32 +226,8 @@ public abstract class TypeFacade
         return null;
     }
 
-    private Collection<IMethod> findCorrespondingMethodsInClasses(CorrespondingMemberRequest request, Collection<IType> classes)
-    {
-        Collection<IMethod> proposedMethods = new LinkedHashSet<IMethod>();
-
-        if(request.shouldReturn(MemberType.TYPE_OR_METHOD))
-        {
-            IMethod currentMethod = request.getCurrentMethod();
-            if(currentMethod != null && ! classes.isEmpty())
-            {
-                if(request.getMethodSearchMode().searchByName)
-                {
-                    proposedMethods.addAll(getCorrespondingMethodsInClasses(currentMethod, classes));
-                }
-                if(request.getMethodSearchMode().searchByCall)
-                {
-                    proposedMethods.addAll(getCallRelationshipFinder(currentMethod, classes).getMatches(new NullProgressMonitor()));
-                }
-            }
-        }
-
-        return proposedMethods;
-    }
-
-    private OneCorrespondingMemberAction getLikelyCorrespondingClass(CorrespondingMemberRequest request)
+    private OneCorrespondingMemberAction getLikelyCorrespondingClass(CorrespondingMemberRequest request, Collection<IType> proposedClasses)
     {
-        Collection<IType> proposedClasses = getCorrespondingClasses(true);
         if(! proposedClasses.isEmpty())
         {
             return new OpenChoiceDialog(request, proposedClasses, false);
@@ -207,11 +246,38 @@ public abstract class TypeFacade
         return getCorrespondingTypeSearcher().getMatches(alsoIncludeLikelyMatches);
     }
 
+    /**
+     * Returns at most the given number of classes likely corresponding to
+     * this type, to be proposed in a dialog.
+     */
+    public final Collection<IType> getLikelyCorrespondingClasses(int maxMatches)
+    {
+        return getCorrespondingTypeSearcher().getLikelyMatches(maxMatches);
+    }
+
+    /**
+     * Returns true if at least one class perfectly corresponds to this type,
+     * without necessarily searching for all of them.
+     */
+    public final boolean hasCorrespondingClass()
+    {
+        return getCorrespondingTypeSearcher().hasPerfectMatch();
+    }
+
     abstract protected MethodCallFinder getCallRelationshipFinder(IMethod method, Collection<IType> searchScope);
 
     abstract protected NewClassyWizard newCorrespondingClassWizard(IType fromType);
 
     private IMember openDialog(CorrespondingMemberRequest request, Collection<IType> proposedClasses, Collection<IMethod> proposedMethods, boolean perfectMatches)
+    {
+        return openDialog(request, proposedClasses, proposedMethods, perfectMatches, null);
+    }
+
+    /**
+     * Opens a dialog proposing the given members. If a search is given, the
+     * dialog is updated with its results until it completes.
+     */
+    private IMember openDialog(CorrespondingMemberRequest request, Collection<IType> proposedClasses, Collection<IMethod> proposedMethods, boolean perfectMatches, final CorrespondingMemberSearch search)
     {
         String promptText = request.getPromptText();
         String infoText = null;
@@ -220,10 +286,15 @@ public abstract class TypeFacade
             promptText = String.format("%s %s%s", promptText, StringConstants.NEWLINE, "We could find the following classes, but their packages do not match:");
             infoText = "Please note that theses classes will not be considered for other MoreUnit features such as test launching or refactoring.";
         }
+        final String completeInfoText = infoText == null ? "" : infoText;
+        if(search != null)
+        {
+            infoText = SEARCH_IN_PROGRESS_TEXT;
+        }
 
         IMember startMember = request.getCurrentMethod() != null ? request.getCurrentMethod() : getType();
         IMember defaultSelection = getDefaultSelection(proposedClasses, proposedMethods, startMember);
-        MemberContentProvider contentProvider = new MemberContentProvider(proposedClasses, proposedMethods, defaultSelection).withAction(new CreateNewClassAction()
+        final MemberContentProvider contentProvider = new MemberContentProvider(proposedClasses, proposedMethods, defaultSelection).withAction(new CreateNewClassAction()
         {
             @Override
             public IType execute()
@@ -232,7 +303,42 @@ public abstract class TypeFacade
             }
         });
 
-        return new ChooseDialog<IMember>(promptText, infoText, contentProvider).getChoice();
+        final ChooseDialog<IMember> dialog = new ChooseDialog<IMember>(promptText, infoText, contentProvider);
+        if(search != null)
+        {
+            final Display display = Display.getDefault();
+            Runnable update = new Runnable()
+            {
+                public void run()
+                {
+                    contentProvider.setMembers(search.getClasses(), search.getMethods());
+                    dialog.refresh();
+                    if(search.isDone())
+                    {
+                        dialog.setInfo(completeInfoText);
+                    }
+                }
+            };
+            search.addListener(asyncRunnable(display, update));
+            // the search may have progressed since the members were read
+            update.run();
+        }
+
+        return dialog.getChoice();
+    }
+
+    private static Runnable asyncRunnable(final Display display, final Runnable runnable)
+    {
+        return new Runnable()
+        {
+            public void run()
+            {
+                if(! display.isDisposed())
+                {
+                    display.asyncExec(runnable);
+                }
+            }
+        };
     }
 
     private IMember getDefaultSelection(Collection<IType> proposedClasses, Collection<IMethod> proposedMethods, IMember startMember)
@@ -255,9 +361,10 @@ public abstract class TypeFacade
     }
 
     /**
-     * Getter uses lazy caching.
+     * Getter uses lazy caching. Synchronized as corresponding members are
+     * searched in background jobs.
      */
-    private CorrespondingTypeSearcher getCorrespondingTypeSearcher()
+    private synchronized CorrespondingTypeSearcher getCorrespondingTypeSearcher()
     {
         if(this.correspondingTypeSearcher == null)
         {
@@ -293,6 +400,7 @@ public abstract class TypeFacade
         private final Collection<IType> proposedClasses;
         private final Collection<IMethod> proposedMethods;
         private final boolean perfectMatches;
+        private final CorrespondingMemberSearch search;
 
         public OpenChoiceDialog(CorrespondingMemberRequest request, Collection<IType> proposedClasses, boolean perfectMatches)
         {
@@ -300,16 +408,31 @@ public abstract class TypeFacade
         }
 
         public OpenChoiceDialog(CorrespondingMemberRequest request, Collection<IType> proposedClasses, Collection<IMethod> proposedMethods, boolean perfectMatches)
+        {
+            this(request, proposedClasses, proposedMethods, perfectMatches, null);
+        }
+
+        /**
+         * Opens a dialog proposing the current results of the given search,
+         * which is updated as more results are found.
+         */
+        public OpenChoiceDialog(CorrespondingMemberRequest request, CorrespondingMemberSearch search)
+        {
+            this(request, search.getClasses(), search.getMethods(), search.isPerfectMatch(), search);
+        }
+
+        private OpenChoiceDialog(CorrespondingMemberRequest request, Collection<IType> proposedClasses, Collection<IMethod> proposedMethods, boolean perfectMatches, CorrespondingMemberSearch search)
         {
             this.request = request;
             this.proposedClasses = proposedClasses;
             this.proposedMethods = proposedMethods;
             this.perfectMatches = perfectMatches;
+            this.search = search;
         }
 
         public IMember getCorrespondingMember()
         {
-            return openDialog(request, proposedClasses, proposedMethods, perfectMatches);
+            return openDialog(request, proposedClasses, proposedMethods, perfectMatches, search);
         }
     }
 
@@ -0,0 +1,19 @@
+package org.moreunit.handler;
+
+import org.eclipse.core.commands.AbstractHandler;
+import org.eclipse.core.commands.ExecutionEvent;
+import org.eclipse.core.commands.ExecutionException;
+
+/**
+ * This class delegates the shortcut action to run the tests affected by the
+ * methods that changed since they were last run.
+ */
+public class RunAffectedTestsActionHandler extends AbstractHandler
+{
+
+    public Object execute(ExecutionEvent event) throws ExecutionException
+    {
+        RunTestsActionExecutor.getInstance().executeRunAffectedTestsAction();
+        return null;
+    }
+}
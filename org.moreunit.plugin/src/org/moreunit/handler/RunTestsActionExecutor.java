@@ -13,10 +13,21 @@ package org.moreunit.handler;
 
 import static org.moreunit.elements.CorrespondingMemberRequest.newCorrespondingMemberRequest;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
@@ -24,11 +35,16 @@ import org.eclipse.jdt.core.IMember;
 import org.eclipse.jdt.core.IMethod;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.swt.widgets.Shell;
 import org.eclipse.ui.IEditorPart;
+import org.eclipse.ui.PlatformUI;
+import org.moreunit.actions.RunAffectedTestsAction;
 import org.moreunit.actions.RunTestAction;
 import org.moreunit.actions.RunTestFromCompilationUnitAction;
 import org.moreunit.actions.RunTestFromTypeAction;
 import org.moreunit.actions.RunTestsOfSelectedMemberAction;
+import org.moreunit.elements.ChangedMethodsTracker;
 import org.moreunit.elements.ClassTypeFacade;
 import org.moreunit.elements.ClassTypeFacade.CorrespondingTestCase;
 import org.moreunit.elements.CorrespondingMemberRequest;
@@ -44,10 +60,12 @@ import org.moreunit.util.FeatureDetector;
 /**
  * Executes the actions "Run test(s)" launched from the handlers:<br>
  * <ul>
- * <li>key actions: {@link RunTestActionHandler} and
- * {@link RunTestsOfSelectedMemberAction}</li>
+ * <li>key actions: {@link RunTestActionHandler},
+ * {@link RunTestsOfSelectedMemberAction} and
+ * {@link RunAffectedTestsActionHandler}</li>
  * <li>menu action provided by the popup menu in the editor:
- * {@link RunTestAction} and {@link RunTestsOfSelectedMemberAction}</li>
+ * {@link RunTestAction}, {@link RunTestsOfSelectedMemberAction} and
+ * {@link RunAffectedTestsAction}</li>
  * <li>menu action provided by the popup menu in the package explorer:
  * {@link RunTestFromCompilationUnitAction} and {@link RunTestFromTypeAction}</li>
  * </ul>
@@ -184,6 +202,164 @@ public class RunTestsActionExecutor
         runTests(testElements);
     }
 
+    /**
+     * Runs the tests affected by the methods that changed since the affected
+     * tests were last run: the test methods corresponding to the changed
+     * methods under test, and the changed test methods themselves. The tests
+     * are searched in background, then launched once per project.
+     */
+    public void executeRunAffectedTestsAction()
+    {
+        final Collection<IMethod> changedMethods = ChangedMethodsTracker.getInstance().takeChangedMethods();
+        if(changedMethods.isEmpty())
+        {
+            showInfo("No method changed since affected tests were last run.");
+            return;
+        }
+
+        Job job = new Job("Searching affected tests")
+        {
+            @Override
+            protected IStatus run(IProgressMonitor monitor)
+            {
+                try
+                {
+                    final Map<IJavaProject, Collection<IMember>> testsByProject = searchAffectedTests(changedMethods, monitor);
+                    PlatformUI.getWorkbench().getDisplay().asyncExec(new Runnable()
+                    {
+                        public void run()
+                        {
+                            runAffectedTests(testsByProject);
+                        }
+                    });
+                    return Status.OK_STATUS;
+                }
+                catch (OperationCanceledException e)
+                {
+                    return Status.CANCEL_STATUS;
+                }
+                finally
+                {
+                    monitor.done();
+                }
+            }
+        };
+        job.setUser(true);
+        job.schedule();
+    }
+
+    /**
+     * Returns the tests affected by the given methods, by project. If the
+     * search fails or is canceled, the methods are given back to the
+     * {@link ChangedMethodsTracker}, so that they are taken into account by the
+     * next run.
+     * <p>
+     * Could be private, but is public for testing.
+     * </p>
+     */
+    public Map<IJavaProject, Collection<IMember>> searchAffectedTests(Collection<IMethod> changedMethods, IProgressMonitor monitor)
+    {
+        try
+        {
+            return findAffectedTests(changedMethods, monitor);
+        }
+        catch (RuntimeException e)
+        {
+            ChangedMethodsTracker.getInstance().addChangedMethods(changedMethods);
+            throw e;
+        }
+    }
+
+    private Map<IJavaProject, Collection<IMember>> findAffectedTests(Collection<IMethod> changedMethods, IProgressMonitor monitor)
+    {
+        monitor.beginTask("Searching affected tests", changedMethods.size());
+
+        Map<IJavaProject, Collection<IMember>> testsByProject = new LinkedHashMap<IJavaProject, Collection<IMember>>();
+        // reuses facades, and thus their searches, for the methods of a same
+        // compilation unit
+        Map<ICompilationUnit, ClassTypeFacade> facades = new HashMap<ICompilationUnit, ClassTypeFacade>();
+        for (IMethod method : changedMethods)
+        {
+            if(monitor.isCanceled())
+            {
+                throw new OperationCanceledException();
+            }
+            monitor.subTask(method.getElementName());
+
+            ICompilationUnit compilationUnit = method.getCompilationUnit();
+            if(compilationUnit == null)
+            {
+                // nothing to do
+            }
+            else if(TypeFacade.isTestCase(compilationUnit))
+            {
+                if(new MethodFacade(method).isTestMethod())
+                {
+                    addTest(testsByProject, method);
+                }
+            }
+            else
+            {
+                ClassTypeFacade typeFacade = facades.get(compilationUnit);
+                if(typeFacade == null)
+                {
+                    typeFacade = new ClassTypeFacade(compilationUnit);
+                    facades.put(compilationUnit, typeFacade);
+                }
+                MethodSearchMode searchMode = Preferences.getInstance().getMethodSearchMode(compilationUnit.getJavaProject());
+                for (IMethod testMethod : typeFacade.getCorrespondingTestMethods(method, searchMode))
+                {
+                    addTest(testsByProject, testMethod);
+                }
+            }
+            monitor.worked(1);
+        }
+        return testsByProject;
+    }
+
+    private static void addTest(Map<IJavaProject, Collection<IMember>> testsByProject, IMember test)
+    {
+        Collection<IMember> projectTests = testsByProject.get(test.getJavaProject());
+        if(projectTests == null)
+        {
+            projectTests = new LinkedHashSet<IMember>();
+            testsByProject.put(test.getJavaProject(), projectTests);
+        }
+        projectTests.add(test);
+    }
+
+    private void runAffectedTests(Map<IJavaProject, Collection<IMember>> testsByProject)
+    {
+        if(testsByProject.isEmpty())
+        {
+            showInfo("No test is affected by the changed methods.");
+            return;
+        }
+
+        List<String> unsupportedProjects = new ArrayList<String>();
+        for (Entry<IJavaProject, Collection<IMember>> entry : testsByProject.entrySet())
+        {
+            Collection<IMember> tests = entry.getValue();
+            if(tests.size() > 1 && ! featureDetector.isTestSelectionRunSupported(entry.getKey()))
+            {
+                unsupportedProjects.add(entry.getKey().getElementName());
+                continue;
+            }
+            runTests(tests);
+        }
+
+        if(! unsupportedProjects.isEmpty())
+        {
+            showInfo("Running a selection of tests is not supported in the following projects, hence their affected tests were not run: " + unsupportedProjects);
+        }
+    }
+
+    private static void showInfo(String message)
+    {
+        Shell shell = PlatformUI.getWorkbench().getDisplay().getActiveShell();
+        MessageDialog.openInformation(shell, "MoreUnit", message);
+    }
+
     /**
      * Returns the test method that is selected in editor if any, otherwise
      * returns the test case.
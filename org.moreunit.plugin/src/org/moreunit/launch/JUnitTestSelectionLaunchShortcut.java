@@ -1,6 +1,5 @@
 package org.moreunit.launch;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
@@ -12,7 +11,6 @@ import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.debug.core.DebugPlugin;
 import org.eclipse.debug.core.ILaunch;
 import org.eclipse.debug.core.ILaunchConfiguration;
-import org.eclipse.debug.core.ILaunchConfigurationType;
 import org.eclipse.debug.core.ILaunchConfigurationWorkingCopy;
 import org.eclipse.debug.core.ILaunchManager;
 import org.eclipse.debug.core.Launch;
@@ -33,8 +31,6 @@ import org.moreunit.log.LogHandler;
 class JUnitTestSelectionLaunchShortcut extends JUnitLaunchShortcut
 {
 
-    private static final String EMPTY_STRING = ""; //$NON-NLS-1$
-
     @SuppressWarnings("unchecked")
     @Override
     public void launch(ISelection selection, String mode)
@@ -121,46 +117,9 @@ class JUnitTestSelectionLaunchShortcut extends JUnitLaunchShortcut
         return candidateConfigs.isEmpty() ? null : candidateConfigs.get(0);
     }
 
-    // taken from org.eclipse.jdt.junit.launcher.JUnitLaunchShortcut
     private List<ILaunchConfiguration> findExistingLaunchConfigurations(ILaunchConfigurationWorkingCopy temporary) throws CoreException
     {
-        ILaunchConfigurationType configType = temporary.getType();
-
-        ILaunchConfiguration[] configs = getLaunchManager().getLaunchConfigurations(configType);
-        String[] attributeToCompare = getAttributeNamesToCompare();
-
-        ArrayList<ILaunchConfiguration> candidateConfigs = new ArrayList<ILaunchConfiguration>(configs.length);
-        for (ILaunchConfiguration config : configs)
-        {
-            if(hasSameAttributes(config, temporary, attributeToCompare))
-            {
-                candidateConfigs.add(config);
-            }
-        }
-        return candidateConfigs;
-    }
-
-    // taken from org.eclipse.jdt.junit.launcher.JUnitLaunchShortcut
-    private static boolean hasSameAttributes(ILaunchConfiguration config1, ILaunchConfiguration config2, String[] attributeToCompare)
-    {
-        try
-        {
-            for (String element : attributeToCompare)
-            {
-                String val1 = config1.getAttribute(element, EMPTY_STRING);
-                String val2 = config2.getAttribute(element, EMPTY_STRING);
-                if(! val1.equals(val2))
-                {
-                    return false;
-                }
-            }
-            return true;
-        }
-        catch (CoreException e)
-        {
-            // ignore access problems here, return false
-        }
-        return false;
+        return LaunchConfigurationIndex.getInstance().findConfigurations(temporary, getAttributeNamesToCompare());
     }
 
     private ILaunchConfigurationDelegate getDelegate(final Collection< ? extends IMember> testsToRun)
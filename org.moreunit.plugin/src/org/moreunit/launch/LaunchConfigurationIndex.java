@@ -0,0 +1,252 @@
+package org.moreunit.launch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.debug.core.DebugPlugin;
+import org.eclipse.debug.core.ILaunchConfiguration;
+import org.eclipse.debug.core.ILaunchConfigurationListener;
+import org.eclipse.debug.core.ILaunchConfigurationType;
+import org.eclipse.debug.core.ILaunchManager;
+import org.moreunit.log.LogHandler;
+
+/**
+ * Indexes the saved launch configurations of a type by the values of some of
+ * their attributes, so that the configurations having the same values as a
+ * given one are found without reading the attributes of all configurations.
+ * The index is kept up to date by listening to launch configuration changes.
+ */
+public class LaunchConfigurationIndex implements ILaunchConfigurationListener
+{
+    private static final String EMPTY_STRING = ""; //$NON-NLS-1$
+
+    private static LaunchConfigurationIndex instance;
+
+    private final ILaunchManager launchManager;
+
+    /*
+     * Guarded by this index.
+     */
+    private final Map<String, AttributeIndex> indexesByTypeAndAttributes = new HashMap<String, AttributeIndex>();
+
+    static synchronized LaunchConfigurationIndex getInstance()
+    {
+        if(instance == null)
+        {
+            instance = new LaunchConfigurationIndex(DebugPlugin.getDefault().getLaunchManager());
+            instance.launchManager.addLaunchConfigurationListener(instance);
+        }
+        return instance;
+    }
+
+    /**
+     * Stops listening to launch configuration changes, if the index has been
+     * created.
+     */
+    static synchronized void dispose()
+    {
+        if(instance != null)
+        {
+            instance.launchManager.removeLaunchConfigurationListener(instance);
+            instance = null;
+        }
+    }
+
+    /*
+     * This class could be package-private, but is public for testing.
+     */
+    public LaunchConfigurationIndex(ILaunchManager launchManager)
+    {
+        this.launchManager = launchManager;
+    }
+
+    /**
+     * Returns the saved configurations having the same type as the given one
+     * and the same values for the given attributes, in the order of
+     * {@link ILaunchManager#getLaunchConfigurations(ILaunchConfigurationType)}
+     * .
+     */
+    public synchronized List<ILaunchConfiguration> findConfigurations(ILaunchConfiguration template, String[] attributeNames) throws CoreException
+    {
+        ILaunchConfigurationType type = template.getType();
+        String indexKey = type.getIdentifier() + Arrays.toString(attributeNames);
+
+        AttributeIndex index = indexesByTypeAndAttributes.get(indexKey);
+        if(index == null)
+        {
+            index = new AttributeIndex(type, attributeNames);
+            for (ILaunchConfiguration config : launchManager.getLaunchConfigurations(type))
+            {
+                index.add(config);
+            }
+            indexesByTypeAndAttributes.put(indexKey, index);
+        }
+
+        return index.find(template);
+    }
+
+    public synchronized void launchConfigurationAdded(ILaunchConfiguration configuration)
+    {
+        if(configuration.isWorkingCopy())
+        {
+            return;
+        }
+        for (AttributeIndex index : indexesByTypeAndAttributes.values())
+        {
+            index.add(configuration);
+        }
+    }
+
+    public synchronized void launchConfigurationChanged(ILaunchConfiguration configuration)
+    {
+        if(configuration.isWorkingCopy())
+        {
+            return;
+        }
+        for (AttributeIndex index : indexesByTypeAndAttributes.values())
+        {
+            index.update(configuration);
+        }
+    }
+
+    public synchronized void launchConfigurationRemoved(ILaunchConfiguration configuration)
+    {
+        for (AttributeIndex index : indexesByTypeAndAttributes.values())
+        {
+            index.remove(configuration);
+        }
+    }
+
+    private static class AttributeIndex
+    {
+        private final ILaunchConfigurationType type;
+        private final String[] attributeNames;
+        private final Map<String, List<ILaunchConfiguration>> configsByKey = new HashMap<String, List<ILaunchConfiguration>>();
+        /*
+         * Allows for removing a configuration which attributes can not be
+         * read anymore.
+         */
+        private final Map<ILaunchConfiguration, String> keysByConfig = new HashMap<ILaunchConfiguration, String>();
+        /*
+         * The rank of each configuration in the order in which they were
+         * added, which a change does not alter.
+         */
+        private final Map<ILaunchConfiguration, Long> ranksByConfig = new HashMap<ILaunchConfiguration, Long>();
+        private long nextRank;
+
+        AttributeIndex(ILaunchConfigurationType type, String[] attributeNames)
+        {
+            this.type = type;
+            this.attributeNames = attributeNames.clone();
+        }
+
+        void add(ILaunchConfiguration config)
+        {
+            if(keysByConfig.containsKey(config))
+            {
+                update(config);
+                return;
+            }
+            index(config, nextRank++);
+        }
+
+        /**
+         * Reindexes a changed configuration, which keeps its rank among the
+         * configurations having the same values.
+         */
+        void update(ILaunchConfiguration config)
+        {
+            Long rank = ranksByConfig.get(config);
+            remove(config);
+            index(config, rank == null ? nextRank++ : rank);
+        }
+
+        private void index(ILaunchConfiguration config, long rank)
+        {
+            try
+            {
+                if(! type.equals(config.getType()))
+                {
+                    return;
+                }
+
+                String key = keyOf(config);
+                List<ILaunchConfiguration> configs = configsByKey.get(key);
+                if(configs == null)
+                {
+                    configs = new ArrayList<ILaunchConfiguration>(1);
+                    configsByKey.put(key, configs);
+                }
+
+                int position = configs.size();
+                while (position > 0 && ranksByConfig.get(configs.get(position - 1)) > rank)
+                {
+                    position--;
+                }
+                configs.add(position, config);
+                keysByConfig.put(config, key);
+                ranksByConfig.put(config, rank);
+            }
+            catch (CoreException e)
+            {
+                // like JUnitLaunchShortcut, ignores configurations which
+                // attributes can not be read
+                LogHandler.getInstance().handleWarnLog("Could not index launch configuration " + config.getName() + ": " + e.getMessage());
+            }
+        }
+
+        void remove(ILaunchConfiguration config)
+        {
+            ranksByConfig.remove(config);
+            String key = keysByConfig.remove(config);
+            if(key == null)
+            {
+                return;
+            }
+
+            List<ILaunchConfiguration> configs = configsByKey.get(key);
+            for (Iterator<ILaunchConfiguration> it = configs.iterator(); it.hasNext();)
+            {
+                if(it.next().equals(config))
+                {
+                    it.remove();
+                }
+            }
+            if(configs.isEmpty())
+            {
+                configsByKey.remove(key);
+            }
+        }
+
+        List<ILaunchConfiguration> find(ILaunchConfiguration template)
+        {
+            List<ILaunchConfiguration> configs = null;
+            try
+            {
+                configs = configsByKey.get(keyOf(template));
+            }
+            catch (CoreException e)
+            {
+                // ignore access problems here, as JUnitLaunchShortcut does
+            }
+            return configs == null ? Collections.<ILaunchConfiguration> emptyList() : new ArrayList<ILaunchConfiguration>(configs);
+        }
+
+        private String keyOf(ILaunchConfiguration config) throws CoreException
+        {
+            StringBuilder key = new StringBuilder();
+            for (String attributeName : attributeNames)
+            {
+                String value = config.getAttribute(attributeName, EMPTY_STRING);
+                key.append(value.length()).append(':').append(value);
+            }
+            return key.toString();
+        }
+    }
+}
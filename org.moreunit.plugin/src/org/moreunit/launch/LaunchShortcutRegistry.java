@@ -0,0 +1,93 @@
+package org.moreunit.launch;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionPoint;
+import org.eclipse.core.runtime.IRegistryChangeEvent;
+import org.eclipse.core.runtime.IRegistryChangeListener;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.debug.ui.IDebugUIConstants;
+
+/**
+ * Caches the extensions contributed to the launch shortcuts extension point by
+ * namespace, so that they are not looked up in the registry on each launch.
+ * The cache is cleared when the extensions of the Debug UI plug-in change.
+ */
+class LaunchShortcutRegistry implements IRegistryChangeListener
+{
+    private static LaunchShortcutRegistry instance;
+
+    /*
+     * Guarded by this registry. Null until first needed, or after a registry
+     * change.
+     */
+    private Map<String, IExtension> extensionsByNamespace;
+
+    static synchronized LaunchShortcutRegistry getInstance()
+    {
+        if(instance == null)
+        {
+            instance = new LaunchShortcutRegistry();
+            Platform.getExtensionRegistry().addRegistryChangeListener(instance, IDebugUIConstants.PLUGIN_ID);
+        }
+        return instance;
+    }
+
+    /**
+     * Stops listening to registry changes, if the registry has been created.
+     */
+    static synchronized void dispose()
+    {
+        if(instance != null)
+        {
+            Platform.getExtensionRegistry().removeRegistryChangeListener(instance);
+            instance = null;
+        }
+    }
+
+    /**
+     * Returns the first launch shortcut extension contributed by the given
+     * namespace, or null if there is none.
+     */
+    synchronized IExtension getExtension(String namespaceId)
+    {
+        if(extensionsByNamespace == null)
+        {
+            extensionsByNamespace = readExtensions();
+        }
+        return extensionsByNamespace.get(namespaceId);
+    }
+
+    private static Map<String, IExtension> readExtensions()
+    {
+        Map<String, IExtension> extensions = new HashMap<String, IExtension>();
+
+        IExtensionPoint extensionPoint = Platform.getExtensionRegistry().getExtensionPoint(IDebugUIConstants.PLUGIN_ID, IDebugUIConstants.EXTENSION_POINT_LAUNCH_SHORTCUTS);
+        if(extensionPoint == null)
+        {
+            return extensions;
+        }
+
+        for (IExtension extension : extensionPoint.getExtensions())
+        {
+            if(! extensions.containsKey(extension.getNamespaceIdentifier()))
+            {
+                extensions.put(extension.getNamespaceIdentifier(), extension);
+            }
+        }
+        return extensions;
+    }
+
+    public void registryChanged(IRegistryChangeEvent event)
+    {
+        if(event.getExtensionDeltas(IDebugUIConstants.PLUGIN_ID, IDebugUIConstants.EXTENSION_POINT_LAUNCH_SHORTCUTS).length != 0)
+        {
+            synchronized (this)
+            {
+                extensionsByNamespace = null;
+            }
+        }
+    }
+}
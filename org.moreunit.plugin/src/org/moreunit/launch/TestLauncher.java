@@ -8,10 +8,7 @@ import java.util.Map;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IExtension;
-import org.eclipse.core.runtime.IExtensionPoint;
-import org.eclipse.core.runtime.Platform;
 import org.eclipse.debug.core.ILaunchManager;
-import org.eclipse.debug.ui.IDebugUIConstants;
 import org.eclipse.debug.ui.ILaunchShortcut;
 import org.eclipse.jdt.core.IMember;
 import org.eclipse.jface.viewers.IStructuredSelection;
@@ -50,6 +47,16 @@ public class TestLauncher
         this.additionalShortcutProvider = additionalShortcutProvider;
     }
 
+    /**
+     * Releases the caches used to find launch shortcuts and existing launch
+     * configurations.
+     */
+    public static void disposeCaches()
+    {
+        LaunchShortcutRegistry.dispose();
+        LaunchConfigurationIndex.dispose();
+    }
+
     public void launch(String testType, Collection< ? extends IMember> testMembers)
     {
         ILaunchShortcut launchShortcut = getLaunchShortcut(testType, testMembers);
@@ -116,22 +123,7 @@ public class TestLauncher
 
     private IExtension getTestExtension(String testExtensionNamespaceId)
     {
-        IExtensionPoint extensionPoint = Platform.getExtensionRegistry().getExtensionPoint(IDebugUIConstants.PLUGIN_ID, IDebugUIConstants.EXTENSION_POINT_LAUNCH_SHORTCUTS);
-        if(extensionPoint == null)
-        {
-            return null;
-        }
-
-        IExtension[] extensions = extensionPoint.getExtensions();
-        for (int i = 0; i < extensions.length; i++)
-        {
-            IExtension currentExtension = extensions[i];
-            if(testExtensionNamespaceId.equals(currentExtension.getNamespaceIdentifier()))
-            {
-                return currentExtension;
-            }
-        }
-        return null;
+        return LaunchShortcutRegistry.getInstance().getExtension(testExtensionNamespaceId);
     }
 
     protected final IStructuredSelection createSelection(Collection< ? extends IMember> members)
@@ -0,0 +1,659 @@
+package org.moreunit.matching;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.moreunit.core.util.IOUtils;
+import org.moreunit.elements.TypeFacade;
+import org.moreunit.log.LogHandler;
+import org.moreunit.preferences.Preferences;
+import org.moreunit.util.PluginTools;
+
+/**
+ * Workspace-wide index of the correspondence between types under test and
+ * test cases, so that frequent questions such as
+ * "does this class have a test case?" do not require a search.
+ * <p>
+ * Entries are computed lazily (or by a background job when the index is
+ * empty) using {@link CorrespondingTypeSearcher}, a whole package at a time
+ * so that a single search is required per package, are kept up to date from
+ * Java element deltas, and may be saved to and loaded from a file so that
+ * they survive restarts. Types are identified by their handle identifiers.
+ * </p>
+ */
+public class CorrespondingTypeIndex implements IElementChangedListener
+{
+    private static final int FORMAT_VERSION = 1;
+
+    private static final CorrespondingTypeIndex instance = new CorrespondingTypeIndex();
+
+    private final Map<String, Set<String>> testCasesByType = new ConcurrentHashMap<String, Set<String>>();
+    private final Map<String, Set<String>> typesByTestCase = new ConcurrentHashMap<String, Set<String>>();
+    /**
+     * Incremented on every invalidation, so that results computed
+     * concurrently with an invalidation are not stored.
+     */
+    private final AtomicInteger generation = new AtomicInteger();
+    // Guarded by this.
+    private Job buildJob;
+
+    public static CorrespondingTypeIndex getInstance()
+    {
+        return instance;
+    }
+
+    protected CorrespondingTypeIndex()
+    {
+    }
+
+    public boolean hasTestCase(ICompilationUnit compilationUnit)
+    {
+        return ! getTestCaseHandles(compilationUnit).isEmpty();
+    }
+
+    public Collection<IType> getTestCases(ICompilationUnit compilationUnit)
+    {
+        Collection<IType> result = new LinkedHashSet<IType>();
+        for (String handle : getTestCaseHandles(compilationUnit))
+        {
+            IJavaElement element = JavaCore.create(handle);
+            if(element instanceof IType && element.exists())
+            {
+                result.add((IType) element);
+            }
+        }
+        return result;
+    }
+
+    private Set<String> getTestCaseHandles(ICompilationUnit compilationUnit)
+    {
+        IType type = compilationUnit.findPrimaryType();
+        if(type == null)
+        {
+            return Collections.emptySet();
+        }
+
+        String key = type.getHandleIdentifier();
+        Set<String> testCases = testCasesByType.get(key);
+        if(testCases != null && allExist(testCases))
+        {
+            return testCases;
+        }
+
+        return computeAndStore(key, compilationUnit);
+    }
+
+    private boolean allExist(Set<String> handles)
+    {
+        for (String handle : handles)
+        {
+            IJavaElement element = JavaCore.create(handle);
+            if(element == null || ! element.exists())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Set<String> computeAndStore(String key, ICompilationUnit compilationUnit)
+    {
+        Map<String, Set<String>> computed = computeAndStore(getUnindexedTypesUnderTestOfPackage(compilationUnit, key));
+        Set<String> testCases = computed.get(key);
+        return testCases == null ? Collections.<String> emptySet() : testCases;
+    }
+
+    /**
+     * Returns the given compilation unit, plus those of the same package that
+     * are not yet indexed: since decoration requests usually arrive for all
+     * the files of a package at once, they are resolved together.
+     */
+    private Map<String, ICompilationUnit> getUnindexedTypesUnderTestOfPackage(ICompilationUnit compilationUnit, String key)
+    {
+        Map<String, ICompilationUnit> result = new LinkedHashMap<String, ICompilationUnit>();
+        result.put(key, compilationUnit);
+
+        IJavaElement parent = compilationUnit.getParent();
+        if(parent instanceof IPackageFragment)
+        {
+            try
+            {
+                addUnindexedTypesUnderTest(result, (IPackageFragment) parent);
+            }
+            catch (JavaModelException e)
+            {
+                LogHandler.getInstance().handleExceptionLog(e);
+            }
+        }
+        return result;
+    }
+
+    private void addUnindexedTypesUnderTest(Map<String, ICompilationUnit> result, IPackageFragment packageFragment) throws JavaModelException
+    {
+        for (ICompilationUnit cu : packageFragment.getCompilationUnits())
+        {
+            IType type = cu.findPrimaryType();
+            if(type != null)
+            {
+                String handle = type.getHandleIdentifier();
+                if(! result.containsKey(handle) && ! testCasesByType.containsKey(handle) && ! TypeFacade.isTestCase(type))
+                {
+                    result.put(handle, cu);
+                }
+            }
+        }
+    }
+
+    private Map<String, Set<String>> computeAndStore(Map<String, ICompilationUnit> compilationUnits)
+    {
+        int generationBeforeComputation = generation.get();
+
+        Map<String, CorrespondingTypeSearcher> searchers = new LinkedHashMap<String, CorrespondingTypeSearcher>();
+        for (Entry<String, ICompilationUnit> entry : compilationUnits.entrySet())
+        {
+            searchers.put(entry.getKey(), new CorrespondingTypeSearcher(entry.getValue(), Preferences.getInstance()));
+        }
+        CorrespondingTypeSearcher.resolvePerfectMatches(searchers.values());
+
+        Map<String, Set<String>> result = new LinkedHashMap<String, Set<String>>();
+        for (Entry<String, CorrespondingTypeSearcher> entry : searchers.entrySet())
+        {
+            Set<String> testCases = new LinkedHashSet<String>();
+            for (IType testCase : entry.getValue().getMatches(false))
+            {
+                testCases.add(testCase.getHandleIdentifier());
+            }
+            result.put(entry.getKey(), Collections.unmodifiableSet(testCases));
+        }
+
+        synchronized (this)
+        {
+            if(generation.get() == generationBeforeComputation)
+            {
+                for (Entry<String, Set<String>> entry : result.entrySet())
+                {
+                    put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return result;
+    }
+
+    private synchronized void put(String type, Set<String> testCases)
+    {
+        removeEntry(type);
+        testCasesByType.put(type, testCases);
+        for (String testCase : testCases)
+        {
+            Set<String> testedTypes = typesByTestCase.get(testCase);
+            if(testedTypes == null)
+            {
+                testedTypes = Collections.synchronizedSet(new HashSet<String>());
+                typesByTestCase.put(testCase, testedTypes);
+            }
+            testedTypes.add(type);
+        }
+    }
+
+    private synchronized void removeEntry(String type)
+    {
+        Set<String> previousTestCases = testCasesByType.remove(type);
+        if(previousTestCases == null)
+        {
+            return;
+        }
+
+        for (String testCase : previousTestCases)
+        {
+            Set<String> testedTypes = typesByTestCase.get(testCase);
+            if(testedTypes != null)
+            {
+                testedTypes.remove(type);
+                if(testedTypes.isEmpty())
+                {
+                    typesByTestCase.remove(testCase);
+                }
+            }
+        }
+    }
+
+    public synchronized void clear()
+    {
+        generation.incrementAndGet();
+        testCasesByType.clear();
+        typesByTestCase.clear();
+    }
+
+    public boolean isEmpty()
+    {
+        return testCasesByType.isEmpty();
+    }
+
+    public void elementChanged(ElementChangedEvent event)
+    {
+        processDelta(event.getDelta());
+    }
+
+    private void processDelta(IJavaElementDelta delta)
+    {
+        IJavaElement element = delta.getElement();
+        switch (element.getElementType())
+        {
+        case IJavaElement.JAVA_MODEL:
+            processChildren(delta);
+            break;
+        case IJavaElement.JAVA_PROJECT:
+        case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+        case IJavaElement.PACKAGE_FRAGMENT:
+            if(isStructuralChange(delta))
+            {
+                invalidate(element, mayContainNewTestCases(delta));
+            }
+            else
+            {
+                processChildren(delta);
+            }
+            break;
+        case IJavaElement.COMPILATION_UNIT:
+            processCompilationUnitDelta(delta, (ICompilationUnit) element);
+            break;
+        default:
+            break;
+        }
+    }
+
+    private void processChildren(IJavaElementDelta delta)
+    {
+        for (IJavaElementDelta child : delta.getAffectedChildren())
+        {
+            processDelta(child);
+        }
+    }
+
+    private boolean isStructuralChange(IJavaElementDelta delta)
+    {
+        if(delta.getKind() != IJavaElementDelta.CHANGED)
+        {
+            return true;
+        }
+        int structuralFlags = IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED | IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED | IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH;
+        return (delta.getFlags() & structuralFlags) != 0;
+    }
+
+    /**
+     * Whether the elements under the changed one became visible, in which case
+     * they may contain test cases for types indexed as having none.
+     */
+    private boolean mayContainNewTestCases(IJavaElementDelta delta)
+    {
+        if(delta.getKind() == IJavaElementDelta.REMOVED)
+        {
+            return false;
+        }
+        int hidingFlags = IJavaElementDelta.F_CLOSED | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH;
+        return delta.getKind() == IJavaElementDelta.ADDED || (delta.getFlags() & ~ hidingFlags) != 0;
+    }
+
+    private void processCompilationUnitDelta(IJavaElementDelta delta, ICompilationUnit compilationUnit)
+    {
+        if(compilationUnit.isWorkingCopy() && delta.getKind() == IJavaElementDelta.CHANGED)
+        {
+            // reconciliation of an unsaved editor content
+            return;
+        }
+
+        if(delta.getKind() == IJavaElementDelta.CHANGED && (delta.getFlags() & (IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_CONTENT)) == 0)
+        {
+            return;
+        }
+
+        if(delta.getKind() == IJavaElementDelta.CHANGED && (delta.getFlags() & IJavaElementDelta.F_FINE_GRAINED) != 0 && ! hasTypeChange(delta))
+        {
+            return;
+        }
+
+        invalidate(compilationUnit);
+    }
+
+    private boolean hasTypeChange(IJavaElementDelta delta)
+    {
+        for (IJavaElementDelta child : delta.getAffectedChildren())
+        {
+            if(child.getElement().getElementType() == IJavaElement.TYPE && child.getKind() != IJavaElementDelta.CHANGED)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the entries which may be affected by a change to the given
+     * compilation unit: its own entry, the entries of the types it tests, and
+     * the entries of the types it may test according to its name.
+     */
+    private synchronized void invalidate(ICompilationUnit compilationUnit)
+    {
+        generation.incrementAndGet();
+
+        String typeName = getPrimaryTypeName(compilationUnit);
+        String typeHandle = compilationUnit.getType(typeName).getHandleIdentifier();
+
+        removeEntry(typeHandle);
+
+        Set<String> testedTypes = typesByTestCase.remove(typeHandle);
+        if(testedTypes != null)
+        {
+            for (String testedType : new ArrayList<String>(testedTypes))
+            {
+                removeEntry(testedType);
+            }
+        }
+
+        IType primaryType = compilationUnit.exists() ? compilationUnit.findPrimaryType() : null;
+        if(primaryType != null)
+        {
+            invalidateTypesPossiblyTestedBy(primaryType);
+        }
+    }
+
+    /**
+     * Removes the entries of the types located under the given project,
+     * package fragment root or package fragment, and those of the types tested
+     * by test cases located under it. If {@code removeTypesWithoutTestCase} is
+     * true, the entries of the types without test case are also removed.
+     */
+    private synchronized void invalidate(IJavaElement container, boolean removeTypesWithoutTestCase)
+    {
+        generation.incrementAndGet();
+
+        String containerHandle = container.getHandleIdentifier();
+
+        for (String testCase : new ArrayList<String>(typesByTestCase.keySet()))
+        {
+            if(isUnder(testCase, containerHandle))
+            {
+                Set<String> testedTypes = typesByTestCase.remove(testCase);
+                if(testedTypes != null)
+                {
+                    for (String testedType : new ArrayList<String>(testedTypes))
+                    {
+                        removeEntry(testedType);
+                    }
+                }
+            }
+        }
+
+        for (Entry<String, Set<String>> entry : new ArrayList<Entry<String, Set<String>>>(testCasesByType.entrySet()))
+        {
+            if(isUnder(entry.getKey(), containerHandle) || (removeTypesWithoutTestCase && entry.getValue().isEmpty()))
+            {
+                removeEntry(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Tells whether the element with the given handle identifier is the
+     * container with the given handle, or one of its descendants. Names are
+     * escaped in handles, hence the delimiter following the container handle
+     * tells whether the container is an ancestor, or just has a name starting
+     * like the one of the ancestor (projects "foo" and "foobar", for
+     * instance). Could be private, but is public for testing.
+     */
+    public static boolean isUnder(String handle, String containerHandle)
+    {
+        if(! handle.startsWith(containerHandle))
+        {
+            return false;
+        }
+        if(handle.length() == containerHandle.length())
+        {
+            return true;
+        }
+        return "/<{(".indexOf(handle.charAt(containerHandle.length())) != - 1;
+    }
+
+    private void invalidateTypesPossiblyTestedBy(IType type)
+    {
+        ClassNameEvaluation evaluation = Preferences.forProject(type.getJavaProject()).getTestClassNamePattern().evaluate(type);
+        if(! evaluation.isTestCase())
+        {
+            return;
+        }
+
+        List<char[]> patterns = new ArrayList<char[]>();
+        for (String p : evaluation.getAllCorrespondingClassPatterns(false))
+        {
+            patterns.add(p.toCharArray());
+        }
+
+        for (String indexedType : new ArrayList<String>(testCasesByType.keySet()))
+        {
+            IJavaElement element = JavaCore.create(indexedType);
+            if(element == null || matchesAny(patterns, element.getElementName()))
+            {
+                removeEntry(indexedType);
+            }
+        }
+    }
+
+    private static boolean matchesAny(List<char[]> patterns, String name)
+    {
+        char[] chars = name.toCharArray();
+        for (char[] p : patterns)
+        {
+            if(CharOperation.match(p, chars, true))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getPrimaryTypeName(ICompilationUnit compilationUnit)
+    {
+        String name = compilationUnit.getElementName();
+        int extensionStart = name.lastIndexOf('.');
+        return extensionStart == - 1 ? name : name.substring(0, extensionStart);
+    }
+
+    public synchronized void save(File file)
+    {
+        DataOutputStream out = null;
+        try
+        {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(testCasesByType.size());
+            for (Entry<String, Set<String>> entry : testCasesByType.entrySet())
+            {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (String testCase : entry.getValue())
+                {
+                    out.writeUTF(testCase);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            LogHandler.getInstance().handleExceptionLog("Could not save test case index to " + file, e);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(out);
+        }
+    }
+
+    public synchronized void load(File file)
+    {
+        if(! file.isFile())
+        {
+            return;
+        }
+
+        DataInputStream in = null;
+        try
+        {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if(in.readInt() != FORMAT_VERSION)
+            {
+                return;
+            }
+
+            int entryCount = in.readInt();
+            for (int i = 0; i < entryCount; i++)
+            {
+                String type = in.readUTF();
+                int testCaseCount = in.readInt();
+                Set<String> testCases = new LinkedHashSet<String>();
+                for (int j = 0; j < testCaseCount; j++)
+                {
+                    testCases.add(in.readUTF());
+                }
+                // test cases may have been added since the index was saved,
+                // and unlike positive entries, negative ones can not be
+                // revalidated cheaply: they are computed again when needed
+                if(! testCases.isEmpty())
+                {
+                    put(type, Collections.unmodifiableSet(testCases));
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            LogHandler.getInstance().handleExceptionLog("Could not load test case index from " + file, e);
+            clear();
+        }
+        finally
+        {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Schedules a low priority job computing the entries of all the types of
+     * the workspace that are not already indexed.
+     */
+    public synchronized void scheduleBuild()
+    {
+        Job job = new Job("Indexing test cases")
+        {
+            @Override
+            protected IStatus run(IProgressMonitor monitor)
+            {
+                return build(monitor);
+            }
+        };
+        job.setSystem(true);
+        job.setPriority(Job.DECORATE);
+        job.schedule();
+        buildJob = job;
+    }
+
+    /**
+     * Cancels the job computing the entries of the index, if any, and waits
+     * for it to stop, so that the index is not modified anymore.
+     */
+    public void cancelBuild()
+    {
+        Job job;
+        synchronized (this)
+        {
+            job = buildJob;
+            buildJob = null;
+        }
+        if(job == null)
+        {
+            return;
+        }
+
+        job.cancel();
+        try
+        {
+            job.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private IStatus build(IProgressMonitor monitor)
+    {
+        List<IJavaProject> projects = PluginTools.getJavaProjectsFromWorkspace();
+        monitor.beginTask("Indexing test cases", projects.size());
+        try
+        {
+            for (IJavaProject project : projects)
+            {
+                for (IPackageFragmentRoot sourceFolder : PluginTools.findJavaSourceFoldersFor(project))
+                {
+                    for (IJavaElement child : sourceFolder.getChildren())
+                    {
+                        if(monitor.isCanceled())
+                        {
+                            return Status.CANCEL_STATUS;
+                        }
+                        indexPackage((IPackageFragment) child);
+                    }
+                }
+                monitor.worked(1);
+            }
+        }
+        catch (JavaModelException e)
+        {
+            LogHandler.getInstance().handleExceptionLog(e);
+        }
+        finally
+        {
+            monitor.done();
+        }
+        return Status.OK_STATUS;
+    }
+
+    private void indexPackage(IPackageFragment packageFragment) throws JavaModelException
+    {
+        Map<String, ICompilationUnit> compilationUnits = new LinkedHashMap<String, ICompilationUnit>();
+        addUnindexedTypesUnderTest(compilationUnits, packageFragment);
+        if(! compilationUnits.isEmpty())
+        {
+            computeAndStore(compilationUnits);
+        }
+    }
+}
@@ -2,11 +2,18 @@ package org.moreunit.matching;
 
 import static java.util.Collections.emptySet;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.compiler.CharOperation;
 import org.eclipse.jdt.core.search.IJavaSearchScope;
 import org.moreunit.log.LogHandler;
 import org.moreunit.preferences.Preferences;
@@ -25,9 +32,19 @@ import org.moreunit.util.SearchTools;
  */
 public class CorrespondingTypeSearcher
 {
+    /**
+     * Maximum number of searchers resolved by a single search in
+     * {@link #resolvePerfectMatches(Collection)}, to keep the size of the
+     * combined pattern reasonable.
+     */
+    private static final int MAX_BATCH_SIZE = 200;
+
     private final ProjectPreferences preferences;
     private final ClassNameEvaluation nameEvaluation;
     private final IJavaSearchScope searchScope;
+    /*
+     * Guarded by this searcher.
+     */
     private Collection<IType> perfectMatches;
     private Collection<IType> likelyMatches;
 
@@ -38,7 +55,7 @@ public class CorrespondingTypeSearcher
         searchScope = SearchScopeSingelton.getInstance().getSearchScope(PluginTools.getSourceFolder(compilationUnit));
     }
 
-    public Collection<IType> getMatches(boolean alsoIncludeLikelyMatches)
+    public synchronized Collection<IType> getMatches(boolean alsoIncludeLikelyMatches)
     {
         try
         {
@@ -46,7 +63,7 @@ public class CorrespondingTypeSearcher
             {
                 if(this.likelyMatches == null)
                 {
-                    this.likelyMatches = findPotentialTargets(true);
+                    findAllPotentialTargets();
                 }
                 return this.likelyMatches;
             }
@@ -67,9 +84,221 @@ public class CorrespondingTypeSearcher
         return emptySet();
     }
 
+    /**
+     * Returns at most the given number of likely matches, for instance to be
+     * proposed in a dialog. Unless likely matches have already been resolved,
+     * the search stops once this number of matches is found, and its result is
+     * not kept.
+     */
+    public synchronized Collection<IType> getLikelyMatches(int maxMatches)
+    {
+        if(likelyMatches != null)
+        {
+            return first(likelyMatches, maxMatches);
+        }
+
+        try
+        {
+            return SearchTools.searchFor(nameEvaluation.getAllCorrespondingClassPatterns(false), searchScope, maxMatches);
+        }
+        catch (CoreException exc)
+        {
+            LogHandler.getInstance().handleExceptionLog(exc);
+        }
+        return emptySet();
+    }
+
+    private static Collection<IType> first(Collection<IType> types, int count)
+    {
+        if(types.size() <= count)
+        {
+            return types;
+        }
+
+        Collection<IType> result = new LinkedHashSet<IType>();
+        for (IType type : types)
+        {
+            if(result.size() == count)
+            {
+                break;
+            }
+            result.add(type);
+        }
+        return result;
+    }
+
+    /**
+     * Returns true if at least one perfect match exists. Unless perfect
+     * matches have already been resolved, the search stops at the first match.
+     */
+    public synchronized boolean hasPerfectMatch()
+    {
+        if(perfectMatches != null)
+        {
+            return ! perfectMatches.isEmpty();
+        }
+
+        try
+        {
+            return SearchTools.existsTypeMatching(nameEvaluation.getAllCorrespondingClassPatterns(true), searchScope);
+        }
+        catch (CoreException exc)
+        {
+            LogHandler.getInstance().handleExceptionLog(exc);
+        }
+        return false;
+    }
+
     private Collection<IType> findPotentialTargets(boolean withLikelyMatches) throws CoreException
     {
         boolean qualifyWithPackage = ! withLikelyMatches;
         return SearchTools.searchFor(nameEvaluation.getAllCorrespondingClassPatterns(qualifyWithPackage), searchScope);
     }
+
+    /**
+     * Resolves both likely and perfect matches with a single search, which
+     * patterns are the union of the unqualified and package-qualified ones:
+     * each match is a likely match, and the ones matching a qualified pattern
+     * are perfect matches.
+     */
+    private void findAllPotentialTargets() throws CoreException
+    {
+        Collection<String> allPatterns = new LinkedHashSet<String>(nameEvaluation.getAllCorrespondingClassPatterns(false));
+        allPatterns.addAll(nameEvaluation.getAllCorrespondingClassPatterns(true));
+        if(allPatterns.isEmpty())
+        {
+            likelyMatches = emptySet();
+            perfectMatches = emptySet();
+            return;
+        }
+
+        Collection<IType> allMatches = SearchTools.searchFor(allPatterns, searchScope);
+        likelyMatches = allMatches;
+        if(perfectMatches == null)
+        {
+            perfectMatches = filterMatches(allMatches);
+        }
+    }
+
+    /**
+     * Computes the perfect matches of all the given searchers, using one
+     * search per search scope instead of one search per searcher. The results
+     * are then available through {@link #getMatches(boolean) getMatches(false)}
+     * .
+     */
+    public static void resolvePerfectMatches(Collection<CorrespondingTypeSearcher> searchers)
+    {
+        Map<IJavaSearchScope, List<CorrespondingTypeSearcher>> searchersByScope = new IdentityHashMap<IJavaSearchScope, List<CorrespondingTypeSearcher>>();
+        for (CorrespondingTypeSearcher searcher : searchers)
+        {
+            if(searcher.arePerfectMatchesResolved())
+            {
+                continue;
+            }
+
+            List<CorrespondingTypeSearcher> group = searchersByScope.get(searcher.searchScope);
+            if(group == null)
+            {
+                group = new ArrayList<CorrespondingTypeSearcher>();
+                searchersByScope.put(searcher.searchScope, group);
+            }
+            group.add(searcher);
+        }
+
+        for (Entry<IJavaSearchScope, List<CorrespondingTypeSearcher>> group : searchersByScope.entrySet())
+        {
+            List<CorrespondingTypeSearcher> groupSearchers = group.getValue();
+            for (int start = 0; start < groupSearchers.size(); start += MAX_BATCH_SIZE)
+            {
+                List<CorrespondingTypeSearcher> batch = groupSearchers.subList(start, Math.min(start + MAX_BATCH_SIZE, groupSearchers.size()));
+                try
+                {
+                    resolvePerfectMatches(batch, group.getKey());
+                }
+                catch (CoreException exc)
+                {
+                    LogHandler.getInstance().handleExceptionLog(exc);
+                }
+            }
+        }
+    }
+
+    private static void resolvePerfectMatches(List<CorrespondingTypeSearcher> searchers, IJavaSearchScope scope) throws CoreException
+    {
+        Collection<String> allPatterns = new LinkedHashSet<String>();
+        for (CorrespondingTypeSearcher searcher : searchers)
+        {
+            allPatterns.addAll(searcher.nameEvaluation.getAllCorrespondingClassPatterns(true));
+        }
+
+        if(allPatterns.isEmpty())
+        {
+            // resolved as having no match, so that they are not searched again
+            for (CorrespondingTypeSearcher searcher : searchers)
+            {
+                synchronized (searcher)
+                {
+                    searcher.perfectMatches = emptySet();
+                }
+            }
+            return;
+        }
+
+        Collection<IType> allMatches = SearchTools.searchFor(allPatterns, scope);
+
+        for (CorrespondingTypeSearcher searcher : searchers)
+        {
+            synchronized (searcher)
+            {
+                searcher.perfectMatches = searcher.filterMatches(allMatches);
+            }
+        }
+    }
+
+    private synchronized boolean arePerfectMatchesResolved()
+    {
+        return perfectMatches != null;
+    }
+
+    /**
+     * Returns the given types that match one of the package-qualified
+     * patterns, as a qualified JDT search would. The package names are
+     * compared exactly, and only the simple names of top-level types are
+     * matched against the name part of the patterns, since a '*' would
+     * otherwise also match the dots of a subpackage or of an enclosing type.
+     */
+    private Collection<IType> filterMatches(Collection<IType> types)
+    {
+        List<String> qualifiedPatterns = nameEvaluation.getAllCorrespondingClassPatterns(true);
+        List<String> packageNames = new ArrayList<String>();
+        List<char[]> namePatterns = new ArrayList<char[]>();
+        for (String p : qualifiedPatterns)
+        {
+            int lastDot = p.lastIndexOf('.');
+            packageNames.add(p.substring(0, lastDot));
+            namePatterns.add(p.substring(lastDot + 1).toCharArray());
+        }
+
+        Collection<IType> result = new LinkedHashSet<IType>();
+        for (IType type : types)
+        {
+            if(type.getDeclaringType() != null)
+            {
+                continue;
+            }
+
+            String packageName = type.getPackageFragment().getElementName();
+            char[] typeName = type.getElementName().toCharArray();
+            for (int i = 0; i < namePatterns.size(); i++)
+            {
+                // patterns are not case sensitive when searching
+                if(packageName.equalsIgnoreCase(packageNames.get(i)) && CharOperation.match(namePatterns.get(i), typeName, false))
+                {
+                    result.add(type);
+                    break;
+                }
+            }
+        }
+        return result;
+    }
 }
@@ -136,7 +136,7 @@ public class MoreUnitPreferencePage extends PreferencePage implements IWorkbench
         otherMoreunitPropertiesBlock.saveProperties();
         Preferences.getInstance().clearProjectCache();
 
-        SourceFolderContext.getInstance().initContextForWorkspace();
+        SourceFolderContext.getInstance().scheduleContextUpdateForWorkspace();
         SearchScopeSingelton.getInstance().resetCachedSearchScopes();
 
         return super.performOk();
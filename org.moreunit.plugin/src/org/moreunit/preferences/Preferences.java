@@ -8,6 +8,10 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
 
 import org.eclipse.core.resources.ProjectScope;
@@ -15,9 +19,12 @@ import org.eclipse.core.runtime.preferences.IScopeContext;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.jface.util.IPropertyChangeListener;
+import org.eclipse.jface.util.PropertyChangeEvent;
 import org.eclipse.ui.preferences.ScopedPreferenceStore;
 import org.moreunit.MoreUnitPlugin;
 import org.moreunit.core.log.Logger;
+import org.moreunit.core.matching.FileNameEvaluationCache;
 import org.moreunit.core.util.Strings;
 import org.moreunit.elements.SourceFolderMapping;
 import org.moreunit.matching.TestClassNamePattern;
@@ -27,23 +34,39 @@ public class Preferences
 {
     private static final Pattern MAVEN_TEST_FOLDER = Pattern.compile("src/test/.*");
 
-    /**
-     * Cache for TestClassNamePattern instances.
-     * <p>
-     * It is OK to clear it entirely every time a preference changes ; that way
-     * we can guarantee that entries won't be kept in memory without reason.
-     */
-    private static final Map<String, TestClassNamePattern> CLASS_NAME_PATTERN_CACHE = new HashMap<String, TestClassNamePattern>();
-    private static final Object CACHE_LOCK = new Object();
-
     private static Preferences instance = new Preferences();
 
     private final Logger logger = MoreUnitPlugin.getDefault().getLogger();
     private final Map<IJavaProject, IPreferenceStore> preferenceMap = new HashMap<IJavaProject, IPreferenceStore>();
 
+    /*
+     * Snapshots of the preferences read on hot paths, such as the decoration
+     * of test cases, so that they are read without locking nor parsing. They
+     * are discarded as soon as a preference changes, and built again when
+     * next read.
+     */
+    private final ConcurrentMap<IJavaProject, PreferencesSnapshot> projectSnapshots = new ConcurrentHashMap<IJavaProject, PreferencesSnapshot>();
+    private final AtomicReference<PreferencesSnapshot> workspaceSnapshot = new AtomicReference<PreferencesSnapshot>();
+    /**
+     * Incremented each time snapshots are discarded, so that a snapshot built
+     * while a preference changed is not kept.
+     */
+    private final AtomicInteger snapshotGeneration = new AtomicInteger();
+
+    private final IPropertyChangeListener snapshotInvalidator = new IPropertyChangeListener()
+    {
+        public void propertyChange(PropertyChangeEvent event)
+        {
+            // a change to the workspace preferences affects the projects
+            // without specific settings: it is simpler to discard everything
+            invalidateSnapshots();
+        }
+    };
+
     protected Preferences()
     {
         migratePrefsIfRequired(initStore(getWorkbenchStore()));
+        getWorkbenchStore().addPropertyChangeListener(snapshotInvalidator);
     }
 
     public static Preferences getInstance()
@@ -92,6 +115,11 @@ public class Preferences
         if(javaProject == null)
             return false;
 
+        return snapshot(javaProject).hasProjectSpecificSettings();
+    }
+
+    boolean readHasProjectSpecificSettings(IJavaProject javaProject)
+    {
         return storeToRead(javaProject).getBoolean(PreferenceConstants.USE_PROJECT_SPECIFIC_SETTINGS);
     }
 
@@ -250,6 +278,11 @@ public class Preferences
     }
 
     public String getTestType(IJavaProject javaProject)
+    {
+        return snapshot(javaProject).getTestType();
+    }
+
+    String readTestType(IJavaProject javaProject)
     {
         if(storeToRead(javaProject).contains(PreferenceConstants.TEST_TYPE))
         {
@@ -264,31 +297,38 @@ public class Preferences
     }
 
     public String getTestPackagePrefix(IJavaProject javaProject)
+    {
+        return snapshot(javaProject).getTestPackagePrefix();
+    }
+
+    String readTestPackagePrefix(IJavaProject javaProject)
     {
         return getStringValue(PreferenceConstants.TEST_PACKAGE_PREFIX, javaProject);
     }
 
     public void setTestPackagePrefix(IJavaProject javaProject, String packagePrefix)
     {
-        synchronized (CACHE_LOCK)
-        {
-            CLASS_NAME_PATTERN_CACHE.clear();
-            getProjectStore(javaProject).setValue(PreferenceConstants.TEST_PACKAGE_PREFIX, packagePrefix);
-        }
+        getProjectStore(javaProject).setValue(PreferenceConstants.TEST_PACKAGE_PREFIX, packagePrefix);
     }
 
     public String getTestPackageSuffix(IJavaProject javaProject)
+    {
+        return snapshot(javaProject).getTestPackageSuffix();
+    }
+
+    String readTestPackageSuffix(IJavaProject javaProject)
     {
         return getStringValue(PreferenceConstants.TEST_PACKAGE_SUFFIX, javaProject);
     }
 
     public void setTestPackageSuffix(IJavaProject javaProject, String packageSuffix)
     {
-        synchronized (CACHE_LOCK)
-        {
-            CLASS_NAME_PATTERN_CACHE.clear();
-            getProjectStore(javaProject).setValue(PreferenceConstants.TEST_PACKAGE_SUFFIX, packageSuffix);
-        }
+        getProjectStore(javaProject).setValue(PreferenceConstants.TEST_PACKAGE_SUFFIX, packageSuffix);
+    }
+
+    String readTestClassNameTemplate(IJavaProject javaProject)
+    {
+        return getStringValue(PreferenceConstants.TEST_CLASS_NAME_TEMPLATE, javaProject);
     }
 
     private IPreferenceStore storeToRead(IJavaProject javaProject)
@@ -333,6 +373,7 @@ public class Preferences
             preferenceMap.put(javaProject, preferenceStore);
             resultStore = initStore(migratePrefsIfRequired(preferenceStore));
             saveMigrationResultIfRequired(preferenceStore, javaProject);
+            preferenceStore.addPropertyChangeListener(snapshotInvalidator);
         }
 
         return resultStore;
@@ -362,8 +403,59 @@ public class Preferences
     {
         synchronized (preferenceMap)
         {
+            for (IPreferenceStore store : preferenceMap.values())
+            {
+                store.removePropertyChangeListener(snapshotInvalidator);
+            }
             preferenceMap.clear();
         }
+        invalidateSnapshots();
+    }
+
+    /**
+     * Returns the snapshot of the preferences of the given project, or of the
+     * workspace if the project is null, building it if required.
+     */
+    PreferencesSnapshot snapshot(IJavaProject javaProject)
+    {
+        PreferencesSnapshot snapshot = javaProject == null ? workspaceSnapshot.get() : projectSnapshots.get(javaProject);
+        if(snapshot != null)
+        {
+            return snapshot;
+        }
+
+        int generation = snapshotGeneration.get();
+        snapshot = new PreferencesSnapshot(this, javaProject);
+        if(javaProject == null)
+        {
+            workspaceSnapshot.set(snapshot);
+        }
+        else
+        {
+            projectSnapshots.put(javaProject, snapshot);
+        }
+
+        if(snapshotGeneration.get() != generation)
+        {
+            // a preference changed while the snapshot was built: it is
+            // returned for this read only
+            if(javaProject == null)
+            {
+                workspaceSnapshot.compareAndSet(snapshot, null);
+            }
+            else
+            {
+                projectSnapshots.remove(javaProject, snapshot);
+            }
+        }
+        return snapshot;
+    }
+
+    private void invalidateSnapshots()
+    {
+        snapshotGeneration.incrementAndGet();
+        workspaceSnapshot.set(null);
+        projectSnapshots.clear();
     }
 
     public IPackageFragmentRoot getTestSourceFolder(IJavaProject project, IPackageFragmentRoot mainSrcFolder)
@@ -479,6 +571,11 @@ public class Preferences
     }
 
     public MethodSearchMode getMethodSearchMode(IJavaProject javaProject)
+    {
+        return snapshot(javaProject).getMethodSearchMode();
+    }
+
+    MethodSearchMode readMethodSearchMode(IJavaProject javaProject)
     {
         boolean searchByCall = getBooleanValue(PreferenceConstants.EXTENDED_TEST_METHOD_SEARCH, javaProject);
         boolean searchByName = ! searchByCall || getBooleanValue(PreferenceConstants.ENABLE_TEST_METHOD_SEARCH_BY_NAME, javaProject);
@@ -511,6 +608,11 @@ public class Preferences
     }
 
     public String getTestAnnotationMode(IJavaProject project)
+    {
+        return snapshot(project).getTestAnnotationMode();
+    }
+
+    String readTestAnnotationMode(IJavaProject project)
     {
         return getStringValue(PreferenceConstants.TEST_ANNOTATION_MODE, project);
     }
@@ -642,38 +744,18 @@ public class Preferences
 
         public TestClassNamePattern getTestClassNamePattern()
         {
-            synchronized (CACHE_LOCK)
-            {
-                String template = getTestClassNameTemplate();
-                String prefix = getPackagePrefix();
-                String suffix = getPackageSuffix();
-                String key = (template == null ? "" : template.length() + template) //
-                             + (prefix == null ? "" : prefix.length() + prefix) //
-                             + (suffix == null ? "" : suffix.length() + suffix);
-
-                TestClassNamePattern pattern = CLASS_NAME_PATTERN_CACHE.get(key);
-                if(pattern == null)
-                {
-                    pattern = new TestClassNamePattern(template, prefix, suffix);
-                    CLASS_NAME_PATTERN_CACHE.put(key, pattern);
-                }
-
-                return pattern;
-            }
+            return prefs.snapshot(project).getTestClassNamePattern();
         }
 
         public void setTestClassNameTemplate(String template)
         {
-            synchronized (CACHE_LOCK)
-            {
-                CLASS_NAME_PATTERN_CACHE.clear();
-                prefs.getProjectStore(project).setValue(PreferenceConstants.TEST_CLASS_NAME_TEMPLATE, template);
-            }
+            FileNameEvaluationCache.getInstance().clear();
+            prefs.getProjectStore(project).setValue(PreferenceConstants.TEST_CLASS_NAME_TEMPLATE, template);
         }
 
         public String getTestClassNameTemplate()
         {
-            return prefs.getStringValue(PreferenceConstants.TEST_CLASS_NAME_TEMPLATE, project);
+            return prefs.snapshot(project).getTestClassNameTemplate();
         }
 
         public TestAnnotationMode getTestAnnotationMode()
@@ -0,0 +1,76 @@
+package org.moreunit.preferences;
+
+import org.eclipse.jdt.core.IJavaProject;
+import org.moreunit.core.util.Strings;
+import org.moreunit.matching.TestClassNamePattern;
+import org.moreunit.preferences.Preferences.MethodSearchMode;
+
+/**
+ * The preferences of a project, or of the workspace, that are read the most
+ * often, as they were when this snapshot was built. Snapshots are immutable,
+ * hence may be shared between threads without locking; {@link Preferences}
+ * discards them when a preference changes.
+ */
+final class PreferencesSnapshot
+{
+    private final boolean projectSpecificSettings;
+    private final String testType;
+    private final String testClassNameTemplate;
+    private final String testPackagePrefix;
+    private final String testPackageSuffix;
+    private final TestClassNamePattern testClassNamePattern;
+    private final MethodSearchMode methodSearchMode;
+    private final String testAnnotationMode;
+
+    PreferencesSnapshot(Preferences prefs, IJavaProject javaProject)
+    {
+        projectSpecificSettings = javaProject != null && prefs.readHasProjectSpecificSettings(javaProject);
+        testType = prefs.readTestType(javaProject);
+        testClassNameTemplate = prefs.readTestClassNameTemplate(javaProject);
+        testPackagePrefix = prefs.readTestPackagePrefix(javaProject);
+        testPackageSuffix = prefs.readTestPackageSuffix(javaProject);
+        testClassNamePattern = new TestClassNamePattern(testClassNameTemplate, Strings.nullIfBlank(testPackagePrefix), Strings.nullIfBlank(testPackageSuffix));
+        methodSearchMode = prefs.readMethodSearchMode(javaProject);
+        testAnnotationMode = prefs.readTestAnnotationMode(javaProject);
+    }
+
+    boolean hasProjectSpecificSettings()
+    {
+        return projectSpecificSettings;
+    }
+
+    String getTestType()
+    {
+        return testType;
+    }
+
+    String getTestClassNameTemplate()
+    {
+        return testClassNameTemplate;
+    }
+
+    String getTestPackagePrefix()
+    {
+        return testPackagePrefix;
+    }
+
+    String getTestPackageSuffix()
+    {
+        return testPackageSuffix;
+    }
+
+    TestClassNamePattern getTestClassNamePattern()
+    {
+        return testClassNamePattern;
+    }
+
+    MethodSearchMode getMethodSearchMode()
+    {
+        return methodSearchMode;
+    }
+
+    String getTestAnnotationMode()
+    {
+        return testAnnotationMode;
+    }
+}
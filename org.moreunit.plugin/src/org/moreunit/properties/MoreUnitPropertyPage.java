@@ -21,6 +21,7 @@ import org.eclipse.swt.widgets.TabItem;
 import org.eclipse.ui.dialogs.PropertyPage;
 import org.eclipse.ui.preferences.ScopedPreferenceStore;
 import org.moreunit.log.LogHandler;
+import org.moreunit.matching.CorrespondingTypeIndex;
 import org.moreunit.preferences.Preferences;
 
 /**
@@ -177,6 +178,8 @@ public class MoreUnitPropertyPage extends PropertyPage
             IPreferenceStore store = Preferences.getInstance().getProjectStore(getJavaProject());
             if(store instanceof ScopedPreferenceStore)
                 ((ScopedPreferenceStore) store).save();
+
+            CorrespondingTypeIndex.getInstance().clear();
         }
         catch (IOException e)
         {
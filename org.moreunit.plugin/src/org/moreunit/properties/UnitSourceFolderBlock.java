@@ -1,6 +1,8 @@
 package org.moreunit.properties;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragmentRoot;
@@ -22,6 +24,7 @@ import org.eclipse.swt.widgets.Label;
 import org.eclipse.ui.PlatformUI;
 import org.moreunit.SourceFolderContext;
 import org.moreunit.elements.SourceFolderMapping;
+import org.moreunit.matching.CorrespondingTypeIndex;
 import org.moreunit.preferences.Preferences;
 import org.moreunit.util.SearchScopeSingelton;
 
@@ -209,10 +212,32 @@ public class UnitSourceFolderBlock implements ISelectionChangedListener
     public void saveProperties()
     {
         List<SourceFolderMapping> mappingList = getListOfUnitSourceFolder();
+
+        Set<IJavaProject> affectedProjects = new HashSet<IJavaProject>();
+        affectedProjects.add(javaProject);
+        addProjects(affectedProjects, Preferences.getInstance().getSourceMappingList(javaProject));
+        addProjects(affectedProjects, mappingList);
+
         Preferences.getInstance().setMappingList(javaProject, mappingList);
 
-        SourceFolderContext.getInstance().initContextForWorkspace();
-        SearchScopeSingelton.getInstance().resetCachedSearchScopes();
+        SourceFolderContext.getInstance().initContextForProject(javaProject);
+        for (IJavaProject project : affectedProjects)
+        {
+            SearchScopeSingelton.getInstance().resetCachedSearchScopes(project);
+        }
+        CorrespondingTypeIndex.getInstance().clear();
+    }
+
+    private static void addProjects(Set<IJavaProject> projects, List<SourceFolderMapping> mappings)
+    {
+        for (SourceFolderMapping mapping : mappings)
+        {
+            projects.add(mapping.getTestFolder().getJavaProject());
+            for (IPackageFragmentRoot sourceFolder : mapping.getSourceFolderList())
+            {
+                projects.add(sourceFolder.getJavaProject());
+            }
+        }
     }
 
     public void selectionChanged(SelectionChangedEvent event)
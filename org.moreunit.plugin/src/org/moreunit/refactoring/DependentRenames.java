@@ -0,0 +1,154 @@
+package org.moreunit.refactoring;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.refactoring.descriptors.RenameJavaElementDescriptor;
+import org.eclipse.ltk.core.refactoring.Change;
+import org.eclipse.ltk.core.refactoring.CompositeChange;
+import org.eclipse.ltk.core.refactoring.Refactoring;
+import org.eclipse.ltk.core.refactoring.RefactoringContribution;
+import org.eclipse.ltk.core.refactoring.RefactoringCore;
+import org.eclipse.ltk.core.refactoring.RefactoringStatus;
+import org.eclipse.ltk.core.refactoring.RefactoringStatusEntry;
+import org.moreunit.util.ParallelJobs;
+
+/**
+ * The renames of test elements that a participant adds to a refactoring.
+ * <p>
+ * The conditions of all renames are checked in parallel jobs, as each of them
+ * runs its own reference search, and their changes are then created in one
+ * pass. Checking conditions does not modify the workspace. Problems found
+ * while checking the renames are reported as warnings, so that they do not
+ * prevent the original refactoring from being performed.
+ * </p>
+ * <p>
+ * This class could be package-private, but is public for testing.
+ * </p>
+ */
+public class DependentRenames
+{
+    private final String name;
+    private final List<Refactoring> refactorings = new ArrayList<Refactoring>();
+    private boolean checked;
+
+    DependentRenames(String name)
+    {
+        this.name = name;
+    }
+
+    /**
+     * Adds a rename refactoring of the given type for the given element.
+     */
+    void add(String refactoringId, IJavaElement element, String newName) throws CoreException
+    {
+        RefactoringContribution refactoringContribution = RefactoringCore.getRefactoringContribution(refactoringId);
+        RenameJavaElementDescriptor renameJavaElementDescriptor = (RenameJavaElementDescriptor) refactoringContribution.createDescriptor();
+        renameJavaElementDescriptor.setJavaElement(element);
+        renameJavaElementDescriptor.setNewName(newName);
+
+        RefactoringStatus refactoringStatus = new RefactoringStatus();
+        refactorings.add(renameJavaElementDescriptor.createRefactoring(refactoringStatus));
+    }
+
+    boolean isEmpty()
+    {
+        return refactorings.isEmpty();
+    }
+
+    /**
+     * Checks the conditions of all renames in parallel, and returns their
+     * merged statuses, downgraded to warnings.
+     */
+    RefactoringStatus checkAllConditions(IProgressMonitor monitor)
+    {
+        checked = true;
+
+        List<ParallelJobs.Task<RefactoringStatus>> tasks = new ArrayList<ParallelJobs.Task<RefactoringStatus>>();
+        for (final Refactoring refactoring : refactorings)
+        {
+            tasks.add(new ParallelJobs.Task<RefactoringStatus>()
+            {
+                public RefactoringStatus run(IProgressMonitor taskMonitor)
+                {
+                    try
+                    {
+                        return refactoring.checkAllConditions(taskMonitor);
+                    }
+                    catch (CoreException e)
+                    {
+                        return RefactoringStatus.create(e.getStatus());
+                    }
+                }
+            });
+        }
+
+        RefactoringStatus result = new RefactoringStatus();
+        for (RefactoringStatus status : ParallelJobs.run("Checking renames of tests", tasks, monitor))
+        {
+            result.merge(asWarnings(status));
+        }
+        return result;
+    }
+
+    /**
+     * Returns a copy of the given status in which errors and fatal errors are
+     * replaced with warnings. Could be private, but is public for testing.
+     */
+    public static RefactoringStatus asWarnings(RefactoringStatus status)
+    {
+        RefactoringStatus result = new RefactoringStatus();
+        for (RefactoringStatusEntry entry : status.getEntries())
+        {
+            if(entry.getSeverity() > RefactoringStatus.WARNING)
+            {
+                result.addWarning(entry.getMessage(), entry.getContext());
+            }
+            else
+            {
+                result.addEntry(entry);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the change performing all renames, or null if there is none.
+     * Conditions are checked first if they have not been yet.
+     */
+    Change createChange(IProgressMonitor monitor) throws CoreException
+    {
+        monitor.beginTask("Creating renames of tests", 2 * refactorings.size());
+        try
+        {
+            if(! checked)
+            {
+                checkAllConditions(new SubProgressMonitor(monitor, refactorings.size()));
+            }
+
+            List<Change> changes = new ArrayList<Change>();
+            for (Refactoring refactoring : refactorings)
+            {
+                changes.add(refactoring.createChange(new SubProgressMonitor(monitor, 1)));
+            }
+
+            if(changes.isEmpty())
+            {
+                return null;
+            }
+            if(changes.size() == 1)
+            {
+                return changes.get(0);
+            }
+            return new CompositeChange(name, changes.toArray(new Change[changes.size()]));
+        }
+        finally
+        {
+            monitor.done();
+        }
+    }
+}
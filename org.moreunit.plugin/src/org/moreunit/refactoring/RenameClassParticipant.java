@@ -1,20 +1,12 @@
 package org.moreunit.refactoring;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.refactoring.IJavaRefactorings;
-import org.eclipse.jdt.core.refactoring.descriptors.RenameJavaElementDescriptor;
 import org.eclipse.ltk.core.refactoring.Change;
-import org.eclipse.ltk.core.refactoring.CompositeChange;
-import org.eclipse.ltk.core.refactoring.Refactoring;
-import org.eclipse.ltk.core.refactoring.RefactoringContribution;
-import org.eclipse.ltk.core.refactoring.RefactoringCore;
 import org.eclipse.ltk.core.refactoring.RefactoringStatus;
 import org.eclipse.ltk.core.refactoring.participants.CheckConditionsContext;
 import org.eclipse.ltk.core.refactoring.participants.RenameParticipant;
@@ -31,6 +23,7 @@ public class RenameClassParticipant extends RenameParticipant
 
     private ICompilationUnit compilationUnit;
     private ClassTypeFacade javaFileFacade;
+    private DependentRenames testRenames;
 
     protected boolean initialize(Object element)
     {
@@ -50,7 +43,20 @@ public class RenameClassParticipant extends RenameParticipant
     public RefactoringStatus checkConditions(IProgressMonitor pm, CheckConditionsContext context) throws OperationCanceledException
     {
         LogHandler.getInstance().handleInfoLog("RenameClassParticipant.checkConditions");
-        return new RefactoringStatus();
+        if(! getArguments().getUpdateReferences())
+        {
+            return new RefactoringStatus();
+        }
+
+        try
+        {
+            return getTestRenames().checkAllConditions(pm);
+        }
+        catch (CoreException e)
+        {
+            LogHandler.getInstance().handleExceptionLog(e);
+            return new RefactoringStatus();
+        }
     }
 
     public Change createChange(IProgressMonitor pm) throws CoreException, OperationCanceledException
@@ -62,30 +68,11 @@ public class RenameClassParticipant extends RenameParticipant
 
         try
         {
-            List<Change> changes = new ArrayList<Change>();
-            RefactoringContribution refactoringContribution = RefactoringCore.getRefactoringContribution(IJavaRefactorings.RENAME_COMPILATION_UNIT);
-            for (IType typeToRename : javaFileFacade.getCorrespondingTestCases())
-            {
-                RenameJavaElementDescriptor renameJavaElementDescriptor = (RenameJavaElementDescriptor) refactoringContribution.createDescriptor();
-                renameJavaElementDescriptor.setJavaElement(typeToRename.getCompilationUnit());
-                renameJavaElementDescriptor.setNewName(getNewTestName(typeToRename));
-                RefactoringStatus refactoringStatus = new RefactoringStatus();
-                Refactoring renameRefactoring = renameJavaElementDescriptor.createRefactoring(refactoringStatus);
-                // RefactoringStatus checkAllConditions =
-                // renameRefactoring.checkAllConditions(pm);
-                renameRefactoring.checkAllConditions(pm);
-                changes.add(renameRefactoring.createChange(pm));
-            }
-
-            if(changes.size() == 1)
-            {
-                return changes.get(0);
-            }
-
-            if(changes.size() > 0)
-            {
-                return new CompositeChange(getName(), changes.toArray(new Change[changes.size()]));
-            }
+            return getTestRenames().createChange(pm);
+        }
+        catch (OperationCanceledException e)
+        {
+            throw e;
         }
         catch (Exception e)
         {
@@ -95,6 +82,19 @@ public class RenameClassParticipant extends RenameParticipant
         return null;
     }
 
+    private DependentRenames getTestRenames() throws CoreException
+    {
+        if(testRenames == null)
+        {
+            testRenames = new DependentRenames(getName());
+            for (IType typeToRename : javaFileFacade.getCorrespondingTestCases())
+            {
+                testRenames.add(IJavaRefactorings.RENAME_COMPILATION_UNIT, typeToRename.getCompilationUnit(), getNewTestName(typeToRename));
+            }
+        }
+        return testRenames;
+    }
+
     private String getNewTestName(IType typeToRename)
     {
         String newName = getArguments().getNewName();
@@ -10,17 +10,13 @@ import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.refactoring.IJavaRefactorings;
-import org.eclipse.jdt.core.refactoring.descriptors.RenameJavaElementDescriptor;
 import org.eclipse.ltk.core.refactoring.Change;
-import org.eclipse.ltk.core.refactoring.CompositeChange;
-import org.eclipse.ltk.core.refactoring.Refactoring;
-import org.eclipse.ltk.core.refactoring.RefactoringContribution;
-import org.eclipse.ltk.core.refactoring.RefactoringCore;
 import org.eclipse.ltk.core.refactoring.RefactoringStatus;
 import org.eclipse.ltk.core.refactoring.participants.CheckConditionsContext;
 import org.eclipse.ltk.core.refactoring.participants.RenameParticipant;
 import org.moreunit.SourceFolderContext;
 import org.moreunit.elements.SourceFolderMapping;
+import org.moreunit.log.LogHandler;
 import org.moreunit.preferences.Preferences;
 import org.moreunit.preferences.Preferences.ProjectPreferences;
 import org.moreunit.util.PluginTools;
@@ -34,6 +30,7 @@ public class RenamePackageParticipant extends RenameParticipant
     private IPackageFragment packageFragment;
     private IPackageFragmentRoot packageFragmentRoot;
     private List<IPackageFragmentRoot> correspondingPackageFragmentRoots;
+    private DependentRenames testRenames;
 
     @Override
     protected boolean initialize(Object element)
@@ -66,7 +63,20 @@ public class RenamePackageParticipant extends RenameParticipant
     @Override
     public RefactoringStatus checkConditions(IProgressMonitor pm, CheckConditionsContext context) throws OperationCanceledException
     {
-        return new RefactoringStatus();
+        if(! getArguments().getUpdateReferences())
+        {
+            return new RefactoringStatus();
+        }
+
+        try
+        {
+            return getTestRenames().checkAllConditions(pm);
+        }
+        catch (CoreException e)
+        {
+            LogHandler.getInstance().handleExceptionLog(e);
+            return new RefactoringStatus();
+        }
     }
 
     @Override
@@ -77,30 +87,31 @@ public class RenamePackageParticipant extends RenameParticipant
             return null;
         }
 
-        String cutPackageName = packageFragment.getElementName();
-        ProjectPreferences prefs = Preferences.forProject(packageFragment.getJavaProject());
-
-        List<Change> changes = new ArrayList<Change>();
+        return getTestRenames().createChange(pm);
+    }
 
-        for (IPackageFragmentRoot packageRoot : correspondingPackageFragmentRoots)
+    /**
+     * Returns the renames of the test packages corresponding to the renamed
+     * package, in all test folders at once.
+     */
+    private DependentRenames getTestRenames() throws CoreException
+    {
+        if(testRenames == null)
         {
-            IPackageFragment packageToRename = packageRoot.getPackageFragment(PluginTools.getTestPackageName(cutPackageName, prefs));
-            if(packageToRename != null && packageToRename.exists())
-            {
-                RefactoringContribution refactoringContribution = RefactoringCore.getRefactoringContribution(IJavaRefactorings.RENAME_PACKAGE);
-                RenameJavaElementDescriptor renameJavaElementDescriptor = (RenameJavaElementDescriptor) refactoringContribution.createDescriptor();
-                renameJavaElementDescriptor.setJavaElement(packageToRename);
-                renameJavaElementDescriptor.setNewName(PluginTools.getTestPackageName(getArguments().getNewName(), prefs));
+            String cutPackageName = packageFragment.getElementName();
+            ProjectPreferences prefs = Preferences.forProject(packageFragment.getJavaProject());
 
-                RefactoringStatus refactoringStatus = new RefactoringStatus();
-                Refactoring renameRefactoring = renameJavaElementDescriptor.createRefactoring(refactoringStatus);
-                renameRefactoring.checkAllConditions(pm);
-
-                changes.add(renameRefactoring.createChange(pm));
+            testRenames = new DependentRenames(getName());
+            for (IPackageFragmentRoot packageRoot : correspondingPackageFragmentRoots)
+            {
+                IPackageFragment packageToRename = packageRoot.getPackageFragment(PluginTools.getTestPackageName(cutPackageName, prefs));
+                if(packageToRename != null && packageToRename.exists())
+                {
+                    testRenames.add(IJavaRefactorings.RENAME_PACKAGE, packageToRename, PluginTools.getTestPackageName(getArguments().getNewName(), prefs));
+                }
             }
         }
-
-        return new CompositeChange(getName(), changes.toArray(new Change[changes.size()]));
+        return testRenames;
     }
 
     private List<IPackageFragmentRoot> getSourceFolderFromContext()
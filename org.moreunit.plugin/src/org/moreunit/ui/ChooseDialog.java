@@ -166,6 +166,34 @@ public class ChooseDialog<T> extends PopupDialog implements DisposeListener
         return treeViewer.getControl();
     }
 
+    /**
+     * Updates the tree after the content of the content provider has changed,
+     * keeping the current selection if any. Must be called from the UI thread.
+     */
+    public void refresh()
+    {
+        if(treeViewer == null)
+            return;
+
+        treeViewer.refresh();
+        if(treeViewer.getSelection().isEmpty() && contentProvider.getDefaultSelection() != null)
+        {
+            treeViewer.setSelection(contentProvider.getDefaultSelection());
+        }
+    }
+
+    /**
+     * Replaces the info text of this dialog. It is only displayed if the
+     * dialog has been created with an info text.
+     */
+    public void setInfo(String infoText)
+    {
+        if(treeViewer != null)
+        {
+            setInfoText(infoText);
+        }
+    }
+
     public Object getSelectedElement()
     {
         if(treeViewer == null)
@@ -3,7 +3,6 @@ package org.moreunit.ui;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -24,9 +23,12 @@ import org.moreunit.util.TypeComparator;
  */
 public class MemberContentProvider implements ITreeContentAndDefaultSelectionProvider
 {
-    private final Map<IType, List<IMethod>> methodsByType;
+    private final IMember memberProposedForSelection;
+    private final List<TreeActionElement< ? >> actions = new ArrayList<TreeActionElement< ? >>();
+    private Map<IType, List<IMethod>> methodsByType;
+    private Object[] members;
     private Object[] elements;
-    private final ISelection defaultSelection;
+    private ISelection defaultSelection;
 
     /**
      * Constructs a provider that will propose the given types and methods,
@@ -46,14 +48,8 @@ public class MemberContentProvider implements ITreeContentAndDefaultSelectionPro
      */
     public MemberContentProvider(Collection<IType> types, Collection<IMethod> methods, IMember memberProposedForSelection)
     {
-        methodsByType = groupMethodsByType(methods);
-
-        List<IType> sortedTypes = sortTypes(types);
-        Set<IType> allTypes = new LinkedHashSet<IType>(sortedTypes);
-        allTypes.addAll(sortTypes(methodsByType.keySet()));
-        this.elements = allTypes.toArray();
-
-        defaultSelection = getDefaultSelection(memberProposedForSelection, sortedTypes);
+        this.memberProposedForSelection = memberProposedForSelection;
+        setMembers(types, methods);
     }
 
     /**
@@ -65,12 +61,29 @@ public class MemberContentProvider implements ITreeContentAndDefaultSelectionPro
      */
     public MemberContentProvider(Collection<IType> types, IType typeProposedForSelection)
     {
-        methodsByType = new HashMap<IType, List<IMethod>>();
+        this(types, Collections.<IMethod> emptySet(), typeProposedForSelection);
+    }
+
+    /**
+     * Replaces the members proposed by this provider, ordered as described in
+     * {@link #MemberContentProvider(Collection, Collection, IMember)}. The
+     * actions of this provider are kept after the members. This allows for
+     * displaying the results of a search while it is still running.
+     * 
+     * @param types types to display first, whether they have methods or not
+     * @param methods methods to display as children of their declaring types
+     */
+    public void setMembers(Collection<IType> types, Collection<IMethod> methods)
+    {
+        methodsByType = groupMethodsByType(methods);
 
         List<IType> sortedTypes = sortTypes(types);
-        this.elements = sortedTypes.toArray();
+        Set<IType> allTypes = new LinkedHashSet<IType>(sortedTypes);
+        allTypes.addAll(sortTypes(methodsByType.keySet()));
+        this.members = allTypes.toArray();
+        this.elements = withActions(members);
 
-        defaultSelection = getDefaultSelection(typeProposedForSelection, sortedTypes);
+        defaultSelection = getDefaultSelection(memberProposedForSelection, sortedTypes);
     }
 
     private Map<IType, List<IMethod>> groupMethodsByType(Collection<IMethod> methods)
@@ -157,19 +170,24 @@ public class MemberContentProvider implements ITreeContentAndDefaultSelectionPro
     }
 
     public MemberContentProvider withAction(TreeActionElement< ? > action)
+    {
+        actions.add(action);
+        this.elements = withActions(members);
+        return this;
+    }
+
+    private Object[] withActions(Object[] members)
     {
         List<Object> elements = new ArrayList<Object>();
-        Collections.addAll(elements, this.elements);
+        Collections.addAll(elements, members);
 
-        if(! elements.isEmpty() && ! (elements.get(elements.size() - 1) instanceof SeparatorElement))
+        if(! elements.isEmpty() && ! actions.isEmpty())
         {
             elements.add(new SeparatorElement());
         }
 
-        elements.add(action);
-
-        this.elements = elements.toArray();
-        return this;
+        elements.addAll(actions);
+        return elements.toArray();
     }
 
 }
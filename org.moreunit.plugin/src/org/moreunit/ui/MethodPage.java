@@ -1,11 +1,7 @@
 package org.moreunit.ui;
 
-import org.eclipse.jdt.core.ElementChangedEvent;
-import org.eclipse.jdt.core.IElementChangedListener;
-import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IMethod;
 import org.eclipse.jdt.core.IType;
-import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.ui.JavaElementLabelProvider;
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.action.IAction;
@@ -16,7 +12,6 @@ import org.eclipse.jface.viewers.ITreeSelection;
 import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
-import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.part.Page;
 import org.moreunit.MoreUnitPlugin;
 import org.moreunit.elements.ClassTypeFacade;
@@ -31,7 +26,7 @@ import org.moreunit.preferences.Preferences.ProjectPreferences;
 /**
  * @author vera, modified 10.08.2010 andreas BugID: 3042170.
  */
-public class MethodPage extends Page implements IElementChangedListener, IDoubleClickListener
+public class MethodPage extends Page implements IDoubleClickListener
 {
     private EditorPartFacade editorPartFacade;
     private TreeViewer treeViewer;
@@ -47,7 +42,6 @@ public class MethodPage extends Page implements IElementChangedListener, IDouble
         super();
 
         this.editorPartFacade = editorPartFacade;
-        JavaCore.addElementChangedListener(this);
     }
 
     @Override
@@ -185,38 +179,6 @@ public class MethodPage extends Page implements IElementChangedListener, IDouble
         this.treeViewer.refresh();
     }
 
-    public void elementChanged(ElementChangedEvent event)
-    {
-        int type = event.getDelta().getElement().getElementType();
-        switch (type)
-        {
-        case (IJavaElement.COMPILATION_UNIT):
-            updateUIafterElementChangedEvent();
-            break;
-        default:
-        {
-        }
-        }
-    }
-
-    private void updateUIafterElementChangedEvent()
-    {
-        PlatformUI.getWorkbench().getDisplay().asyncExec(new Runnable()
-        {
-            public void run()
-            {
-                updateUI();
-            }
-        });
-    }
-
-    @Override
-    public void dispose()
-    {
-        JavaCore.removeElementChangedListener(this);
-        super.dispose();
-    }
-
     public void doubleClick(DoubleClickEvent event)
     {
         ITreeSelection selection = (ITreeSelection) this.treeViewer.getSelection();
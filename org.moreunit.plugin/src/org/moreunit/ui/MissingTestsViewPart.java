@@ -3,6 +3,7 @@ package org.moreunit.ui;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceChangeEvent;
@@ -12,6 +13,7 @@ import org.eclipse.core.resources.IResourceDeltaVisitor;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.ui.JavaElementLabelProvider;
@@ -28,12 +30,14 @@ import org.eclipse.swt.widgets.Combo;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.part.ViewPart;
+import org.eclipse.ui.progress.IWorkbenchSiteProgressService;
 import org.moreunit.elements.MissingClassTreeContentProvider;
 import org.moreunit.util.PluginTools;
 
 public class MissingTestsViewPart extends ViewPart implements SelectionListener, IDoubleClickListener, IResourceChangeListener
 {
     private TreeViewer treeViewer;
+    private MissingClassTreeContentProvider contentProvider;
     private IJavaProject selectedJavaProject;
     private Combo projectComboBox;
 
@@ -51,11 +55,16 @@ public class MissingTestsViewPart extends ViewPart implements SelectionListener,
         projectComboBox.setLayoutData(new GridData(GridData.FILL_HORIZONTAL));
 
         treeViewer = new TreeViewer(composite);
-        treeViewer.setContentProvider(new MissingClassTreeContentProvider());
+        contentProvider = new MissingClassTreeContentProvider();
+        treeViewer.setContentProvider(contentProvider);
         treeViewer.setLabelProvider(new JavaElementLabelProvider());
         treeViewer.setInput(this);
         treeViewer.getTree().setLayoutData(new GridData(GridData.FILL_BOTH));
         treeViewer.addDoubleClickListener(this);
+
+        IWorkbenchSiteProgressService progressService = (IWorkbenchSiteProgressService) getSite().getService(IWorkbenchSiteProgressService.class);
+        if(progressService != null)
+            progressService.showBusyForFamily(contentProvider);
         
         ResourcesPlugin.getWorkspace().addResourceChangeListener(this);
     }
@@ -87,7 +96,7 @@ public class MissingTestsViewPart extends ViewPart implements SelectionListener,
         String projectName = ((Combo) e.getSource()).getText();
         IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(projectName);
         selectedJavaProject = JavaCore.create(project);
-        treeViewer.refresh();
+        contentProvider.scan(selectedJavaProject);
     }
 
     public IJavaProject getSelectedJavaProject()
@@ -131,7 +140,7 @@ public class MissingTestsViewPart extends ViewPart implements SelectionListener,
             return;
         }
         
-        final ArrayList<IResource> addedOrRemovedResource = new ArrayList<IResource>();
+        final ArrayList<ICompilationUnit> addedOrRemovedCompilationUnits = new ArrayList<ICompilationUnit>();
         IResourceDeltaVisitor visitor = new IResourceDeltaVisitor()
         {
             public boolean visit(IResourceDelta delta) throws CoreException
@@ -140,7 +149,9 @@ public class MissingTestsViewPart extends ViewPart implements SelectionListener,
                 {
                     if(delta.getResource().getType() == IResource.FILE && "java".equals(delta.getResource().getFileExtension()))
                     {
-                        addedOrRemovedResource.add(delta.getResource());
+                        IJavaElement element = JavaCore.create((IFile) delta.getResource());
+                        if(element instanceof ICompilationUnit)
+                            addedOrRemovedCompilationUnits.add((ICompilationUnit) element);
                     }
                 }
                 return true;
@@ -156,16 +167,9 @@ public class MissingTestsViewPart extends ViewPart implements SelectionListener,
             e.printStackTrace();
         }
         
-        if(!addedOrRemovedResource.isEmpty())
+        if(!addedOrRemovedCompilationUnits.isEmpty())
         {
-            PlatformUI.getWorkbench().getDisplay().asyncExec(new Runnable()
-            {
-                
-                public void run()
-                {
-                    treeViewer.refresh();
-                }
-            });
+            contentProvider.update(addedOrRemovedCompilationUnits);
         }
     }
     
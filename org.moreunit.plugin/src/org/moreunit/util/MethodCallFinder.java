@@ -3,20 +3,22 @@ package org.moreunit.util;
 import static org.moreunit.core.util.Preconditions.checkNotNull;
 import static org.moreunit.core.util.Preconditions.checkNotNullOrEmpty;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.core.IJavaElement;
-import org.eclipse.jdt.core.IMember;
 import org.eclipse.jdt.core.IMethod;
-import org.eclipse.jdt.core.search.IJavaSearchScope;
-import org.eclipse.jdt.core.search.SearchEngine;
-import org.eclipse.jdt.internal.corext.callhierarchy.CallHierarchy;
-import org.eclipse.jdt.internal.corext.callhierarchy.MethodWrapper;
 import org.moreunit.elements.MethodFacade;
 
+/**
+ * Finds the methods calling, or called by, a given method within a search
+ * scope. Calls are computed and cached by {@link MethodCallGraph}, which does
+ * not rely on the shared JDT CallHierarchy, hence finders may be used
+ * concurrently.
+ */
 public abstract class MethodCallFinder
 {
 
@@ -25,8 +27,9 @@ public abstract class MethodCallFinder
         CALLEE, CALLER
     }
 
-    private final IJavaSearchScope searchScope;
-    private final MethodWrapper methodWrapper;
+    private final IMethod method;
+    private final Collection<IJavaElement> searchScope;
+    private final Direction direction;
 
     protected MethodCallFinder(IMethod method, Collection< ? extends IJavaElement> searchScope, Direction direction)
     {
@@ -34,52 +37,32 @@ public abstract class MethodCallFinder
         checkNotNullOrEmpty(searchScope, "Missing search scope");
         checkNotNull(direction, "Missing direction");
 
-        if(Direction.CALLEE == direction)
-        {
-            this.methodWrapper = CallHierarchy.getDefault().getCalleeRoots(new IMethod[] { method })[0];
-        }
-        else
-        {
-            this.methodWrapper = CallHierarchy.getDefault().getCallerRoots(new IMethod[] { method })[0];
-        }
-
-        this.searchScope = SearchEngine.createJavaSearchScope(JavaElementUtils.toArray(searchScope));
+        this.method = method;
+        this.searchScope = new ArrayList<IJavaElement>(searchScope);
+        this.direction = direction;
     }
 
     public Set<IMethod> getMatches(IProgressMonitor progressMonitor)
     {
-        CallHierarchy callHierarchy = CallHierarchy.getDefault();
-        IJavaSearchScope originalSearchScope = callHierarchy.getSearchScope();
-        try
+        Set<IMethod> matches = new LinkedHashSet<IMethod>();
+        for (IMethod call : MethodCallGraph.getInstance().getCalls(method, searchScope, direction, progressMonitor))
         {
-            callHierarchy.setSearchScope(searchScope);
-
-            Set<IMethod> testCallers = new LinkedHashSet<IMethod>();
-            MethodWrapper[] calls = this.methodWrapper.getCalls(progressMonitor);
-            for (int i = 0; i < calls.length; i++)
+            if(call.getCompilationUnit() == null)
             {
-                IMember member = calls[i].getMember();
-                if(! (member instanceof IMethod) || member.getCompilationUnit() == null)
-                {
-                    continue;
-                }
-                IMethod method = getFirstNonAnonymousMethod(member);
-                if(methodMatch(method))
-                {
-                    testCallers.add(method);
-                }
+                continue;
+            }
+            IMethod matchingMethod = getFirstNonAnonymousMethod(call);
+            if(methodMatch(matchingMethod))
+            {
+                matches.add(matchingMethod);
             }
-            return testCallers;
-        }
-        finally
-        {
-            callHierarchy.setSearchScope(originalSearchScope);
         }
+        return matches;
     }
 
-    private IMethod getFirstNonAnonymousMethod(IMember member)
+    private IMethod getFirstNonAnonymousMethod(IMethod method)
     {
-        return new MethodFacade((IMethod) member).getFirstNonAnonymousMethodCallingThisMethod();
+        return new MethodFacade(method).getFirstNonAnonymousMethodCallingThisMethod();
     }
 
     abstract protected boolean methodMatch(IMethod method);
@@ -0,0 +1,390 @@
+package org.moreunit.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.ISourceRange;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.ClassInstanceCreation;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.ConstructorInvocation;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.MethodInvocation;
+import org.eclipse.jdt.core.dom.NodeFinder;
+import org.eclipse.jdt.core.dom.SuperConstructorInvocation;
+import org.eclipse.jdt.core.dom.SuperMethodInvocation;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.SearchMatch;
+import org.eclipse.jdt.core.search.SearchParticipant;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.core.search.SearchRequestor;
+import org.moreunit.core.util.LRUCache;
+import org.moreunit.log.LogHandler;
+import org.moreunit.util.MethodCallFinder.Direction;
+
+/**
+ * Computes the methods calling a method, or called by it, within a given set
+ * of elements. Contrary to the JDT CallHierarchy, it holds no shared search
+ * scope, hence it may be used concurrently by several jobs.
+ * <p>
+ * Callers are read from the {@link MethodsUnderTestIndex} once the folders of
+ * the scope are indexed, and searched for until then. Results are cached per
+ * method, direction and scope. An entry is invalidated when the compilation
+ * unit of its method, or of any element of its scope, changes.
+ * </p>
+ */
+public class MethodCallGraph implements IElementChangedListener
+{
+    private static final int MAX_CACHED_CALLS = 1000;
+
+    private static final MethodCallGraph instance = new MethodCallGraph();
+
+    /*
+     * Guarded by itself.
+     */
+    private final Map<String, CachedCalls> callsByKey = new LRUCache<String, CachedCalls>(MAX_CACHED_CALLS);
+
+    /**
+     * Incremented on each invalidation, so that results computed while the
+     * Java model was changing are not cached. Guarded by callsByKey.
+     */
+    private long modificationCount;
+
+    public static MethodCallGraph getInstance()
+    {
+        return instance;
+    }
+
+    protected MethodCallGraph()
+    {
+    }
+
+    /**
+     * Returns the methods of the given scope that call the given method, or
+     * that are called by it, depending on the given direction.
+     */
+    public List<IMethod> getCalls(IMethod method, Collection< ? extends IJavaElement> scopeElements, Direction direction, IProgressMonitor monitor)
+    {
+        String[] dependencies = getDependencies(method, scopeElements);
+        String key = direction.name() + Arrays.toString(dependencies);
+
+        long initialModificationCount;
+        synchronized (callsByKey)
+        {
+            CachedCalls cachedCalls = callsByKey.get(key);
+            if(cachedCalls != null)
+            {
+                return cachedCalls.calls;
+            }
+            initialModificationCount = modificationCount;
+        }
+
+        IJavaSearchScope scope = SearchEngine.createJavaSearchScope(JavaElementUtils.toArray(scopeElements));
+        List<IMethod> calls;
+        try
+        {
+            if(Direction.CALLEE == direction)
+            {
+                calls = findCallees(method, scope);
+            }
+            else
+            {
+                calls = findCallers(method, scopeElements, scope, monitor);
+            }
+        }
+        catch (OperationCanceledException e)
+        {
+            return Collections.emptyList();
+        }
+        catch (CoreException e)
+        {
+            LogHandler.getInstance().handleExceptionLog(e);
+            return Collections.emptyList();
+        }
+
+        synchronized (callsByKey)
+        {
+            if(initialModificationCount == modificationCount)
+            {
+                callsByKey.put(key, new CachedCalls(calls, dependencies));
+            }
+        }
+        return calls;
+    }
+
+    private static String[] getDependencies(IMethod method, Collection< ? extends IJavaElement> scopeElements)
+    {
+        List<String> scopeHandles = new ArrayList<String>(scopeElements.size());
+        for (IJavaElement element : scopeElements)
+        {
+            scopeHandles.add(element.getHandleIdentifier());
+        }
+        // the order of the scope elements does not change the result
+        Collections.sort(scopeHandles);
+
+        String[] dependencies = new String[scopeHandles.size() + 1];
+        dependencies[0] = method.getHandleIdentifier();
+        for (int i = 0; i < scopeHandles.size(); i++)
+        {
+            dependencies[i + 1] = scopeHandles.get(i);
+        }
+        return dependencies;
+    }
+
+    private List<IMethod> findCallers(IMethod method, Collection< ? extends IJavaElement> scopeElements, IJavaSearchScope scope, IProgressMonitor monitor) throws CoreException
+    {
+        final Set<IMethod> callers = new LinkedHashSet<IMethod>();
+
+        List<IMethod> indexedCallers = MethodsUnderTestIndex.getInstance().getCallers(method, scopeElements);
+        if(indexedCallers != null)
+        {
+            for (IMethod caller : indexedCallers)
+            {
+                if(scope.encloses(caller))
+                {
+                    callers.add(caller);
+                }
+            }
+            return Collections.unmodifiableList(new ArrayList<IMethod>(callers));
+        }
+
+        SearchPattern pattern = SearchPattern.createPattern(method, IJavaSearchConstants.REFERENCES, SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE);
+        SearchParticipant[] participants = new SearchParticipant[] { SearchEngine.getDefaultSearchParticipant() };
+        new SearchEngine().search(pattern, participants, scope, new SearchRequestor()
+        {
+            @Override
+            public void acceptSearchMatch(SearchMatch match)
+            {
+                if(match.isInsideDocComment() || ! (match.getElement() instanceof IJavaElement))
+                {
+                    return;
+                }
+                // as in the index, calls from the initializers of a class
+                // declared in a method are attributed to that method
+                IJavaElement caller = ((IJavaElement) match.getElement()).getAncestor(IJavaElement.METHOD);
+                if(caller != null)
+                {
+                    callers.add((IMethod) caller);
+                }
+            }
+        }, monitor);
+
+        return Collections.unmodifiableList(new ArrayList<IMethod>(callers));
+    }
+
+    private List<IMethod> findCallees(IMethod method, IJavaSearchScope scope) throws JavaModelException
+    {
+        ICompilationUnit compilationUnit = method.getCompilationUnit();
+        ISourceRange sourceRange = method.getSourceRange();
+        if(compilationUnit == null || sourceRange == null || sourceRange.getOffset() < 0)
+        {
+            return Collections.emptyList();
+        }
+
+        ASTParser parser = ASTParser.newParser(AST.JLS3);
+        parser.setSource(compilationUnit);
+        parser.setResolveBindings(true);
+        CompilationUnit root = (CompilationUnit) parser.createAST(null);
+
+        ASTNode methodNode = NodeFinder.perform(root, sourceRange.getOffset(), sourceRange.getLength());
+        if(methodNode == null)
+        {
+            return Collections.emptyList();
+        }
+
+        CalleeCollector collector = new CalleeCollector(scope);
+        methodNode.accept(collector);
+        return Collections.unmodifiableList(new ArrayList<IMethod>(collector.callees));
+    }
+
+    public void clear()
+    {
+        synchronized (callsByKey)
+        {
+            modificationCount++;
+            callsByKey.clear();
+        }
+    }
+
+    public void elementChanged(ElementChangedEvent event)
+    {
+        processDelta(event.getDelta());
+    }
+
+    private void processDelta(IJavaElementDelta delta)
+    {
+        IJavaElement element = delta.getElement();
+        switch (element.getElementType())
+        {
+        case IJavaElement.JAVA_MODEL:
+            processChildren(delta);
+            break;
+        case IJavaElement.JAVA_PROJECT:
+            if((delta.getFlags() & (IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED)) != 0)
+            {
+                // bindings may be resolved differently in any project
+                clear();
+            }
+            else if(delta.getKind() != IJavaElementDelta.CHANGED || (delta.getFlags() & (IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED)) != 0)
+            {
+                invalidate(element.getHandleIdentifier());
+            }
+            else
+            {
+                processChildren(delta);
+            }
+            break;
+        case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+        case IJavaElement.PACKAGE_FRAGMENT:
+            if(delta.getKind() == IJavaElementDelta.CHANGED)
+            {
+                processChildren(delta);
+            }
+            else
+            {
+                invalidate(element.getHandleIdentifier());
+            }
+            break;
+        case IJavaElement.COMPILATION_UNIT:
+            if(delta.getKind() != IJavaElementDelta.CHANGED || (delta.getFlags() & (IJavaElementDelta.F_CONTENT | IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_FINE_GRAINED)) != 0)
+            {
+                invalidate(element.getHandleIdentifier());
+            }
+            break;
+        default:
+            break;
+        }
+    }
+
+    private void processChildren(IJavaElementDelta delta)
+    {
+        for (IJavaElementDelta child : delta.getAffectedChildren())
+        {
+            processDelta(child);
+        }
+    }
+
+    /**
+     * Removes the entries depending on an element contained in the element
+     * having the given handle identifier.
+     */
+    private void invalidate(String containerHandle)
+    {
+        synchronized (callsByKey)
+        {
+            modificationCount++;
+            for (Iterator<CachedCalls> it = callsByKey.values().iterator(); it.hasNext();)
+            {
+                if(it.next().dependsOn(containerHandle))
+                {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private static class CachedCalls
+    {
+        final List<IMethod> calls;
+        final String[] dependencies;
+
+        CachedCalls(List<IMethod> calls, String[] dependencies)
+        {
+            this.calls = calls;
+            this.dependencies = dependencies;
+        }
+
+        boolean dependsOn(String containerHandle)
+        {
+            for (String dependency : dependencies)
+            {
+                if(dependency.startsWith(containerHandle))
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static class CalleeCollector extends ASTVisitor
+    {
+        final Set<IMethod> callees = new LinkedHashSet<IMethod>();
+        private final IJavaSearchScope scope;
+
+        CalleeCollector(IJavaSearchScope scope)
+        {
+            this.scope = scope;
+        }
+
+        @Override
+        public boolean visit(MethodInvocation node)
+        {
+            addCallee(node.resolveMethodBinding());
+            return true;
+        }
+
+        @Override
+        public boolean visit(SuperMethodInvocation node)
+        {
+            addCallee(node.resolveMethodBinding());
+            return true;
+        }
+
+        @Override
+        public boolean visit(ClassInstanceCreation node)
+        {
+            addCallee(node.resolveConstructorBinding());
+            return true;
+        }
+
+        @Override
+        public boolean visit(ConstructorInvocation node)
+        {
+            addCallee(node.resolveConstructorBinding());
+            return true;
+        }
+
+        @Override
+        public boolean visit(SuperConstructorInvocation node)
+        {
+            addCallee(node.resolveConstructorBinding());
+            return true;
+        }
+
+        private void addCallee(IMethodBinding binding)
+        {
+            if(binding == null)
+            {
+                return;
+            }
+            IJavaElement element = binding.getMethodDeclaration().getJavaElement();
+            if(element instanceof IMethod && scope.encloses(element))
+            {
+                callees.add((IMethod) element);
+            }
+        }
+    }
+}
@@ -0,0 +1,718 @@
+package org.moreunit.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.Flags;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeHierarchy;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTRequestor;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.ClassInstanceCreation;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.ConstructorInvocation;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.MethodInvocation;
+import org.eclipse.jdt.core.dom.SuperConstructorInvocation;
+import org.eclipse.jdt.core.dom.SuperMethodInvocation;
+import org.moreunit.core.util.LRUCache;
+import org.moreunit.log.LogHandler;
+
+/**
+ * A reverse index of the method calls found in a source folder: for each
+ * called method, it gives the methods of the folder calling it. It is
+ * intended for test folders, to find the test methods calling a method under
+ * test without running a search per method.
+ * <p>
+ * A folder is indexed at once: its compilation units are parsed by batches,
+ * in parallel, with resolved bindings. Afterward, only the compilation units
+ * touched by Java deltas are parsed again, when the index is next queried.
+ * </p>
+ * <p>
+ * Calls are indexed under the statically bound method. Since a call to a
+ * method may be dispatched to any method overriding it, the callers of a
+ * method also include the callers of the methods it overrides.
+ * </p>
+ */
+public class MethodsUnderTestIndex implements IElementChangedListener
+{
+    private static final int MAX_INDEXED_FOLDERS = 50;
+    private static final int UNITS_PER_BATCH = 100;
+
+    private static final MethodsUnderTestIndex instance = new MethodsUnderTestIndex();
+
+    /*
+     * Guarded by itself.
+     */
+    private final Map<IPackageFragmentRoot, FolderIndex> indexByFolder = new LRUCache<IPackageFragmentRoot, FolderIndex>(MAX_INDEXED_FOLDERS);
+    /*
+     * The compilation units that changed while their folder was being
+     * indexed. Guarded by indexByFolder.
+     */
+    private final Map<IPackageFragmentRoot, Set<ICompilationUnit>> unitsChangedWhileIndexing = new HashMap<IPackageFragmentRoot, Set<ICompilationUnit>>();
+
+    private final IndexJob indexJob = new IndexJob();
+
+    public static MethodsUnderTestIndex getInstance()
+    {
+        return instance;
+    }
+
+    protected MethodsUnderTestIndex()
+    {
+    }
+
+    /**
+     * Cancels the indexing of test folders, and waits for it to stop.
+     */
+    public void cancelIndexing()
+    {
+        indexJob.cancelAll();
+        try
+        {
+            indexJob.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the methods calling the given method in the source folders of
+     * the given elements, or null if one of those folders is not indexed yet.
+     * In the latter case, the missing folders are indexed in the background.
+     */
+    public List<IMethod> getCallers(IMethod method, Collection< ? extends IJavaElement> elements)
+    {
+        Set<IPackageFragmentRoot> folders = new LinkedHashSet<IPackageFragmentRoot>();
+        for (IJavaElement element : elements)
+        {
+            IPackageFragmentRoot folder = (IPackageFragmentRoot) element.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT);
+            if(folder == null || folder.isArchive())
+            {
+                return null;
+            }
+            folders.add(folder);
+        }
+
+        List<FolderIndex> folderIndexes = new ArrayList<FolderIndex>(folders.size());
+        boolean complete = true;
+        for (IPackageFragmentRoot folder : folders)
+        {
+            FolderIndex folderIndex = getFolderIndex(folder);
+            if(folderIndex == null)
+            {
+                indexJob.index(folder);
+                complete = false;
+            }
+            folderIndexes.add(folderIndex);
+        }
+
+        if(! complete)
+        {
+            return null;
+        }
+
+        List<String> methodHandles = getDispatchedMethodHandles(method);
+        Set<IMethod> callers = new LinkedHashSet<IMethod>();
+        for (FolderIndex folderIndex : folderIndexes)
+        {
+            callers.addAll(folderIndex.getCallers(methodHandles));
+        }
+        return new ArrayList<IMethod>(callers);
+    }
+
+    /**
+     * Returns the handle identifiers of the given method and of the methods it
+     * overrides, since calls to the latter may be dispatched to the former.
+     */
+    private static List<String> getDispatchedMethodHandles(IMethod method)
+    {
+        List<String> handles = new ArrayList<String>();
+        handles.add(method.getHandleIdentifier());
+        try
+        {
+            IType declaringType = method.getDeclaringType();
+            if(method.isConstructor() || Flags.isStatic(method.getFlags()) || Flags.isPrivate(method.getFlags()) || declaringType == null)
+            {
+                return handles;
+            }
+
+            ITypeHierarchy hierarchy = declaringType.newSupertypeHierarchy(null);
+            for (IType supertype : hierarchy.getAllSupertypes(declaringType))
+            {
+                IMethod[] overriddenMethods = supertype.findMethods(method);
+                if(overriddenMethods == null)
+                {
+                    continue;
+                }
+                for (IMethod overriddenMethod : overriddenMethods)
+                {
+                    if(! Flags.isPrivate(overriddenMethod.getFlags()) && ! Flags.isStatic(overriddenMethod.getFlags()))
+                    {
+                        handles.add(overriddenMethod.getHandleIdentifier());
+                    }
+                }
+            }
+        }
+        catch (JavaModelException e)
+        {
+            LogHandler.getInstance().handleExceptionLog(e);
+        }
+        return handles;
+    }
+
+    /**
+     * Indexes the given source folder, replacing any existing index of it.
+     */
+    public void index(IPackageFragmentRoot folder, IProgressMonitor monitor) throws JavaModelException
+    {
+        Set<ICompilationUnit> changedUnits = new LinkedHashSet<ICompilationUnit>();
+        synchronized (indexByFolder)
+        {
+            unitsChangedWhileIndexing.put(folder, changedUnits);
+        }
+
+        try
+        {
+            List<ICompilationUnit> compilationUnits = new ArrayList<ICompilationUnit>();
+            for (IJavaElement child : folder.getChildren())
+            {
+                Collections.addAll(compilationUnits, ((IPackageFragment) child).getCompilationUnits());
+            }
+
+            FolderIndex folderIndex = new FolderIndex(analyze(compilationUnits, monitor));
+            synchronized (indexByFolder)
+            {
+                for (ICompilationUnit compilationUnit : changedUnits)
+                {
+                    folderIndex.unitChanged(compilationUnit);
+                }
+                indexByFolder.put(folder, folderIndex);
+            }
+        }
+        finally
+        {
+            synchronized (indexByFolder)
+            {
+                if(unitsChangedWhileIndexing.get(folder) == changedUnits)
+                {
+                    unitsChangedWhileIndexing.remove(folder);
+                }
+            }
+        }
+    }
+
+    private FolderIndex getFolderIndex(IPackageFragmentRoot folder)
+    {
+        synchronized (indexByFolder)
+        {
+            return indexByFolder.get(folder);
+        }
+    }
+
+    public void clear()
+    {
+        synchronized (indexByFolder)
+        {
+            indexByFolder.clear();
+        }
+    }
+
+    /**
+     * Parses the given compilation units, in parallel batches, and returns the
+     * calls they contain, per compilation unit handle.
+     */
+    private static Map<String, Map<String, List<IMethod>>> analyze(List<ICompilationUnit> compilationUnits, IProgressMonitor monitor)
+    {
+        List<ParallelJobs.Task<Map<String, Map<String, List<IMethod>>>>> batches = new ArrayList<ParallelJobs.Task<Map<String, Map<String, List<IMethod>>>>>();
+        for (int i = 0; i < compilationUnits.size(); i += UNITS_PER_BATCH)
+        {
+            final List<ICompilationUnit> batch = compilationUnits.subList(i, Math.min(i + UNITS_PER_BATCH, compilationUnits.size()));
+            batches.add(new ParallelJobs.Task<Map<String, Map<String, List<IMethod>>>>()
+            {
+                public Map<String, Map<String, List<IMethod>>> run(IProgressMonitor batchMonitor)
+                {
+                    return analyzeBatch(batch, batchMonitor);
+                }
+            });
+        }
+
+        Map<String, Map<String, List<IMethod>>> callsByUnit = new HashMap<String, Map<String, List<IMethod>>>();
+        for (Map<String, Map<String, List<IMethod>>> batchCalls : ParallelJobs.run("Indexing method calls", batches, monitor))
+        {
+            callsByUnit.putAll(batchCalls);
+        }
+        return callsByUnit;
+    }
+
+    private static Map<String, Map<String, List<IMethod>>> analyzeBatch(List<ICompilationUnit> compilationUnits, IProgressMonitor monitor)
+    {
+        final Map<String, Map<String, List<IMethod>>> callsByUnit = new HashMap<String, Map<String, List<IMethod>>>();
+
+        ASTParser parser = ASTParser.newParser(AST.JLS3);
+        parser.setProject(compilationUnits.get(0).getJavaProject());
+        parser.setResolveBindings(true);
+        parser.createASTs(compilationUnits.toArray(new ICompilationUnit[compilationUnits.size()]), new String[0], new ASTRequestor()
+        {
+            @Override
+            public void acceptAST(ICompilationUnit source, CompilationUnit ast)
+            {
+                CallCollector collector = new CallCollector();
+                ast.accept(collector);
+                callsByUnit.put(source.getHandleIdentifier(), collector.getCallers());
+            }
+        }, monitor);
+
+        return callsByUnit;
+    }
+
+    public void elementChanged(ElementChangedEvent event)
+    {
+        processDelta(event.getDelta());
+    }
+
+    private void processDelta(IJavaElementDelta delta)
+    {
+        IJavaElement element = delta.getElement();
+        switch (element.getElementType())
+        {
+        case IJavaElement.JAVA_MODEL:
+            processChildren(delta);
+            break;
+        case IJavaElement.JAVA_PROJECT:
+            if((delta.getFlags() & (IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED)) != 0)
+            {
+                // bindings may be resolved differently in any project
+                clear();
+            }
+            else if(delta.getKind() != IJavaElementDelta.CHANGED || (delta.getFlags() & (IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED)) != 0)
+            {
+                removeFolders(element.getHandleIdentifier());
+            }
+            else
+            {
+                processChildren(delta);
+            }
+            break;
+        case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+            if(delta.getKind() == IJavaElementDelta.CHANGED)
+            {
+                processChildren(delta);
+            }
+            else
+            {
+                removeFolders(element.getHandleIdentifier());
+            }
+            break;
+        case IJavaElement.PACKAGE_FRAGMENT:
+            if(delta.getKind() == IJavaElementDelta.CHANGED)
+            {
+                processChildren(delta);
+            }
+            else
+            {
+                // the compilation units it contains are not reported
+                removeFolders(((IPackageFragmentRoot) element.getParent()).getHandleIdentifier());
+            }
+            break;
+        case IJavaElement.COMPILATION_UNIT:
+            unitChanged((ICompilationUnit) element);
+            break;
+        default:
+            break;
+        }
+    }
+
+    private void unitChanged(ICompilationUnit compilationUnit)
+    {
+        IPackageFragmentRoot folder = (IPackageFragmentRoot) compilationUnit.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT);
+        synchronized (indexByFolder)
+        {
+            FolderIndex folderIndex = indexByFolder.get(folder);
+            if(folderIndex != null)
+            {
+                folderIndex.unitChanged(compilationUnit);
+            }
+
+            Set<ICompilationUnit> changedUnits = unitsChangedWhileIndexing.get(folder);
+            if(changedUnits != null)
+            {
+                changedUnits.add(compilationUnit);
+            }
+        }
+    }
+
+    private void processChildren(IJavaElementDelta delta)
+    {
+        for (IJavaElementDelta child : delta.getAffectedChildren())
+        {
+            processDelta(child);
+        }
+    }
+
+    /**
+     * Removes the indexes of the folders contained in the element having the
+     * given handle identifier.
+     */
+    private void removeFolders(String containerHandle)
+    {
+        synchronized (indexByFolder)
+        {
+            for (Iterator<IPackageFragmentRoot> it = indexByFolder.keySet().iterator(); it.hasNext();)
+            {
+                if(it.next().getHandleIdentifier().startsWith(containerHandle))
+                {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private static class FolderIndex
+    {
+        /*
+         * Guarded by this index.
+         */
+        private final Map<String, Map<String, List<IMethod>>> callsByUnit;
+        /*
+         * The compilation units to parse again, with the modification count
+         * at which they last changed. Guarded by this index.
+         */
+        private final Map<ICompilationUnit, Long> changedUnits = new LinkedHashMap<ICompilationUnit, Long>();
+        private long modificationCount;
+        private Map<String, List<IMethod>> callersByMethod;
+
+        FolderIndex(Map<String, Map<String, List<IMethod>>> callsByUnit)
+        {
+            this.callsByUnit = callsByUnit;
+        }
+
+        synchronized void unitChanged(ICompilationUnit compilationUnit)
+        {
+            changedUnits.put(compilationUnit, ++modificationCount);
+        }
+
+        List<IMethod> getCallers(Collection<String> methodHandles)
+        {
+            Map<ICompilationUnit, Long> unitsToUpdate;
+            synchronized (this)
+            {
+                unitsToUpdate = new LinkedHashMap<ICompilationUnit, Long>(changedUnits);
+            }
+
+            if(! unitsToUpdate.isEmpty())
+            {
+                // parsing is done without holding this index, which Java
+                // deltas need to record changes
+                update(unitsToUpdate, analyzeChangedUnits(unitsToUpdate.keySet()));
+            }
+
+            synchronized (this)
+            {
+                if(callersByMethod == null)
+                {
+                    callersByMethod = reverse(callsByUnit);
+                }
+
+                Set<IMethod> callers = new LinkedHashSet<IMethod>();
+                for (String methodHandle : methodHandles)
+                {
+                    List<IMethod> methodCallers = callersByMethod.get(methodHandle);
+                    if(methodCallers != null)
+                    {
+                        callers.addAll(methodCallers);
+                    }
+                }
+                return new ArrayList<IMethod>(callers);
+            }
+        }
+
+        private static Map<String, Map<String, List<IMethod>>> analyzeChangedUnits(Collection<ICompilationUnit> changedUnits)
+        {
+            List<ICompilationUnit> existingUnits = new ArrayList<ICompilationUnit>();
+            for (ICompilationUnit compilationUnit : changedUnits)
+            {
+                if(compilationUnit.exists())
+                {
+                    existingUnits.add(compilationUnit);
+                }
+            }
+
+            if(! existingUnits.isEmpty())
+            {
+                try
+                {
+                    return analyzeBatch(existingUnits, new NullProgressMonitor());
+                }
+                catch (RuntimeException e)
+                {
+                    LogHandler.getInstance().handleExceptionLog(e);
+                }
+            }
+            return Collections.emptyMap();
+        }
+
+        /**
+         * Replaces the calls of the given compilation units with the given
+         * ones, except for the units that changed again since they were
+         * parsed: those are parsed again by the next query.
+         */
+        private synchronized void update(Map<ICompilationUnit, Long> updatedUnits, Map<String, Map<String, List<IMethod>>> updatedCalls)
+        {
+            for (Entry<ICompilationUnit, Long> updatedUnit : updatedUnits.entrySet())
+            {
+                ICompilationUnit compilationUnit = updatedUnit.getKey();
+                if(! updatedUnit.getValue().equals(changedUnits.get(compilationUnit)))
+                {
+                    continue;
+                }
+                changedUnits.remove(compilationUnit);
+
+                String unitHandle = compilationUnit.getHandleIdentifier();
+                Map<String, List<IMethod>> calls = updatedCalls.get(unitHandle);
+                if(calls == null)
+                {
+                    callsByUnit.remove(unitHandle);
+                }
+                else
+                {
+                    callsByUnit.put(unitHandle, calls);
+                }
+                callersByMethod = null;
+            }
+        }
+
+        private static Map<String, List<IMethod>> reverse(Map<String, Map<String, List<IMethod>>> callsByUnit)
+        {
+            Map<String, Set<IMethod>> callers = new HashMap<String, Set<IMethod>>();
+            for (Map<String, List<IMethod>> calls : callsByUnit.values())
+            {
+                for (Entry<String, List<IMethod>> call : calls.entrySet())
+                {
+                    Set<IMethod> methodCallers = callers.get(call.getKey());
+                    if(methodCallers == null)
+                    {
+                        methodCallers = new LinkedHashSet<IMethod>();
+                        callers.put(call.getKey(), methodCallers);
+                    }
+                    methodCallers.addAll(call.getValue());
+                }
+            }
+
+            Map<String, List<IMethod>> result = new HashMap<String, List<IMethod>>(callers.size());
+            for (Entry<String, Set<IMethod>> entry : callers.entrySet())
+            {
+                result.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<IMethod>(entry.getValue())));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Collects, for each method called in a compilation unit, the methods of
+     * this compilation unit calling it.
+     */
+    private static class CallCollector extends ASTVisitor
+    {
+        private final Map<String, Set<IMethod>> callersByMethod = new HashMap<String, Set<IMethod>>();
+        // may contain null values, for methods having no Java element
+        private final LinkedList<IMethod> enclosingMethods = new LinkedList<IMethod>();
+
+        Map<String, List<IMethod>> getCallers()
+        {
+            Map<String, List<IMethod>> result = new HashMap<String, List<IMethod>>(callersByMethod.size());
+            for (Entry<String, Set<IMethod>> entry : callersByMethod.entrySet())
+            {
+                result.put(entry.getKey(), new ArrayList<IMethod>(entry.getValue()));
+            }
+            return result;
+        }
+
+        @Override
+        public boolean visit(MethodDeclaration node)
+        {
+            IMethodBinding binding = node.resolveBinding();
+            IJavaElement element = binding == null ? null : binding.getJavaElement();
+            enclosingMethods.addFirst(element instanceof IMethod ? (IMethod) element : null);
+            return true;
+        }
+
+        @Override
+        public void endVisit(MethodDeclaration node)
+        {
+            enclosingMethods.removeFirst();
+        }
+
+        @Override
+        public boolean visit(MethodInvocation node)
+        {
+            addCall(node.resolveMethodBinding());
+            return true;
+        }
+
+        @Override
+        public boolean visit(SuperMethodInvocation node)
+        {
+            addCall(node.resolveMethodBinding());
+            return true;
+        }
+
+        @Override
+        public boolean visit(ClassInstanceCreation node)
+        {
+            addCall(node.resolveConstructorBinding());
+            return true;
+        }
+
+        @Override
+        public boolean visit(ConstructorInvocation node)
+        {
+            addCall(node.resolveConstructorBinding());
+            return true;
+        }
+
+        @Override
+        public boolean visit(SuperConstructorInvocation node)
+        {
+            addCall(node.resolveConstructorBinding());
+            return true;
+        }
+
+        private void addCall(IMethodBinding binding)
+        {
+            // calls from the initializers of a class declared in a method are
+            // attributed to that method; calls from other initializers are
+            // ignored, as are calls to methods having no Java element
+            IMethod caller = enclosingMethods.isEmpty() ? null : enclosingMethods.getFirst();
+            if(caller == null || binding == null)
+            {
+                return;
+            }
+            IJavaElement callee = binding.getMethodDeclaration().getJavaElement();
+            if(! (callee instanceof IMethod))
+            {
+                return;
+            }
+
+            String calleeHandle = callee.getHandleIdentifier();
+            Set<IMethod> callers = callersByMethod.get(calleeHandle);
+            if(callers == null)
+            {
+                callers = new LinkedHashSet<IMethod>();
+                callersByMethod.put(calleeHandle, callers);
+            }
+            callers.add(caller);
+        }
+    }
+
+    private class IndexJob extends Job
+    {
+        /*
+         * Guarded by this job.
+         */
+        private final Set<IPackageFragmentRoot> pendingFolders = new LinkedHashSet<IPackageFragmentRoot>();
+
+        IndexJob()
+        {
+            super("Indexing test method calls");
+            setPriority(Job.LONG);
+        }
+
+        synchronized void index(IPackageFragmentRoot folder)
+        {
+            if(pendingFolders.add(folder))
+            {
+                schedule();
+            }
+        }
+
+        @Override
+        protected IStatus run(IProgressMonitor monitor)
+        {
+            while (true)
+            {
+                IPackageFragmentRoot folder;
+                synchronized (this)
+                {
+                    if(pendingFolders.isEmpty())
+                    {
+                        return Status.OK_STATUS;
+                    }
+                    folder = pendingFolders.iterator().next();
+                }
+
+                try
+                {
+                    if(getFolderIndex(folder) == null && folder.exists())
+                    {
+                        MethodsUnderTestIndex.this.index(folder, monitor);
+                    }
+                }
+                catch (OperationCanceledException e)
+                {
+                    synchronized (this)
+                    {
+                        pendingFolders.clear();
+                    }
+                    return Status.CANCEL_STATUS;
+                }
+                catch (JavaModelException e)
+                {
+                    LogHandler.getInstance().handleExceptionLog(e);
+                }
+                catch (RuntimeException e)
+                {
+                    // rethrown from an analysis task: the next folders are
+                    // still indexed
+                    LogHandler.getInstance().handleExceptionLog(e);
+                }
+                finally
+                {
+                    synchronized (this)
+                    {
+                        pendingFolders.remove(folder);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Forgets the pending folders and cancels the job.
+         */
+        synchronized void cancelAll()
+        {
+            pendingFolders.clear();
+            cancel();
+        }
+    }
+}
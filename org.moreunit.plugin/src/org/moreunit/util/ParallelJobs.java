@@ -0,0 +1,224 @@
+package org.moreunit.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Runs independent tasks in parallel, in system jobs, and returns their
+ * results in the order of the tasks.
+ * <p>
+ * The jobs have no scheduling rule: tasks may read the Java model, but must
+ * not modify the workspace.
+ * </p>
+ */
+public final class ParallelJobs
+{
+    /**
+     * A task run by {@link ParallelJobs}. The given monitor belongs to the job
+     * running the task, and is canceled when the whole run is.
+     */
+    public interface Task<T>
+    {
+        T run(IProgressMonitor monitor);
+    }
+
+    private ParallelJobs()
+    {
+    }
+
+    /**
+     * Runs the given tasks in at most as many jobs as there are processors,
+     * and waits for them. Progress monitors are not thread-safe: the given one
+     * is only used by the calling thread, which reports one unit of work per
+     * completed task, and cancels the jobs when it is itself canceled.
+     *
+     * @throws OperationCanceledException if the monitor or one of the jobs is
+     *             canceled
+     * @throws RuntimeException the first exception thrown by a task, the
+     *             remaining tasks being canceled
+     */
+    public static <T> List<T> run(String name, List< ? extends Task<T>> tasks, IProgressMonitor monitor)
+    {
+        monitor.beginTask(name, tasks.size());
+        try
+        {
+            Execution<T> execution = new Execution<T>(tasks);
+            int jobCount = Math.min(Runtime.getRuntime().availableProcessors(), tasks.size());
+            List<Job> jobs = new ArrayList<Job>(jobCount);
+            for (int i = 0; i < jobCount; i++)
+            {
+                Job job = new WorkerJob<T>(name, execution);
+                job.setSystem(true);
+                job.schedule();
+                jobs.add(job);
+            }
+
+            try
+            {
+                execution.await(monitor);
+            }
+            finally
+            {
+                for (Job job : jobs)
+                {
+                    job.cancel();
+                }
+            }
+            return execution.getResults();
+        }
+        finally
+        {
+            monitor.done();
+        }
+    }
+
+    private static final class Execution<T>
+    {
+        private final List< ? extends Task<T>> tasks;
+        /*
+         * Guarded by this execution.
+         */
+        private final Object[] results;
+        private int nextTask;
+        private int completedTasks;
+        private RuntimeException failure;
+        private boolean canceled;
+
+        Execution(List< ? extends Task<T>> tasks)
+        {
+            this.tasks = tasks;
+            results = new Object[tasks.size()];
+        }
+
+        /**
+         * Returns the index of the next task to run, or -1 if there is none
+         * left or if the execution is over.
+         */
+        synchronized int takeTask()
+        {
+            if(failure != null || canceled || nextTask == tasks.size())
+            {
+                return -1;
+            }
+            return nextTask++;
+        }
+
+        Task<T> getTask(int index)
+        {
+            return tasks.get(index);
+        }
+
+        synchronized void completed(int index, T result)
+        {
+            results[index] = result;
+            completedTasks++;
+            notifyAll();
+        }
+
+        synchronized void failed(RuntimeException e)
+        {
+            if(failure == null)
+            {
+                failure = e;
+            }
+            notifyAll();
+        }
+
+        synchronized void cancel()
+        {
+            canceled = true;
+            notifyAll();
+        }
+
+        synchronized void await(IProgressMonitor monitor)
+        {
+            int reportedTasks = 0;
+            while (completedTasks != tasks.size() && failure == null && ! canceled)
+            {
+                if(monitor.isCanceled())
+                {
+                    canceled = true;
+                    break;
+                }
+
+                try
+                {
+                    // wakes up regularly to check the monitor
+                    wait(100);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    canceled = true;
+                    break;
+                }
+
+                monitor.worked(completedTasks - reportedTasks);
+                reportedTasks = completedTasks;
+            }
+            monitor.worked(completedTasks - reportedTasks);
+
+            if(failure != null)
+            {
+                throw failure;
+            }
+            if(canceled)
+            {
+                throw new OperationCanceledException();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized List<T> getResults()
+        {
+            return (List<T>) Arrays.asList(results);
+        }
+    }
+
+    private static final class WorkerJob<T> extends Job
+    {
+        private final Execution<T> execution;
+
+        WorkerJob(String name, Execution<T> execution)
+        {
+            super(name);
+            this.execution = execution;
+        }
+
+        @Override
+        protected IStatus run(IProgressMonitor monitor)
+        {
+            for (int index = execution.takeTask(); index != -1; index = execution.takeTask())
+            {
+                try
+                {
+                    if(monitor.isCanceled())
+                    {
+                        throw new OperationCanceledException();
+                    }
+                    execution.completed(index, execution.getTask(index).run(monitor));
+                }
+                catch (OperationCanceledException e)
+                {
+                    // the task will never complete
+                    execution.cancel();
+                    return Status.CANCEL_STATUS;
+                }
+                catch (RuntimeException e)
+                {
+                    // rethrown by the waiting thread
+                    execution.failed(e);
+                    return Status.OK_STATUS;
+                }
+            }
+            return Status.OK_STATUS;
+        }
+    }
+}
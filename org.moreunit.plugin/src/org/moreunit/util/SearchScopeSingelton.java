@@ -1,25 +1,52 @@
 package org.moreunit.util;
 
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragmentRoot;
-import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.search.IJavaSearchScope;
 import org.eclipse.jdt.core.search.SearchEngine;
 import org.moreunit.SourceFolderContext;
-import org.moreunit.log.LogHandler;
+import org.moreunit.core.util.LRUCache;
 
 /**
+ * Caches the search scopes used to look for corresponding types, per source
+ * folder. This class is thread-safe: scopes are requested concurrently by
+ * decorators, annotation jobs and the UI thread.
+ * <p>
+ * Entries are invalidated per project when the classpath or the source folders
+ * of a project change (see {@link #elementChanged(ElementChangedEvent)}), or
+ * when its MoreUnit settings change.
+ * </p>
+ *
  * @author vera 14.03.2008 20:52:17
  */
-public class SearchScopeSingelton
+public class SearchScopeSingelton implements IElementChangedListener
 {
+    private static final int MAX_CACHED_SCOPES = 500;
 
     private static final SearchScopeSingelton instance = new SearchScopeSingelton();
 
-    private Map<IPackageFragmentRoot, IJavaSearchScope> searchScopeMap = new HashMap<IPackageFragmentRoot, IJavaSearchScope>();
+    /*
+     * Guarded by itself.
+     */
+    private final Map<IPackageFragmentRoot, CachedScope> searchScopeMap = new LRUCache<IPackageFragmentRoot, CachedScope>(MAX_CACHED_SCOPES);
+    /**
+     * Incremented on each invalidation, so that scopes built from a classpath
+     * that was changing are not cached. Guarded by searchScopeMap.
+     */
+    private long modificationCount;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
 
     public static SearchScopeSingelton getInstance()
     {
@@ -28,20 +55,45 @@ public class SearchScopeSingelton
 
     public IJavaSearchScope getSearchScope(IPackageFragmentRoot sourceFolder)
     {
-        if(searchScopeMap.containsKey(sourceFolder))
-            return searchScopeMap.get(sourceFolder);
-        else
+        long initialModificationCount;
+        synchronized (searchScopeMap)
         {
-            IJavaSearchScope scope = getSearchScopeFromContext(sourceFolder);
-            searchScopeMap.put(sourceFolder, scope);
-            return scope;
+            CachedScope cachedScope = searchScopeMap.get(sourceFolder);
+            if(cachedScope != null)
+            {
+                hitCount.incrementAndGet();
+                return cachedScope.scope;
+            }
+            initialModificationCount = modificationCount;
         }
+
+        missCount.incrementAndGet();
+        CachedScope cachedScope = getSearchScopeFromContext(sourceFolder);
+
+        synchronized (searchScopeMap)
+        {
+            if(initialModificationCount != modificationCount)
+            {
+                return cachedScope.scope;
+            }
+
+            // another thread may have created the same scope in the meantime:
+            // keeps the first one, so that callers share the same instance
+            CachedScope existingScope = searchScopeMap.get(sourceFolder);
+            if(existingScope != null)
+            {
+                return existingScope.scope;
+            }
+            searchScopeMap.put(sourceFolder, cachedScope);
+        }
+        return cachedScope.scope;
     }
 
-    private IJavaSearchScope getSearchScopeFromContext(IPackageFragmentRoot sourceFolder)
+    private CachedScope getSearchScopeFromContext(IPackageFragmentRoot sourceFolder)
     {
         List<IPackageFragmentRoot> sourceFolderToSearch = SourceFolderContext.getInstance().getSourceFolderToSearch(sourceFolder);
-        return SearchEngine.createJavaSearchScope(sourceFolderToSearch.toArray(new IPackageFragmentRoot[sourceFolderToSearch.size()]));
+        IJavaSearchScope scope = SearchEngine.createJavaSearchScope(sourceFolderToSearch.toArray(new IPackageFragmentRoot[sourceFolderToSearch.size()]));
+        return new CachedScope(scope, sourceFolderToSearch);
     }
 
     /**
@@ -49,6 +101,99 @@ public class SearchScopeSingelton
      */
     public void resetCachedSearchScopes()
     {
-        searchScopeMap = new HashMap<IPackageFragmentRoot, IJavaSearchScope>();
+        synchronized (searchScopeMap)
+        {
+            modificationCount++;
+            searchScopeMap.clear();
+        }
+    }
+
+    /**
+     * Removes the scopes of the source folders of the given project, as well
+     * as the scopes including any of its source folders.
+     */
+    public void resetCachedSearchScopes(IJavaProject project)
+    {
+        synchronized (searchScopeMap)
+        {
+            modificationCount++;
+            for (Iterator<Entry<IPackageFragmentRoot, CachedScope>> it = searchScopeMap.entrySet().iterator(); it.hasNext();)
+            {
+                Entry<IPackageFragmentRoot, CachedScope> entry = it.next();
+                if(project.equals(entry.getKey().getJavaProject()) || entry.getValue().includesFolderOf(project))
+                {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    public long getHitCount()
+    {
+        return hitCount.get();
+    }
+
+    public long getMissCount()
+    {
+        return missCount.get();
+    }
+
+    public void elementChanged(ElementChangedEvent event)
+    {
+        for (IJavaElementDelta projectDelta : event.getDelta().getAffectedChildren())
+        {
+            IJavaElement element = projectDelta.getElement();
+            if(element.getElementType() == IJavaElement.JAVA_PROJECT && affectsSourceFolders(projectDelta))
+            {
+                resetCachedSearchScopes((IJavaProject) element);
+            }
+        }
+    }
+
+    private boolean affectsSourceFolders(IJavaElementDelta projectDelta)
+    {
+        if(projectDelta.getKind() != IJavaElementDelta.CHANGED)
+        {
+            return true;
+        }
+
+        int projectFlags = IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED | IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED;
+        if((projectDelta.getFlags() & projectFlags) != 0)
+        {
+            return true;
+        }
+
+        for (IJavaElementDelta rootDelta : projectDelta.getAffectedChildren())
+        {
+            if(rootDelta.getElement().getElementType() == IJavaElement.PACKAGE_FRAGMENT_ROOT && rootDelta.getKind() != IJavaElementDelta.CHANGED)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class CachedScope
+    {
+        final IJavaSearchScope scope;
+        final List<IPackageFragmentRoot> sourceFolders;
+
+        CachedScope(IJavaSearchScope scope, List<IPackageFragmentRoot> sourceFolders)
+        {
+            this.scope = scope;
+            this.sourceFolders = sourceFolders;
+        }
+
+        boolean includesFolderOf(IJavaProject project)
+        {
+            for (IPackageFragmentRoot sourceFolder : sourceFolders)
+            {
+                if(project.equals(sourceFolder.getJavaProject()))
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
     }
 }
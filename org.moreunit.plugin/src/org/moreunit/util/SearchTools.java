@@ -13,6 +13,9 @@ import java.util.Set;
 import java.util.TreeSet;
 
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.search.IJavaSearchScope;
 import org.eclipse.jdt.core.search.SearchEngine;
@@ -26,6 +29,8 @@ import org.eclipse.jdt.core.search.SearchRequestor;
  */
 public class SearchTools
 {
+    private static final int UNBOUNDED = - 1;
+
     public static Set<IType> searchFor(String typeName, IJavaSearchScope scope) throws CoreException
     {
         return search(createPattern(typeName, TYPE, DECLARATIONS, R_EXACT_MATCH), scope);
@@ -33,15 +38,52 @@ public class SearchTools
 
     public static Set<IType> searchFor(Collection<String> typeNamePatterns, IJavaSearchScope scope) throws CoreException
     {
-        return search(createSearchPattern(typeNamePatterns, TYPE, DECLARATIONS, R_PATTERN_MATCH), scope);
+        return search(createSearchPattern(typeNamePatterns, TYPE, DECLARATIONS, R_PATTERN_MATCH), scope, UNBOUNDED);
+    }
+
+    /**
+     * Returns at most <tt>maxMatches</tt> types matching the given patterns,
+     * for instance to be proposed in a dialog. The search is canceled as soon
+     * as this number of matches is reached, hence the returned types are not
+     * necessarily the first ones in the order of {@link TypeComparator}.
+     */
+    public static Set<IType> searchFor(Collection<String> typeNamePatterns, IJavaSearchScope scope, int maxMatches) throws CoreException
+    {
+        return search(createSearchPattern(typeNamePatterns, TYPE, DECLARATIONS, R_PATTERN_MATCH), scope, maxMatches);
+    }
+
+    /**
+     * Returns true if at least one type matches the given patterns. The search
+     * is canceled as soon as a match is found.
+     */
+    public static boolean existsTypeMatching(Collection<String> typeNamePatterns, IJavaSearchScope scope) throws CoreException
+    {
+        return ! searchFor(typeNamePatterns, scope, 1).isEmpty();
     }
 
     private static Set<IType> search(SearchPattern pattern, IJavaSearchScope scope) throws CoreException
+    {
+        return search(pattern, scope, UNBOUNDED);
+    }
+
+    private static Set<IType> search(SearchPattern pattern, IJavaSearchScope scope, int maxMatches) throws CoreException
     {
         SearchParticipant[] participants = new SearchParticipant[] { SearchEngine.getDefaultSearchParticipant() };
-        MatchCollector collector = new MatchCollector();
+        IProgressMonitor monitor = new NullProgressMonitor();
+        MatchCollector collector = new MatchCollector(maxMatches, monitor);
 
-        new SearchEngine().search(pattern, participants, scope, collector, null);
+        try
+        {
+            new SearchEngine().search(pattern, participants, scope, collector, monitor);
+        }
+        catch (OperationCanceledException e)
+        {
+            // expected when the search was canceled by the collector
+            if(! collector.isFull())
+            {
+                throw e;
+            }
+        }
 
         return getMatchesPreservingOrder(collector);
     }
@@ -78,10 +120,33 @@ public class SearchTools
     private static class MatchCollector extends SearchRequestor
     {
         private final Set<IType> matches = new TreeSet<IType>(new TypeComparator());
+        private final int maxMatches;
+        private final IProgressMonitor monitor;
+
+        MatchCollector(int maxMatches, IProgressMonitor monitor)
+        {
+            this.maxMatches = maxMatches;
+            this.monitor = monitor;
+        }
 
         public void acceptSearchMatch(SearchMatch match)
         {
+            if(isFull())
+            {
+                return;
+            }
+
             matches.add((IType) match.getElement());
+            if(isFull())
+            {
+                // no need to go further: stops the search engine
+                monitor.setCanceled(true);
+            }
+        }
+
+        boolean isFull()
+        {
+            return maxMatches != UNBOUNDED && matches.size() >= maxMatches;
         }
     }
 }
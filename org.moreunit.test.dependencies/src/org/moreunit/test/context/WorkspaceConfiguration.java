@@ -136,6 +136,11 @@ class WorkspaceConfiguration
         applyWorkspacePreferences(prefs);
         applyProjectProperties(wsHandler, prefs);
         applyClasspathUpdate(wsHandler);
+
+        // source folder mappings are otherwise only taken into account by a
+        // background job, once the classpath delta is received
+        SourceFolderContext.getInstance().initContextForWorkspace();
+        SearchScopeSingelton.getInstance().resetCachedSearchScopes();
     }
 
     private void applyWorkspacePreferences(DummyPreferencesForTesting prefs)
@@ -0,0 +1,49 @@
+package org.moreunit;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.util.ArrayList;
+
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.junit.Test;
+import org.moreunit.elements.SourceFolderMapping;
+import org.moreunit.preferences.Preferences;
+import org.moreunit.test.context.ContextTestCase;
+import org.moreunit.test.context.Project;
+import org.moreunit.test.context.Properties;
+import org.moreunit.test.context.TestType;
+
+@Project(mainCls = "Hello", testCls = "HelloTest", mainSrcFolder = "src", testSrcFolder = "test", properties = @Properties(testType = TestType.JUNIT4))
+public class SourceFolderContextTest extends ContextTestCase
+{
+    @Test
+    public void getSourceFolderToSearch_should_return_mapped_folders() throws Exception
+    {
+        assertThat(SourceFolderContext.getInstance().getSourceFolderToSearch(mainSrcFolder())).containsExactly(testSrcFolder());
+        assertThat(SourceFolderContext.getInstance().getSourceFolderToSearch(testSrcFolder())).containsExactly(mainSrcFolder());
+    }
+
+    @Test
+    public void getSourceFolderToSearch_should_return_all_source_folders_of_unmapped_project() throws Exception
+    {
+        IJavaProject project = context.getProjectHandler().get();
+        Preferences.getInstance().setMappingList(project, new ArrayList<SourceFolderMapping>());
+
+        SourceFolderContext.getInstance().initContextForProject(project);
+
+        assertThat(SourceFolderContext.getInstance().getSourceFolderToSearch(mainSrcFolder())).contains(mainSrcFolder(), testSrcFolder());
+        // memoized until next classpath change
+        assertThat(SourceFolderContext.getInstance().getSourceFolderToSearch(mainSrcFolder())).isSameAs(SourceFolderContext.getInstance().getSourceFolderToSearch(mainSrcFolder()));
+    }
+
+    private IPackageFragmentRoot mainSrcFolder()
+    {
+        return context.getProjectHandler().getMainSrcFolderHandler().get();
+    }
+
+    private IPackageFragmentRoot testSrcFolder()
+    {
+        return context.getProjectHandler().getTestSrcFolderHandler().get();
+    }
+}
@@ -0,0 +1,66 @@
+package org.moreunit.elements;
+
+import static java.util.Arrays.asList;
+import static org.fest.assertions.Assertions.assertThat;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.JavaCore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.moreunit.test.context.Context;
+import org.moreunit.test.context.ContextTestCase;
+import org.moreunit.test.context.configs.SimpleJUnit3Project;
+import org.moreunit.test.workspace.TypeHandler;
+
+@Context(SimpleJUnit3Project.class)
+public class ChangedMethodsTrackerTest extends ContextTestCase
+{
+    private final ChangedMethodsTracker tracker = new ChangedMethodsTracker();
+
+    @Before
+    public void startTracking() throws Exception
+    {
+        JavaCore.addElementChangedListener(tracker, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+    }
+
+    @After
+    public void stopTracking() throws Exception
+    {
+        JavaCore.removeElementChangedListener(tracker);
+    }
+
+    @Test
+    public void takeChangedMethods_should_return_added_methods() throws Exception
+    {
+        IMethod getNumberOne = classUnderTestHandler().addMethod("public int getNumberOne()", "return 1;").get();
+
+        assertThat(tracker.takeChangedMethods()).contains(getNumberOne);
+    }
+
+    @Test
+    public void takeChangedMethods_should_forget_returned_methods() throws Exception
+    {
+        classUnderTestHandler().addMethod("public int getNumberOne()", "return 1;");
+        tracker.takeChangedMethods();
+
+        assertThat(tracker.takeChangedMethods()).isEmpty();
+    }
+
+    @Test
+    public void addChangedMethods_should_record_methods_again() throws Exception
+    {
+        IMethod getNumberOne = classUnderTestHandler().addMethod("public int getNumberOne()", "return 1;").get();
+        tracker.takeChangedMethods();
+
+        tracker.addChangedMethods(asList(getNumberOne));
+
+        assertThat(tracker.takeChangedMethods()).containsOnly(getNumberOne);
+    }
+
+    private TypeHandler classUnderTestHandler()
+    {
+        return context.getPrimaryTypeHandler("org.SomeClass");
+    }
+}
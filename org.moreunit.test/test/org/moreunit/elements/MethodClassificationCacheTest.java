@@ -0,0 +1,70 @@
+package org.moreunit.elements;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.moreunit.test.context.Context;
+import org.moreunit.test.context.ContextTestCase;
+import org.moreunit.test.context.configs.SimpleJUnit4Project;
+import org.moreunit.test.workspace.TypeHandler;
+
+@Context(SimpleJUnit4Project.class)
+public class MethodClassificationCacheTest extends ContextTestCase
+{
+    private final MethodClassificationCache cache = new MethodClassificationCache();
+
+    @Before
+    public void startListening() throws Exception
+    {
+        JavaCore.addElementChangedListener(cache, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+    }
+
+    @After
+    public void stopListening() throws Exception
+    {
+        JavaCore.removeElementChangedListener(cache);
+    }
+
+    @Test
+    @Context(mainSrc = "FilterMethodVisitor_class_with_one_private_method.java.txt")
+    public void isPrivateMethod_should_only_return_true_for_private_methods() throws Exception
+    {
+        IType type = someClassHandler().get();
+
+        assertThat(cache.isPrivateMethod(type.getMethod("getNumberOne", new String[0]))).isTrue();
+        assertThat(cache.isPrivateMethod(type.getMethod("getNumberTwo", new String[0]))).isFalse();
+        assertThat(cache.isPrivateMethod(type.getMethod("getNumberFour", new String[0]))).isFalse();
+    }
+
+    @Test
+    @Context(mainSrc = "FilterMethodVisitor_class_with_getter.java.txt")
+    public void isGetterOrSetterMethod_should_return_true_for_getters() throws Exception
+    {
+        IType type = someClassHandler().get();
+
+        assertThat(cache.isGetterOrSetterMethod(type.getMethod("getFieldName1", new String[0]))).isTrue();
+    }
+
+    @Test
+    @Context(mainSrc = "FilterMethodVisitor_class_with_one_private_method.java.txt")
+    public void isPrivateMethod_should_classify_methods_added_after_first_call() throws Exception
+    {
+        IType type = someClassHandler().get();
+        assertThat(cache.isPrivateMethod(type.getMethod("getNumberOne", new String[0]))).isTrue();
+
+        IMethod getNumberFive = someClassHandler().addMethod("private int getNumberFive()", "return 5;").get();
+
+        assertThat(cache.isPrivateMethod(getNumberFive)).isTrue();
+    }
+
+    private TypeHandler someClassHandler()
+    {
+        return context.getCompilationUnitHandler("te.st.SomeClass").getPrimaryTypeHandler();
+    }
+}
@@ -0,0 +1,166 @@
+package org.moreunit.elements;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.TreeItem;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.moreunit.test.context.ContextTestCase;
+import org.moreunit.test.context.Preferences;
+import org.moreunit.test.context.Project;
+
+@Preferences(testClassNameTemplate = "${srcFile}Test", testSrcFolder = "test")
+@Project(mainCls = "org:SomeClass; org:OtherClass", testCls = "org:SomeClassTest")
+public class MethodTreeContentProviderTest extends ContextTestCase
+{
+    private ICompilationUnit someClass;
+    private ICompilationUnit someClassTest;
+    private ICompilationUnit otherClass;
+    private Shell shell;
+    private TreeViewer treeViewer;
+    private MethodTreeContentProvider contentProvider;
+
+    @Before
+    public void init() throws Exception
+    {
+        someClass = workingCopy("org.SomeClass", "package org;\n\npublic class SomeClass\n{\n    public void foo()\n    {\n    }\n\n    public void bar()\n    {\n    }\n}\n");
+        someClassTest = workingCopy("org.SomeClassTest", "package org;\n\npublic class SomeClassTest\n{\n    public void testFoo()\n    {\n    }\n}\n");
+        otherClass = workingCopy("org.OtherClass", "package org;\n\npublic class OtherClass\n{\n    public void other()\n    {\n    }\n}\n");
+
+        shell = new Shell();
+        treeViewer = new TreeViewer(shell);
+        contentProvider = new MethodTreeContentProvider(someClass.findPrimaryType());
+        treeViewer.setContentProvider(contentProvider);
+        treeViewer.setInput(this);
+
+        waitForUpdatesOf(contentProvider);
+    }
+
+    @After
+    public void cleanUp() throws Exception
+    {
+        // also disposes the content provider of the viewer
+        shell.dispose();
+
+        someClass.discardWorkingCopy();
+        someClassTest.discardWorkingCopy();
+        otherClass.discardWorkingCopy();
+    }
+
+    @Test
+    public void should_initially_show_untested_methods() throws Exception
+    {
+        assertThat(shownMethodNames()).containsOnly("bar");
+    }
+
+    @Test
+    public void should_show_method_added_to_class_under_test() throws Exception
+    {
+        edit(someClass, "    public void bar()", "    public void baz()\n    {\n    }\n\n    public void bar()");
+
+        waitForUpdatesOf(contentProvider);
+
+        assertThat(shownMethodNames()).containsOnly("bar", "baz");
+    }
+
+    @Test
+    public void should_remove_method_removed_from_class_under_test() throws Exception
+    {
+        edit(someClass, "\n    public void bar()\n    {\n    }\n", "");
+
+        waitForUpdatesOf(contentProvider);
+
+        assertThat(shownMethodNames()).isEmpty();
+    }
+
+    @Test
+    public void should_remove_method_for_which_a_test_is_added() throws Exception
+    {
+        edit(someClassTest, "    public void testFoo()", "    public void testBar()\n    {\n    }\n\n    public void testFoo()");
+
+        waitForUpdatesOf(contentProvider);
+
+        assertThat(shownMethodNames()).isEmpty();
+    }
+
+    @Test
+    public void should_not_update_when_unrelated_compilation_unit_changes() throws Exception
+    {
+        edit(otherClass, "    public void other()", "    public void another()\n    {\n    }\n\n    public void other()");
+
+        assertThat(Job.getJobManager().find(contentProvider)).isEmpty();
+        assertThat(shownMethodNames()).containsOnly("bar");
+    }
+
+    @Test
+    public void should_ignore_pending_update_when_provider_is_replaced() throws Exception
+    {
+        // given
+        edit(someClass, "    public void bar()", "    public void baz()\n    {\n    }\n\n    public void bar()");
+        assertThat(Job.getJobManager().find(contentProvider)).isNotEmpty();
+
+        // when: the method page does so when another editor is activated
+        MethodTreeContentProvider otherContentProvider = new MethodTreeContentProvider(otherClass.findPrimaryType());
+        treeViewer.setContentProvider(otherContentProvider);
+
+        waitForUpdatesOf(contentProvider);
+        waitForUpdatesOf(otherContentProvider);
+
+        // then
+        assertThat(shownMethodNames()).containsOnly("other");
+    }
+
+    private ICompilationUnit workingCopy(String typeName, String source) throws Exception
+    {
+        ICompilationUnit compilationUnit = context.getCompilationUnit(typeName);
+        compilationUnit.becomeWorkingCopy(null);
+        compilationUnit.getBuffer().setContents(source);
+        compilationUnit.reconcile(ICompilationUnit.NO_AST, false, null, null);
+        compilationUnit.commitWorkingCopy(true, null);
+        return compilationUnit;
+    }
+
+    /**
+     * Changes the given working copy as an editor would do, which reports the
+     * changes through a fine-grained delta.
+     */
+    private static void edit(ICompilationUnit workingCopy, String oldText, String newText) throws Exception
+    {
+        String source = workingCopy.getBuffer().getContents();
+        assertThat(source).contains(oldText);
+
+        workingCopy.getBuffer().setContents(source.replace(oldText, newText));
+        workingCopy.reconcile(ICompilationUnit.NO_AST, false, null, null);
+    }
+
+    private static void waitForUpdatesOf(MethodTreeContentProvider provider) throws Exception
+    {
+        Job.getJobManager().join(provider, null);
+
+        // runs the updates of the viewer
+        Display display = Display.getCurrent();
+        while (display.readAndDispatch())
+        {
+        }
+    }
+
+    private List<String> shownMethodNames()
+    {
+        List<String> names = new ArrayList<String>();
+        for (TreeItem item : treeViewer.getTree().getItems())
+        {
+            names.add(((IMethod) item.getData()).getElementName());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,55 @@
+package org.moreunit.elements;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+import org.junit.Test;
+import org.moreunit.test.context.Context;
+import org.moreunit.test.context.ContextTestCase;
+import org.moreunit.test.context.configs.SimpleJUnit3Project;
+import org.moreunit.test.workspace.TypeHandler;
+
+@Context(SimpleJUnit3Project.class)
+public class TestMethodIndexTest extends ContextTestCase
+{
+    private final TestMethodIndex index = new TestMethodIndex();
+
+    @Test
+    public void getMethodsStartingWith_should_return_matching_methods_in_declaration_order() throws Exception
+    {
+        IMethod testGetNumberTwo = testCaseHandler().addMethod("public void testGetNumberTwo()").get();
+        testCaseHandler().addMethod("public void testAdd()");
+        IMethod testGetNumber = testCaseHandler().addMethod("public void testGetNumber()").get();
+        testCaseHandler().addMethod("public void testSubtract()");
+
+        IType testCase = testCaseHandler().get();
+
+        assertThat(index.getMethodsStartingWith(testCase, "testGetNumber")).containsExactly(testGetNumberTwo, testGetNumber);
+    }
+
+    @Test
+    public void getMethodsStartingWith_should_return_empty_list_when_no_method_matches() throws Exception
+    {
+        testCaseHandler().addMethod("public void testAdd()");
+
+        assertThat(index.getMethodsStartingWith(testCaseHandler().get(), "testGetNumber")).isEmpty();
+    }
+
+    @Test
+    public void clear_should_force_methods_to_be_read_again() throws Exception
+    {
+        testCaseHandler().addMethod("public void testAdd()");
+        assertThat(index.getMethodsStartingWith(testCaseHandler().get(), "testGetNumber")).isEmpty();
+
+        IMethod testGetNumber = testCaseHandler().addMethod("public void testGetNumber()").get();
+        index.clear();
+
+        assertThat(index.getMethodsStartingWith(testCaseHandler().get(), "testGetNumber")).containsExactly(testGetNumber);
+    }
+
+    private TypeHandler testCaseHandler()
+    {
+        return context.getPrimaryTypeHandler("org.SomeClassTest");
+    }
+}
@@ -0,0 +1,96 @@
+package org.moreunit.handler;
+
+import static java.util.Arrays.asList;
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.jdt.core.IMethod;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.moreunit.elements.ChangedMethodsTracker;
+import org.moreunit.test.context.Context;
+import org.moreunit.test.context.ContextTestCase;
+import org.moreunit.test.context.configs.SimpleJUnit4Project;
+
+@Context(SimpleJUnit4Project.class)
+public class RunTestsActionExecutorTest extends ContextTestCase
+{
+    private final RunTestsActionExecutor executor = RunTestsActionExecutor.getInstance();
+    private final ChangedMethodsTracker tracker = ChangedMethodsTracker.getInstance();
+
+    private IMethod changedMethod;
+
+    @Before
+    public void init() throws Exception
+    {
+        changedMethod = context.getPrimaryTypeHandler("org.SomeClass").addMethod("public int getNumberOne()", "return 1;").get();
+        tracker.clear();
+    }
+
+    @After
+    public void clearTracker() throws Exception
+    {
+        tracker.clear();
+    }
+
+    @Test
+    public void searchAffectedTests_should_not_give_back_changed_methods_when_search_succeeds() throws Exception
+    {
+        executor.searchAffectedTests(asList(changedMethod), new NullProgressMonitor());
+
+        assertThat(tracker.takeChangedMethods()).isEmpty();
+    }
+
+    @Test
+    public void searchAffectedTests_should_give_back_changed_methods_when_search_is_canceled() throws Exception
+    {
+        // given
+        IProgressMonitor monitor = mock(IProgressMonitor.class);
+        when(monitor.isCanceled()).thenReturn(true);
+
+        // when
+        try
+        {
+            executor.searchAffectedTests(asList(changedMethod), monitor);
+            fail("expected exception");
+        }
+        catch (OperationCanceledException e)
+        {
+            // expected
+        }
+
+        // then
+        assertThat(tracker.takeChangedMethods()).containsOnly(changedMethod);
+    }
+
+    @Test
+    public void searchAffectedTests_should_give_back_changed_methods_when_search_fails() throws Exception
+    {
+        // given
+        IllegalStateException exception = new IllegalStateException();
+        IProgressMonitor monitor = mock(IProgressMonitor.class);
+        doThrow(exception).when(monitor).subTask(anyString());
+
+        // when
+        try
+        {
+            executor.searchAffectedTests(asList(changedMethod), monitor);
+            fail("expected exception");
+        }
+        catch (IllegalStateException e)
+        {
+            assertThat(e).isSameAs(exception);
+        }
+
+        // then
+        assertThat(tracker.takeChangedMethods()).containsOnly(changedMethod);
+    }
+}
@@ -0,0 +1,122 @@
+package org.moreunit.launch;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.debug.core.ILaunchConfiguration;
+import org.eclipse.debug.core.ILaunchConfigurationType;
+import org.eclipse.debug.core.ILaunchManager;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LaunchConfigurationIndexTest
+{
+    private static final String PROJECT = "project";
+    private static final String CONTAINER = "container";
+    private static final String[] ATTRIBUTES = { PROJECT, CONTAINER };
+
+    private ILaunchManager launchManager;
+    private ILaunchConfigurationType type;
+    private LaunchConfigurationIndex index;
+
+    private ILaunchConfiguration config1;
+    private ILaunchConfiguration config2;
+    private ILaunchConfiguration config3;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        launchManager = mock(ILaunchManager.class);
+        type = mock(ILaunchConfigurationType.class);
+        when(type.getIdentifier()).thenReturn("test.launch.type");
+
+        config1 = createConfig("config1", "p1", "Foo");
+        config2 = createConfig("config2", "p2", "Foo");
+        config3 = createConfig("config3", "p1", "Foo");
+        when(launchManager.getLaunchConfigurations(type)).thenReturn(new ILaunchConfiguration[] { config1, config2, config3 });
+
+        index = new LaunchConfigurationIndex(launchManager);
+    }
+
+    @Test
+    public void should_find_configurations_having_same_values_in_launch_manager_order() throws Exception
+    {
+        assertThat(index.findConfigurations(createConfig("template", "p1", "Foo"), ATTRIBUTES)).containsExactly(config1, config3);
+        assertThat(index.findConfigurations(createConfig("template", "p2", "Foo"), ATTRIBUTES)).containsExactly(config2);
+        assertThat(index.findConfigurations(createConfig("template", "p3", "Foo"), ATTRIBUTES)).isEmpty();
+    }
+
+    @Test
+    public void should_index_added_configurations() throws Exception
+    {
+        index.findConfigurations(config1, ATTRIBUTES);
+
+        ILaunchConfiguration config4 = createConfig("config4", "p1", "Foo");
+        index.launchConfigurationAdded(config4);
+
+        assertThat(index.findConfigurations(config1, ATTRIBUTES)).containsExactly(config1, config3, config4);
+    }
+
+    @Test
+    public void should_ignore_added_working_copies() throws Exception
+    {
+        index.findConfigurations(config1, ATTRIBUTES);
+
+        ILaunchConfiguration workingCopy = createConfig("workingCopy", "p1", "Foo");
+        when(workingCopy.isWorkingCopy()).thenReturn(true);
+        index.launchConfigurationAdded(workingCopy);
+
+        assertThat(index.findConfigurations(config1, ATTRIBUTES)).containsExactly(config1, config3);
+    }
+
+    @Test
+    public void should_keep_order_of_changed_configurations() throws Exception
+    {
+        index.findConfigurations(config1, ATTRIBUTES);
+
+        index.launchConfigurationChanged(config1);
+
+        assertThat(index.findConfigurations(config1, ATTRIBUTES)).containsExactly(config1, config3);
+    }
+
+    @Test
+    public void should_reindex_changed_configurations_in_their_original_order() throws Exception
+    {
+        index.findConfigurations(config1, ATTRIBUTES);
+
+        setAttributes(config3, "p2", "Foo");
+        index.launchConfigurationChanged(config3);
+        setAttributes(config1, "p2", "Foo");
+        index.launchConfigurationChanged(config1);
+
+        assertThat(index.findConfigurations(createConfig("template", "p1", "Foo"), ATTRIBUTES)).isEmpty();
+        assertThat(index.findConfigurations(createConfig("template", "p2", "Foo"), ATTRIBUTES)).containsExactly(config1, config2, config3);
+    }
+
+    @Test
+    public void should_forget_removed_configurations() throws Exception
+    {
+        index.findConfigurations(config1, ATTRIBUTES);
+
+        index.launchConfigurationRemoved(config1);
+
+        assertThat(index.findConfigurations(config3, ATTRIBUTES)).containsExactly(config3);
+    }
+
+    private ILaunchConfiguration createConfig(String name, String project, String container) throws CoreException
+    {
+        ILaunchConfiguration config = mock(ILaunchConfiguration.class);
+        when(config.getName()).thenReturn(name);
+        when(config.getType()).thenReturn(type);
+        setAttributes(config, project, container);
+        return config;
+    }
+
+    private static void setAttributes(ILaunchConfiguration config, String project, String container) throws CoreException
+    {
+        when(config.getAttribute(PROJECT, "")).thenReturn(project);
+        when(config.getAttribute(CONTAINER, "")).thenReturn(container);
+    }
+}
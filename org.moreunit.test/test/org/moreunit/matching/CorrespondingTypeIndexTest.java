@@ -0,0 +1,127 @@
+package org.moreunit.matching;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.File;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.junit.After;
+import org.junit.Test;
+import org.moreunit.test.context.ContextTestCase;
+import org.moreunit.test.context.Preferences;
+import org.moreunit.test.context.Project;
+
+@Preferences(testClassNameTemplate = "${srcFile}Test", testSrcFolder = "test")
+public class CorrespondingTypeIndexTest extends ContextTestCase
+{
+    private final CorrespondingTypeIndex index = new CorrespondingTypeIndex();
+    private File indexFile;
+
+    @After
+    public void deleteIndexFile() throws Exception
+    {
+        if(indexFile != null)
+        {
+            indexFile.delete();
+        }
+    }
+
+    @Project(mainCls = "Foo; Bar", testCls = "FooTest")
+    @Test
+    public void hasTestCase_should_tell_whether_type_has_test_case() throws Exception
+    {
+        assertThat(index.hasTestCase(context.getCompilationUnit("Foo"))).isTrue();
+        assertThat(index.hasTestCase(context.getCompilationUnit("Bar"))).isFalse();
+    }
+
+    @Project(mainCls = "Foo", testCls = "FooTest")
+    @Test
+    public void getTestCases_should_return_indexed_test_cases() throws Exception
+    {
+        IType testCase = context.getPrimaryTypeHandler("FooTest").get();
+
+        assertThat(index.getTestCases(context.getCompilationUnit("Foo"))).containsOnly(testCase);
+        // second call is answered from the index
+        assertThat(index.getTestCases(context.getCompilationUnit("Foo"))).containsOnly(testCase);
+    }
+
+    @Project(mainCls = "Foo", testCls = "FooTest")
+    @Test
+    public void should_restore_saved_entries() throws Exception
+    {
+        index.hasTestCase(context.getCompilationUnit("Foo"));
+
+        indexFile = File.createTempFile("moreunit", ".index");
+        index.save(indexFile);
+
+        CorrespondingTypeIndex restoredIndex = new CorrespondingTypeIndex();
+        assertThat(restoredIndex.isEmpty()).isTrue();
+
+        restoredIndex.load(indexFile);
+
+        assertThat(restoredIndex.isEmpty()).isFalse();
+        assertThat(restoredIndex.getTestCases(context.getCompilationUnit("Foo"))).containsOnly(context.getPrimaryTypeHandler("FooTest").get());
+    }
+
+    @Project(mainCls = "Foo; Bar", testCls = "FooTest")
+    @Test
+    public void should_not_restore_entries_of_types_without_test_case() throws Exception
+    {
+        assertThat(index.hasTestCase(context.getCompilationUnit("Bar"))).isFalse();
+
+        indexFile = File.createTempFile("moreunit", ".index");
+        index.save(indexFile);
+
+        // created while the index is not listening, as when the workbench is closed
+        context.getProjectHandler().getTestSrcFolderHandler().createClass("BarTest");
+
+        CorrespondingTypeIndex restoredIndex = new CorrespondingTypeIndex();
+        restoredIndex.load(indexFile);
+
+        assertThat(restoredIndex.hasTestCase(context.getCompilationUnit("Bar"))).isTrue();
+    }
+
+    @Project(mainCls = "Foo", testCls = "FooTest")
+    @Test
+    public void clear_should_remove_all_entries() throws Exception
+    {
+        index.hasTestCase(context.getCompilationUnit("Foo"));
+
+        index.clear();
+
+        assertThat(index.isEmpty()).isTrue();
+    }
+
+    @Project(mainCls = "Foo", testCls = "FooTest")
+    @Test
+    public void should_keep_entries_of_other_packages_when_a_package_is_added() throws Exception
+    {
+        index.hasTestCase(context.getCompilationUnit("Foo"));
+
+        JavaCore.addElementChangedListener(index, ElementChangedEvent.POST_CHANGE);
+        try
+        {
+            context.getProjectHandler().getTestSrcFolderHandler().get().createPackageFragment("some.other.pack", true, null);
+        }
+        finally
+        {
+            JavaCore.removeElementChangedListener(index);
+        }
+
+        assertThat(index.isEmpty()).isFalse();
+    }
+
+    @Test
+    public void isUnder_should_only_accept_container_and_its_descendants() throws Exception
+    {
+        assertThat(CorrespondingTypeIndex.isUnder("=foo", "=foo")).isTrue();
+        assertThat(CorrespondingTypeIndex.isUnder("=foo/src<pack{Foo.java[Foo", "=foo")).isTrue();
+        assertThat(CorrespondingTypeIndex.isUnder("=foo/src<pack{Foo.java[Foo", "=foo/src<pack")).isTrue();
+
+        assertThat(CorrespondingTypeIndex.isUnder("=foobar/src<pack{Foo.java[Foo", "=foo")).isFalse();
+        assertThat(CorrespondingTypeIndex.isUnder("=foo/src<package{Foo.java[Foo", "=foo/src<pack")).isFalse();
+        assertThat(CorrespondingTypeIndex.isUnder("=foo/src\\/test<pack{Foo.java[Foo", "=foo/src")).isFalse();
+    }
+}
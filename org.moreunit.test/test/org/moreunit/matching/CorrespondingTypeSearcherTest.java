@@ -67,6 +67,68 @@ public class CorrespondingTypeSearcherTest extends ContextTestCase
         assertThat(matches).hasSize(2).contains(perfectMatch, likelyMatch);
     }
 
+    @Project(mainCls = "com:Foo", testCls = "org:FooTest; com:FooTest")
+    @Test
+    public void getMatches_should_classify_perfect_matches_when_likely_matches_are_requested_first() throws Exception
+    {
+        CorrespondingTypeSearcher testCaseDiviner = new CorrespondingTypeSearcher(context.getCompilationUnit("com.Foo"), getPreferences());
+
+        IType perfectMatch = context.getPrimaryTypeHandler("com.FooTest").get();
+        IType likelyMatch = context.getPrimaryTypeHandler("org.FooTest").get();
+
+        Collection<IType> matches = testCaseDiviner.getMatches(true);
+        assertThat(matches).hasSize(2).contains(perfectMatch, likelyMatch);
+
+        matches = testCaseDiviner.getMatches(false);
+        assertThat(matches).containsOnly(perfectMatch);
+    }
+
+    @Preferences(testClassNameTemplate = "${srcFile}*Test", testSrcFolder = "test")
+    @Project(mainCls = "com:Bar", testCls = "com:BarUnitTest; com.bar.sub:BarSubTest")
+    @Test
+    public void getMatches_should_not_classify_matches_from_subpackages_as_perfect_with_wildcard_template() throws Exception
+    {
+        CorrespondingTypeSearcher testCaseDiviner = new CorrespondingTypeSearcher(context.getCompilationUnit("com.Bar"), getPreferences());
+
+        IType perfectMatch = context.getPrimaryTypeHandler("com.BarUnitTest").get();
+        IType likelyMatch = context.getPrimaryTypeHandler("com.bar.sub.BarSubTest").get();
+
+        Collection<IType> matches = testCaseDiviner.getMatches(true);
+        assertThat(matches).hasSize(2).contains(perfectMatch, likelyMatch);
+
+        matches = testCaseDiviner.getMatches(false);
+        assertThat(matches).containsOnly(perfectMatch);
+    }
+
+    @Project(mainCls = "com:Foo", testCls = "org:FooTest; net:FooTest; com:FooTest")
+    @Test
+    public void getLikelyMatches_should_return_at_most_the_requested_number_of_matches() throws Exception
+    {
+        CorrespondingTypeSearcher testCaseDiviner = new CorrespondingTypeSearcher(context.getCompilationUnit("com.Foo"), getPreferences());
+
+        assertThat(testCaseDiviner.getLikelyMatches(2)).hasSize(2);
+        assertThat(testCaseDiviner.getLikelyMatches(10)).hasSize(3);
+    }
+
+    @Project(mainCls = "com:Foo", testCls = "org:FooTest; net:FooTest; com:FooTest")
+    @Test
+    public void getLikelyMatches_should_reuse_resolved_likely_matches() throws Exception
+    {
+        CorrespondingTypeSearcher testCaseDiviner = new CorrespondingTypeSearcher(context.getCompilationUnit("com.Foo"), getPreferences());
+        Collection<IType> allMatches = testCaseDiviner.getMatches(true);
+
+        assertThat(testCaseDiviner.getLikelyMatches(2)).hasSize(2);
+        assertThat(allMatches).containsOnly(testCaseDiviner.getLikelyMatches(10).toArray());
+    }
+
+    @Project(mainCls = "com:Foo; com:Bar", testCls = "org:BarTest; com:FooTest; com:FooTestNG")
+    @Test
+    public void hasPerfectMatch_should_tell_whether_a_perfect_match_exists() throws Exception
+    {
+        assertThat(new CorrespondingTypeSearcher(context.getCompilationUnit("com.Foo"), getPreferences()).hasPerfectMatch()).isTrue();
+        assertThat(new CorrespondingTypeSearcher(context.getCompilationUnit("com.Bar"), getPreferences()).hasPerfectMatch()).isFalse();
+    }
+
     // Test for #2881409 (Switching in enums)
     @Project(mainCls = "com: enum SomeEnum", testCls = "com:SomeEnumTest")
     @Test
@@ -0,0 +1,74 @@
+package org.moreunit.preferences;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.moreunit.preferences.PreferenceConstants.TEST_CLASS_NAME_TEMPLATE;
+import static org.moreunit.preferences.PreferenceConstants.TEST_PACKAGE_PREFIX;
+import static org.moreunit.preferences.PreferenceConstants.USE_PROJECT_SPECIFIC_SETTINGS;
+
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jface.preference.IPreferenceStore;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.moreunit.preferences.Preferences.ProjectPreferences;
+import org.moreunit.test.DummyPreferencesForTesting;
+import org.moreunit.test.context.Project;
+import org.moreunit.test.context.TestContextRule;
+
+public class PreferencesSnapshotTest
+{
+    @Rule
+    public final TestContextRule context = new TestContextRule();
+
+    private DummyPreferencesForTesting prefs;
+
+    @Before
+    public void createTestPreferences() throws Exception
+    {
+        prefs = new DummyPreferencesForTesting();
+    }
+
+    @Test
+    @Project
+    public void should_reflect_project_preference_changes() throws Exception
+    {
+        // given
+        IJavaProject project = context.getProjectHandler().get();
+        ProjectPreferences projectPrefs = prefs.getProjectView(project);
+
+        IPreferenceStore projectPrefStore = prefs.getProjectStore(project);
+        projectPrefStore.setValue(USE_PROJECT_SPECIFIC_SETTINGS, true);
+        projectPrefStore.setValue(TEST_CLASS_NAME_TEMPLATE, "${srcFile}Test");
+        assertThat(projectPrefs.getTestClassNameTemplate()).isEqualTo("${srcFile}Test");
+
+        // when
+        projectPrefStore.setValue(TEST_CLASS_NAME_TEMPLATE, "${srcFile}Spec");
+        projectPrefStore.setValue(TEST_PACKAGE_PREFIX, "spec");
+
+        // then
+        assertThat(projectPrefs.getTestClassNameTemplate()).isEqualTo("${srcFile}Spec");
+        assertThat(projectPrefs.getPackagePrefix()).isEqualTo("spec");
+        assertThat(projectPrefs.getTestClassNamePattern()).isSameAs(projectPrefs.getTestClassNamePattern());
+    }
+
+    @Test
+    @Project
+    public void should_reflect_workspace_preference_changes_in_projects_without_specific_settings() throws Exception
+    {
+        // given
+        IJavaProject project = context.getProjectHandler().get();
+        ProjectPreferences projectPrefs = prefs.getProjectView(project);
+
+        prefs.getProjectStore(project).setValue(USE_PROJECT_SPECIFIC_SETTINGS, false);
+        IPreferenceStore workbenchPrefStore = prefs.getWorkbenchStore();
+        workbenchPrefStore.setValue(TEST_CLASS_NAME_TEMPLATE, "${srcFile}Test");
+        assertThat(projectPrefs.getTestClassNameTemplate()).isEqualTo("${srcFile}Test");
+
+        // when
+        workbenchPrefStore.setValue(TEST_CLASS_NAME_TEMPLATE, "${srcFile}Spec");
+
+        // then
+        assertThat(projectPrefs.getTestClassNameTemplate()).isEqualTo("${srcFile}Spec");
+        assertThat(prefs.hasProjectSpecificSettings(project)).isFalse();
+    }
+}
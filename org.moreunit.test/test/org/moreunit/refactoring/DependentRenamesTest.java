@@ -0,0 +1,56 @@
+package org.moreunit.refactoring;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import org.eclipse.ltk.core.refactoring.RefactoringStatus;
+import org.eclipse.ltk.core.refactoring.RefactoringStatusEntry;
+import org.junit.Test;
+
+public class DependentRenamesTest
+{
+    @Test
+    public void should_downgrade_errors_and_fatal_errors_to_warnings() throws Exception
+    {
+        // given
+        RefactoringStatus status = new RefactoringStatus();
+        status.addFatalError("fatal");
+        status.addError("error");
+
+        // when
+        RefactoringStatus result = DependentRenames.asWarnings(status);
+
+        // then
+        assertThat(result.getSeverity()).isEqualTo(RefactoringStatus.WARNING);
+        RefactoringStatusEntry[] entries = result.getEntries();
+        assertThat(entries).hasSize(2);
+        assertThat(entries[0].getMessage()).isEqualTo("fatal");
+        assertThat(entries[0].isWarning()).isTrue();
+        assertThat(entries[1].getMessage()).isEqualTo("error");
+        assertThat(entries[1].isWarning()).isTrue();
+    }
+
+    @Test
+    public void should_keep_warnings_and_infos() throws Exception
+    {
+        // given
+        RefactoringStatus status = new RefactoringStatus();
+        status.addWarning("warning");
+        status.addInfo("info");
+
+        // when
+        RefactoringStatus result = DependentRenames.asWarnings(status);
+
+        // then
+        RefactoringStatusEntry[] entries = result.getEntries();
+        assertThat(entries).hasSize(2);
+        assertThat(entries[0].isWarning()).isTrue();
+        assertThat(entries[1].isInfo()).isTrue();
+        assertThat(entries[1].getMessage()).isEqualTo("info");
+    }
+
+    @Test
+    public void should_return_ok_status_when_there_is_no_problem() throws Exception
+    {
+        assertThat(DependentRenames.asWarnings(new RefactoringStatus()).isOK()).isTrue();
+    }
+}
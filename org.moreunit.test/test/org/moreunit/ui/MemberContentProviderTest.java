@@ -114,6 +114,27 @@ public class MemberContentProviderTest
         assertThat(children3).onProperty("elementName").containsOnly("method3A");
     }
 
+    @Test
+    public void setMembers_should_replace_members_and_keep_actions_last()
+    {
+        types.add(type("type1"));
+        TreeActionElement< ? > action = mock(TreeActionElement.class);
+        MemberContentProvider contentProvider = new MemberContentProvider(types, methods, null).withAction(action);
+
+        IType type2 = type("type2");
+        types.add(type2);
+        methods.add(mockMethod(type2, "method2A"));
+        contentProvider.setMembers(types, methods);
+
+        Object[] elements = contentProvider.getElements(null);
+        assertThat(elements).hasSize(4);
+        assertThat(Arrays.asList(elements).subList(0, 2)).onProperty("elementName").containsExactly("type1", "type2");
+        assertThat(elements[2]).isInstanceOf(SeparatorElement.class);
+        assertThat(elements[3]).isSameAs(action);
+
+        assertThat(contentProvider.getChildren(type2)).onProperty("elementName").containsOnly("method2A");
+    }
+
     private IMethod mockMethod(IType declaringType, String methodName)
     {
         IMethod mock = mock(IMethod.class);
@@ -0,0 +1,67 @@
+package org.moreunit.util;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.moreunit.core.util.CollectionUtils.asSet;
+
+import java.util.List;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.JavaModelException;
+import org.junit.Before;
+import org.junit.Test;
+import org.moreunit.test.context.Context;
+import org.moreunit.test.context.ContextTestCase;
+import org.moreunit.test.context.Preferences;
+import org.moreunit.test.context.configs.SimpleJUnit3Preferences;
+import org.moreunit.test.workspace.MethodHandler;
+import org.moreunit.test.workspace.TypeHandler;
+import org.moreunit.util.MethodCallFinder.Direction;
+
+@Context(mainCls = "testing:Hello", testCls = "testing:HelloTest", preferences = @Preferences(SimpleJUnit3Preferences.class))
+public class MethodCallGraphTest extends ContextTestCase
+{
+    private TypeHandler cutType;
+    private TypeHandler testcaseType;
+    private MethodHandler getNumberOneMethod;
+
+    @Before
+    public void setUp() throws JavaModelException
+    {
+        cutType = context.getCompilationUnitHandler("testing.Hello").getPrimaryTypeHandler();
+        testcaseType = context.getCompilationUnitHandler("testing.HelloTest").getPrimaryTypeHandler();
+        getNumberOneMethod = cutType.addMethod("public int getNumberOne()", "return 1;");
+    }
+
+    @Test
+    public void getCalls_should_return_callers_in_scope() throws JavaModelException
+    {
+        MethodHandler testMethod = testcaseType.addMethod("public void testGetNumberOne()", "new Hello().getNumberOne();");
+
+        List<IMethod> callers = MethodCallGraph.getInstance().getCalls(getNumberOneMethod.get(), asSet(testcaseType.get()), Direction.CALLER, new NullProgressMonitor());
+
+        assertThat(callers).containsOnly(testMethod.get());
+    }
+
+    @Test
+    public void getCalls_should_return_callees_in_scope() throws JavaModelException
+    {
+        MethodHandler testMethod = testcaseType.addMethod("public void testGetNumberOne()", "new Hello().getNumberOne(); toString();");
+
+        List<IMethod> callees = MethodCallGraph.getInstance().getCalls(testMethod.get(), asSet(cutType.get()), Direction.CALLEE, new NullProgressMonitor());
+
+        assertThat(callees).containsOnly(getNumberOneMethod.get());
+    }
+
+    @Test
+    public void getCalls_should_forget_callers_when_scope_changes() throws JavaModelException
+    {
+        MethodHandler testMethod1 = testcaseType.addMethod("public void testGetNumberOne()", "new Hello().getNumberOne();");
+        MethodCallGraph.getInstance().getCalls(getNumberOneMethod.get(), asSet(testcaseType.get()), Direction.CALLER, new NullProgressMonitor());
+
+        MethodHandler testMethod2 = testcaseType.addMethod("public void testGetNumberOneAgain()", "new Hello().getNumberOne();");
+        List<IMethod> callers = MethodCallGraph.getInstance().getCalls(getNumberOneMethod.get(), asSet(testcaseType.get()), Direction.CALLER, new NullProgressMonitor());
+
+        assertThat(callers).containsOnly(testMethod1.get(), testMethod2.get());
+    }
+}
@@ -0,0 +1,103 @@
+package org.moreunit.util;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.moreunit.core.util.CollectionUtils.asSet;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.JavaModelException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.moreunit.test.context.Context;
+import org.moreunit.test.context.ContextTestCase;
+import org.moreunit.test.context.Preferences;
+import org.moreunit.test.context.configs.SimpleJUnit3Preferences;
+import org.moreunit.test.workspace.MethodHandler;
+import org.moreunit.test.workspace.SourceFolderHandler;
+import org.moreunit.test.workspace.TypeHandler;
+
+@Context(mainCls = "testing:Hello", testCls = "testing:HelloTest", preferences = @Preferences(SimpleJUnit3Preferences.class))
+public class MethodsUnderTestIndexTest extends ContextTestCase
+{
+    private MethodsUnderTestIndex index = MethodsUnderTestIndex.getInstance();
+    private TypeHandler cutType;
+    private TypeHandler testcaseType;
+    private MethodHandler getNumberOneMethod;
+
+    @Before
+    public void setUp() throws JavaModelException
+    {
+        cutType = context.getCompilationUnitHandler("testing.Hello").getPrimaryTypeHandler();
+        testcaseType = context.getCompilationUnitHandler("testing.HelloTest").getPrimaryTypeHandler();
+        getNumberOneMethod = cutType.addMethod("public int getNumberOne()", "return 1;");
+    }
+
+    @After
+    public void clearIndex()
+    {
+        index.clear();
+    }
+
+    @Test
+    public void getCallers_should_return_null_when_folder_is_not_indexed() throws JavaModelException
+    {
+        index.clear();
+
+        assertThat(index.getCallers(getNumberOneMethod.get(), asSet(testcaseType.get()))).isNull();
+    }
+
+    @Test
+    public void getCallers_should_return_callers_of_indexed_folder() throws JavaModelException
+    {
+        MethodHandler testMethod = testcaseType.addMethod("public void testGetNumberOne()", "new Hello().getNumberOne();");
+        testcaseType.addMethod("public void testSomethingElse()", "new Hello().toString();");
+
+        index.index(getTestFolder(), new NullProgressMonitor());
+
+        assertThat(index.getCallers(getNumberOneMethod.get(), asSet(testcaseType.get()))).containsOnly(testMethod.get());
+    }
+
+    @Test
+    public void getCallers_should_take_changed_compilation_units_into_account() throws JavaModelException
+    {
+        MethodHandler testMethod1 = testcaseType.addMethod("public void testGetNumberOne()", "new Hello().getNumberOne();");
+        index.index(getTestFolder(), new NullProgressMonitor());
+
+        MethodHandler testMethod2 = testcaseType.addMethod("public void testGetNumberOneAgain()", "new Hello().getNumberOne();");
+
+        assertThat(index.getCallers(getNumberOneMethod.get(), asSet(testcaseType.get()))).containsOnly(testMethod1.get(), testMethod2.get());
+    }
+
+    @Test
+    public void getCallers_should_return_callers_of_overridden_methods() throws JavaModelException
+    {
+        SourceFolderHandler mainFolder = context.getProjectHandler().getMainSrcFolderHandler();
+        mainFolder.createCompilationUnit("testing.Greeter", "package testing; public interface Greeter { String greet(); }");
+        IMethod greetMethod = mainFolder.createCompilationUnit("testing.PoliteGreeter", "package testing; public class PoliteGreeter implements Greeter { public String greet() { return \"Hello\"; } }")
+                .get().findPrimaryType().getMethod("greet", new String[0]);
+
+        MethodHandler testMethod = testcaseType.addMethod("public void testGreet()", "Greeter greeter = new PoliteGreeter(); greeter.greet();");
+
+        index.index(getTestFolder(), new NullProgressMonitor());
+
+        assertThat(index.getCallers(greetMethod, asSet(testcaseType.get()))).containsOnly(testMethod.get());
+    }
+
+    @Test
+    public void getCallers_should_return_methods_declaring_classes_whose_initializers_call_the_method() throws JavaModelException
+    {
+        MethodHandler testMethod = testcaseType.addMethod("public void testGetNumberOne()", "new Object() { int one = new Hello().getNumberOne(); };");
+
+        index.index(getTestFolder(), new NullProgressMonitor());
+
+        assertThat(index.getCallers(getNumberOneMethod.get(), asSet(testcaseType.get()))).containsOnly(testMethod.get());
+    }
+
+    private IPackageFragmentRoot getTestFolder()
+    {
+        return (IPackageFragmentRoot) testcaseType.get().getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT);
+    }
+}
@@ -0,0 +1,103 @@
+package org.moreunit.util;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.junit.Test;
+
+public class ParallelJobsTest
+{
+    @Test
+    public void should_return_results_in_task_order() throws Exception
+    {
+        List<ParallelJobs.Task<Integer>> tasks = new ArrayList<ParallelJobs.Task<Integer>>();
+        for (int i = 0; i < 20; i++)
+        {
+            tasks.add(new ValueTask(i));
+        }
+
+        List<Integer> results = ParallelJobs.run("test", tasks, new NullProgressMonitor());
+
+        List<Integer> expected = new ArrayList<Integer>();
+        for (int i = 0; i < 20; i++)
+        {
+            expected.add(i);
+        }
+        assertThat(results).isEqualTo(expected);
+    }
+
+    @Test
+    public void should_return_empty_list_when_there_is_no_task() throws Exception
+    {
+        assertThat(ParallelJobs.run("test", Collections.<ParallelJobs.Task<Integer>> emptyList(), new NullProgressMonitor())).isEmpty();
+    }
+
+    @Test
+    public void should_rethrow_exception_thrown_by_task() throws Exception
+    {
+        final IllegalStateException exception = new IllegalStateException();
+        List<ParallelJobs.Task<Integer>> tasks = new ArrayList<ParallelJobs.Task<Integer>>();
+        tasks.add(new ValueTask(1));
+        tasks.add(new ParallelJobs.Task<Integer>()
+        {
+            public Integer run(IProgressMonitor monitor)
+            {
+                throw exception;
+            }
+        });
+
+        try
+        {
+            ParallelJobs.run("test", tasks, new NullProgressMonitor());
+            fail("expected exception");
+        }
+        catch (IllegalStateException e)
+        {
+            assertThat(e).isSameAs(exception);
+        }
+    }
+
+    @Test(expected = OperationCanceledException.class)
+    public void should_throw_when_monitor_is_canceled() throws Exception
+    {
+        IProgressMonitor monitor = new NullProgressMonitor();
+        monitor.setCanceled(true);
+
+        List<ParallelJobs.Task<Integer>> tasks = new ArrayList<ParallelJobs.Task<Integer>>();
+        tasks.add(new ParallelJobs.Task<Integer>()
+        {
+            public Integer run(IProgressMonitor taskMonitor)
+            {
+                while (! taskMonitor.isCanceled())
+                {
+                    Thread.yield();
+                }
+                throw new OperationCanceledException();
+            }
+        });
+
+        ParallelJobs.run("test", tasks, monitor);
+    }
+
+    private static class ValueTask implements ParallelJobs.Task<Integer>
+    {
+        private final int value;
+
+        ValueTask(int value)
+        {
+            this.value = value;
+        }
+
+        public Integer run(IProgressMonitor monitor)
+        {
+            return value;
+        }
+    }
+}